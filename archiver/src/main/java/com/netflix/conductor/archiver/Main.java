@@ -2,6 +2,7 @@ package com.netflix.conductor.archiver;
 
 import com.netflix.conductor.archiver.job.*;
 import com.netflix.conductor.archiver.config.AppConfig;
+import com.netflix.conductor.archiver.sink.SegmentReader;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import org.apache.commons.lang3.time.DurationFormatUtils;
@@ -9,6 +10,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.core.config.plugins.util.PluginManager;
 
+import java.io.File;
 import java.net.InetAddress;
 import java.util.ArrayList;
 import java.util.List;
@@ -20,6 +22,10 @@ public class Main {
 	public static void main(String[] args) {
 		PluginManager.addPackage(Main.class.getPackage().getName());
 		logger = LogManager.getLogger(Main.class);
+		if (args.length == 2 && "find".equals(args[0])) {
+			find(args[1]);
+			return;
+		}
 		logger.info("Starting archiver");
 		try {
 			Main main = new Main();
@@ -31,6 +37,20 @@ public class Main {
 		}
 	}
 
+	private static void find(String workflowId) {
+		try {
+			String record = new SegmentReader(new File(AppConfig.getInstance().archiveDir())).find(workflowId);
+			if (record == null) {
+				logger.info("Workflow " + workflowId + " not found in the archive");
+				System.exit(1);
+			}
+			System.out.println(record);
+		} catch (Throwable ex) {
+			logger.error("Archive lookup failed with " + ex.getMessage(), ex);
+			System.exit(-1);
+		}
+	}
+
 	private void start() throws Exception {
 		long start = System.currentTimeMillis();
 
@@ -54,10 +74,18 @@ public class Main {
 
 		try (HikariDataSource dataSource = new HikariDataSource(poolConfig)) {
 			List<AbstractJob> jobs = new ArrayList<>();
-			jobs.add(new EventMesgsJob(dataSource));
-			jobs.add(new EventExecsJob(dataSource));
-			jobs.add(new EventPubsJob(dataSource));
-			jobs.add(new WorkflowJob(dataSource));
+			if (config.partitioned()) {
+				jobs.add(new PartitionJob(dataSource));
+			} else {
+				jobs.add(new EventMesgsJob(dataSource));
+				jobs.add(new EventExecsJob(dataSource));
+				jobs.add(new EventPubsJob(dataSource));
+				if (config.archiveDir() != null) {
+					jobs.add(new ArchiveJob(dataSource));
+				} else {
+					jobs.add(new WorkflowJob(dataSource));
+				}
+			}
 			jobs.add(new DbLogJob(dataSource));
 
 			// Run jobs in threads
@@ -41,6 +41,30 @@ public class AppConfig {
 		return config.getInt("keep_days", 30);
 	}
 
+	public boolean partitioned() {
+		return config.getBoolean("partitioned", false);
+	}
+
+	public int partitionDays() {
+		return config.getInt("partition_days", 7);
+	}
+
+	public int partitionsAhead() {
+		return config.getInt("partitions_ahead", 4);
+	}
+
+	public String archiveDir() {
+		return config.getString("archive_dir", null);
+	}
+
+	public int archiveSegmentSize() {
+		return config.getInt("archive_segment_size", 10000);
+	}
+
+	public int archiveBlockSize() {
+		return config.getInt("archive_block_size", 100);
+	}
+
 	public String cleanupMessageWorkflows() {
 		return config.getString("cleanup_message_workflows",null);
 	}
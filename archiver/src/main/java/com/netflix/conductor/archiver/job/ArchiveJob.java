@@ -0,0 +1,146 @@
+package com.netflix.conductor.archiver.job;
+
+import com.netflix.conductor.archiver.config.AppConfig;
+import com.netflix.conductor.archiver.sink.ArchiveRecord;
+import com.netflix.conductor.archiver.sink.SegmentWriter;
+import com.zaxxer.hikari.HikariDataSource;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.*;
+import java.text.SimpleDateFormat;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Export-then-purge variant of the {@link WorkflowJob}, used when archive_dir is set.
+ * <p>
+ * The expired root workflows are read in pages (see {@link WorkflowTree}). For every page of them the
+ * descendants, tasks and logs are loaded and written as one record per workflow into the current segment
+ * (see {@link SegmentWriter}). Once the segment is full it is closed (fsynced) and only then its rows are
+ * deleted, one transaction per exported page so a tree goes as a whole and no lock is held for long.
+ * A failure before the delete leaves the rows in place, they get exported again on the next run.
+ */
+public class ArchiveJob extends AbstractJob {
+	private static final Logger logger = LogManager.getLogger(ArchiveJob.class);
+	private final AppConfig config = AppConfig.getInstance();
+	private final String prefix = "segment-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new java.util.Date());
+	private File dir;
+	private Segment segment;
+	private int segments;
+	private int archived;
+
+	public ArchiveJob(HikariDataSource dataSource) {
+		super(dataSource);
+	}
+
+	@Override
+	public void cleanup() throws Exception {
+		Timestamp endTime = new Timestamp(System.currentTimeMillis() - Duration.ofDays(config.keepDays()).toMillis());
+		dir = new File(config.archiveDir());
+		logger.info("Starting with keepDays " + config.keepDays() + ", endTime " + endTime + ", archiving into " + dir);
+
+		long roots = WorkflowTree.roots(dataSource, endTime, config.batchSize(), (workflowIds, oldest) -> export(workflowIds));
+		if (segment != null) {
+			complete(segment);
+			segment = null;
+		}
+		logger.info("Finished archive job. Found " + roots + " root level workflows. Archived " + archived
+			+ " workflows into " + segments + " segments");
+	}
+
+	private void export(List<String> roots) throws SQLException, IOException {
+		String WORKFLOWS = WorkflowTree.TREE +
+			"SELECT w.workflow_id, w.json_data FROM tree JOIN workflow w ON w.id = tree.id";
+		String TASKS = "SELECT workflow_id, json_data FROM task WHERE workflow_id = ANY(?) ORDER BY id";
+		String LOGS = "SELECT l.task_id, l.created_on, l.log, t.workflow_id FROM task_log l " +
+			"JOIN task t ON t.task_id = l.task_id WHERE t.workflow_id = ANY(?) ORDER BY l.id";
+
+		Map<String, ArchiveRecord> records = new LinkedHashMap<>();
+		int tasks = 0;
+
+		try (Connection tx = dataSource.getConnection()) {
+			try (PreparedStatement st = tx.prepareStatement(WORKFLOWS)) {
+				st.setArray(1, tx.createArrayOf("varchar", roots.toArray()));
+				try (ResultSet rs = st.executeQuery()) {
+					while (rs.next()) {
+						String workflowId = rs.getString("workflow_id");
+						records.put(workflowId, new ArchiveRecord(workflowId, rs.getString("json_data")));
+					}
+				}
+			}
+			if (records.isEmpty()) {
+				return;
+			}
+
+			Array ids = tx.createArrayOf("varchar", records.keySet().toArray());
+			try (PreparedStatement st = tx.prepareStatement(TASKS)) {
+				st.setArray(1, ids);
+				try (ResultSet rs = st.executeQuery()) {
+					while (rs.next()) {
+						records.get(rs.getString("workflow_id")).addTask(rs.getString("json_data"));
+						tasks++;
+					}
+				}
+			}
+			try (PreparedStatement st = tx.prepareStatement(LOGS)) {
+				st.setArray(1, ids);
+				try (ResultSet rs = st.executeQuery()) {
+					while (rs.next()) {
+						records.get(rs.getString("workflow_id")).addLog(rs.getString("task_id"),
+							rs.getTimestamp("created_on").getTime(), rs.getString("log"));
+					}
+				}
+			}
+		}
+
+		if (segment == null) {
+			segment = new Segment(new SegmentWriter(dir, String.format("%s-%05d", prefix, segments++), config.archiveBlockSize()));
+		}
+		for (ArchiveRecord record : records.values()) {
+			segment.writer.append(record);
+		}
+		segment.trees.add(new ArrayList<>(records.keySet()));
+		segment.tasks += tasks;
+
+		if (segment.writer.size() >= config.archiveSegmentSize()) {
+			complete(segment);
+			segment = null;
+		}
+	}
+
+	private void complete(Segment segment) throws SQLException, IOException {
+		// Nothing is deleted unless the segment and its index are on disk
+		segment.writer.close();
+
+		int workflows = 0;
+		for (List<String> tree : segment.trees) {
+			try (Connection tx = dataSource.getConnection()) {
+				tx.setAutoCommit(false);
+				try {
+					workflows += WorkflowTree.delete(tx, tree);
+					tx.commit();
+				} catch (Throwable th) {
+					tx.rollback();
+					throw th;
+				}
+			}
+		}
+
+		archived += workflows;
+		logger.info("Archived " + workflows + " workflows, " + segment.tasks + " tasks into " + segment.writer.getDataFile());
+	}
+
+	private static class Segment {
+		private final SegmentWriter writer;
+		// The workflow ids of every exported page of roots with their descendants
+		private final List<List<String>> trees = new ArrayList<>();
+		private int tasks;
+
+		Segment(SegmentWriter writer) {
+			this.writer = writer;
+		}
+	}
+}
@@ -0,0 +1,261 @@
+package com.netflix.conductor.archiver.job;
+
+import com.google.common.collect.Lists;
+import com.netflix.conductor.archiver.config.AppConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.*;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.apache.commons.collections.CollectionUtils.isNotEmpty;
+
+/**
+ * Retention of the partitioned layout (see partitioned_schema.sql) - replaces the row by row deletes of
+ * the workflow and event jobs.
+ * <p>
+ * Creates the partitions ahead of time, moves the workflows which must be kept (still open or children
+ * of the kept ones) with their tasks and logs forward out of the expired partitions, cleans up the related
+ * non partitioned tables and then detaches and drops the expired partitions. All of it runs in short
+ * transactions of batch_size workflows/rows, so the locks of the moved rows are held only briefly.
+ * <p>
+ * Moving a row forward is a delete and insert across partitions. A server statement updating or locking
+ * the same row concurrently fails with "tuple to be locked was already moved to another partition due to
+ * concurrent update" (SQLState 40001). The server does not retry it in place: the failed decide is retried
+ * by the sweeper and a failed task update by the worker client. The job retries its own batch on 40001 and
+ * on deadlocks (40P01).
+ */
+public class PartitionJob extends AbstractJob {
+	private static final Logger logger = LogManager.getLogger(PartitionJob.class);
+	private static final Pattern UPPER_BOUND = Pattern.compile("TO \\('([^']+)'\\)");
+	private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+	private static final List<String> EXECUTION_TABLES = Arrays.asList("workflow", "task", "task_log");
+	private static final List<String> EVENT_TABLES = Arrays.asList("event_message", "event_execution", "event_published");
+	// serialization_failure (e.g. the row was moved to another partition meanwhile) and deadlock_detected
+	private static final Set<String> RETRYABLE_STATES = new HashSet<>(Arrays.asList("40001", "40P01"));
+	private static final int MAX_ATTEMPTS = 3;
+	private final AppConfig config = AppConfig.getInstance();
+
+	public PartitionJob(HikariDataSource dataSource) {
+		super(dataSource);
+	}
+
+	@Override
+	public void cleanup() throws Exception {
+		Timestamp endTime = new Timestamp(System.currentTimeMillis() - Duration.ofDays(config.keepDays()).toMillis());
+		logger.info("Starting with keepDays " + config.keepDays() + ", endTime " + endTime);
+
+		for (String table : EXECUTION_TABLES) {
+			createPartitions(table);
+		}
+		for (String table : EVENT_TABLES) {
+			createPartitions(table);
+		}
+
+		// Everything below the upper bound of the last expired workflow partition goes away
+		Timestamp bound = expiredBound("workflow", endTime);
+		if (bound != null) {
+			logger.info("Archiving executions before " + bound);
+			moveForward(bound, endTime);
+			for (String table : EXECUTION_TABLES) {
+				dropPartitions(table, bound);
+			}
+		}
+		for (String table : EVENT_TABLES) {
+			dropPartitions(table, endTime);
+		}
+		logger.info("Finished partition job");
+	}
+
+	private void createPartitions(String table) throws SQLException {
+		Timestamp last = partitions(table).values().stream().max(Timestamp::compareTo).orElse(null);
+		if (last == null) {
+			logger.warn("No partitions found for " + table + ". Is it partitioned?");
+			return;
+		}
+
+		LocalDateTime from = last.toLocalDateTime();
+		LocalDateTime until = LocalDateTime.now().plusDays(config.partitionDays() * config.partitionsAhead());
+		while (from.isBefore(until)) {
+			LocalDateTime to = from.plusDays(config.partitionDays());
+			String name = table + "_p" + SUFFIX.format(from);
+			logger.info("Creating partition " + name);
+			execute(String.format("CREATE TABLE IF NOT EXISTS %s PARTITION OF %s FOR VALUES FROM ('%s') TO ('%s')",
+				name, table, Timestamp.valueOf(from), Timestamp.valueOf(to)));
+			from = to;
+		}
+	}
+
+	private void moveForward(Timestamp bound, Timestamp endTime) throws SQLException {
+		int batchSize = config.batchSize();
+
+		// The open workflows, children of the kept ones and of the ones moved forward before
+		String KEEP = "WITH RECURSIVE keep AS (" +
+			"SELECT w.workflow_id FROM workflow w WHERE w.partition_on < ? AND (w.end_time IS NULL OR w.end_time >= ? " +
+			"OR w.workflow_status IN ('RESET', 'RUNNING', 'PAUSED') " +
+			"OR EXISTS (SELECT 1 FROM workflow p WHERE p.workflow_id = w.parent_workflow_id AND p.partition_on >= ?)) " +
+			"UNION " +
+			"SELECT c.workflow_id FROM workflow c JOIN keep k ON c.parent_workflow_id = k.workflow_id WHERE c.partition_on < ?) " +
+			"SELECT workflow_id FROM keep";
+
+		// A workflow moves together with its tasks and logs, one short transaction per batch
+		String WORKFLOWS = "UPDATE workflow SET partition_on = now() WHERE partition_on < ? AND workflow_id = ANY(?)";
+		String TASKS = "UPDATE task SET partition_on = now() WHERE partition_on < ? AND workflow_id = ANY(?)";
+		String LOGS = "UPDATE task_log l SET partition_on = now() WHERE l.partition_on < ? AND l.task_id IN (" +
+			"SELECT t.task_id FROM task t WHERE t.workflow_id = ANY(?))";
+
+		// Listed again once moved - a workflow reopened meanwhile (e.g. restarted) is moved by the next pass
+		List<String> keep = fetchWorkflowIds(KEEP, bound, endTime, bound, bound);
+		while (!keep.isEmpty()) {
+			int[] moved = new int[3];
+			for (List<String> batch : Lists.partition(keep, batchSize)) {
+				int[] counts = new int[3];
+				inTransaction(tx -> {
+					Array ids = tx.createArrayOf("VARCHAR", batch.toArray(new String[0]));
+					counts[0] = executeUpdate(tx, WORKFLOWS, bound, ids);
+					counts[1] = executeUpdate(tx, TASKS, bound, ids);
+					counts[2] = executeUpdate(tx, LOGS, bound, ids);
+				});
+				for (int i = 0; i < moved.length; i++) {
+					moved[i] += counts[i];
+				}
+			}
+			logger.info("Moved forward workflows " + moved[0] + ", tasks " + moved[1] + ", task logs " + moved[2]);
+
+			keep = fetchWorkflowIds(KEEP, bound, endTime, bound, bound);
+		}
+
+		// The non partitioned tables of the workflows and tasks being dropped
+		String SCHEDULED = "SELECT s.id FROM task_scheduled s WHERE EXISTS (" +
+			"SELECT 1 FROM workflow w WHERE w.workflow_id = s.workflow_id AND w.partition_on < ?) LIMIT ?";
+		String IN_PROGRESS = "SELECT p.id FROM task_in_progress p WHERE EXISTS (" +
+			"SELECT 1 FROM workflow w WHERE w.workflow_id = p.workflow_id AND w.partition_on < ?) LIMIT ?";
+		String MESSAGES = "SELECT m.id FROM queue_message m WHERE EXISTS (" +
+			"SELECT 1 FROM workflow w WHERE w.workflow_id = m.message_id AND w.partition_on < ?) LIMIT ?";
+		String MATCHES = "SELECT m.id FROM task_match m WHERE EXISTS (" +
+			"SELECT 1 FROM task t WHERE t.task_id = m.task_id AND t.partition_on < ?) LIMIT ?";
+
+		logger.info("Deleted task_scheduled " + deleteAll("task_scheduled", SCHEDULED, bound, batchSize));
+		logger.info("Deleted task_in_progress " + deleteAll("task_in_progress", IN_PROGRESS, bound, batchSize));
+		logger.info("Deleted queue_message " + deleteAll("queue_message", MESSAGES, bound, batchSize));
+		logger.info("Deleted task_match " + deleteAll("task_match", MATCHES, bound, batchSize));
+	}
+
+	private int deleteAll(String table, String query, Timestamp bound, int batchSize) throws SQLException {
+		int deleted = 0;
+		List<Long> ids = fetchIds(query, bound, batchSize);
+		while (isNotEmpty(ids)) {
+			deleted += deleteByIds(table, ids);
+			ids = fetchIds(query, bound, batchSize);
+		}
+		return deleted;
+	}
+
+	/**
+	 * Runs the work in a transaction, retried when it lost a deadlock or serialization race against the server
+	 */
+	private void inTransaction(TransactionalWork work) throws SQLException {
+		for (int attempt = 1; ; attempt++) {
+			try (Connection tx = dataSource.getConnection()) {
+				tx.setAutoCommit(false);
+				try {
+					work.run(tx);
+					tx.commit();
+					return;
+				} catch (Throwable th) {
+					tx.rollback();
+					throw th;
+				}
+			} catch (SQLException ex) {
+				if (attempt >= MAX_ATTEMPTS || !RETRYABLE_STATES.contains(ex.getSQLState())) {
+					throw ex;
+				}
+				logger.warn("Transaction attempt " + attempt + " failed with " + ex.getMessage() + ", retrying");
+			}
+		}
+	}
+
+	private List<String> fetchWorkflowIds(String query, Timestamp... params) throws SQLException {
+		List<String> result = new ArrayList<>();
+		try (Connection tx = dataSource.getConnection(); PreparedStatement st = tx.prepareStatement(query)) {
+			for (int i = 0; i < params.length; i++) {
+				st.setTimestamp(i + 1, params[i]);
+			}
+			try (ResultSet rs = st.executeQuery()) {
+				while (rs.next()) {
+					result.add(rs.getString("workflow_id"));
+				}
+			}
+		}
+		return result;
+	}
+
+	private void dropPartitions(String table, Timestamp bound) throws SQLException {
+		for (Map.Entry<String, Timestamp> partition : partitions(table).entrySet()) {
+			if (partition.getValue().after(bound)) {
+				continue;
+			}
+			logger.info("Dropping partition " + partition.getKey() + " of " + table);
+			execute(String.format("ALTER TABLE %s DETACH PARTITION %s", table, partition.getKey()));
+			execute(String.format("DROP TABLE %s", partition.getKey()));
+		}
+	}
+
+	private Timestamp expiredBound(String table, Timestamp endTime) throws SQLException {
+		return partitions(table).values().stream()
+			.filter(upper -> !upper.after(endTime))
+			.max(Timestamp::compareTo).orElse(null);
+	}
+
+	/**
+	 * @return Partition name to its upper bound. The partitions up to MAXVALUE are not returned
+	 */
+	private Map<String, Timestamp> partitions(String table) throws SQLException {
+		String SQL = "SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) AS bound FROM pg_inherits i " +
+			"JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent WHERE p.relname = ?";
+
+		Map<String, Timestamp> result = new HashMap<>();
+		try (Connection tx = dataSource.getConnection(); PreparedStatement st = tx.prepareStatement(SQL)) {
+			st.setString(1, table);
+			try (ResultSet rs = st.executeQuery()) {
+				while (rs.next()) {
+					Matcher matcher = UPPER_BOUND.matcher(rs.getString("bound"));
+					if (matcher.find()) {
+						result.put(rs.getString("relname"), Timestamp.valueOf(matcher.group(1)));
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	private void execute(String query) throws SQLException {
+		try (Connection tx = dataSource.getConnection(); Statement st = tx.createStatement()) {
+			st.execute(query);
+		}
+	}
+
+	private int executeUpdate(Connection tx, String query, Timestamp bound, Array ids) throws SQLException {
+		try (PreparedStatement st = tx.prepareStatement(query)) {
+			st.setTimestamp(1, bound);
+			st.setArray(2, ids);
+			return st.executeUpdate();
+		}
+	}
+
+	private interface TransactionalWork {
+		void run(Connection tx) throws SQLException;
+	}
+}
@@ -7,73 +7,74 @@ import org.apache.logging.log4j.Logger;
 
 import java.sql.*;
 import java.time.Duration;
-import java.util.Set;
-import java.util.concurrent.BlockingDeque;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.LinkedBlockingDeque;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.IntStream;
 
+/**
+ * Deletes the expired root workflows with all their descendants.
+ * <p>
+ * The root workflow ids are read in pages (see {@link WorkflowTree}) into a bounded queue, so the
+ * reader waits for the workers instead of holding all the ids. A worker expands a batch with its descendants
+ * in one recursive query and deletes them table by table with = ANY(?) arrays within one transaction.
+ */
 public class WorkflowJob extends AbstractJob {
 	private static final Logger logger = LogManager.getLogger(WorkflowJob.class);
-	private BlockingDeque<String> workflowQueue = new LinkedBlockingDeque<>();
-	private AtomicBoolean keepPooling = new AtomicBoolean(true);
+	private static final Batch END = new Batch(Collections.emptyList(), null);
 	private final AppConfig config = AppConfig.getInstance();
-	private CountDownLatch latch = new CountDownLatch(config.queueWorkers());
-	private Set<String> processed = ConcurrentHashMap.newKeySet();
-	private long endTime;
+	private final BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(config.queueWorkers() * 2);
+	private final CountDownLatch latch = new CountDownLatch(config.queueWorkers());
+	private final AtomicLong deleted = new AtomicLong();
+	private long started;
+	private Timestamp endTime;
 
 	public WorkflowJob(HikariDataSource dataSource) {
 		super(dataSource);
 	}
 
 	@Override
-	public void cleanup() {
-		endTime = System.currentTimeMillis() - Duration.ofDays(config.keepDays()).toMillis();
-		logger.info("Starting with keepDays " + config.keepDays() + ", endTime " + new Timestamp(endTime));
+	public void cleanup() throws Exception {
+		started = System.currentTimeMillis();
+		endTime = new Timestamp(started - Duration.ofDays(config.keepDays()).toMillis());
+		logger.info("Starting with keepDays " + config.keepDays() + ", endTime " + endTime);
 
-		// Start workers
 		startWorkers();
+		try {
+			grabWorkflows();
+		} finally {
+			// Workers stop on the end marker once the batches queued before it are done
+			for (int i = 0; i < config.queueWorkers(); i++) {
+				queue.put(END);
+			}
+		}
 
-		// Grab root level workflows
-		grabWorkflows();
-
-		// Wait until processed
-		waitWorkflows();
+		logger.info("Waiting for workers to complete");
+		latch.await();
+		logger.info("Finished workflow job. Deleted " + deleted.get() + " workflows in " + elapsed(started) + " ms");
 	}
 
 	private void startWorkers() {
 		Runnable runnable = () -> {
-			while (keepPooling.get() || !workflowQueue.isEmpty()) {
-				String workflowId = workflowQueue.poll();
-				if (workflowId != null) {
+			try {
+				Batch batch;
+				while ((batch = queue.take()) != END) {
 					try {
-						try (Connection tx = dataSource.getConnection()) {
-							tx.setAutoCommit(false);
-							try {
-
-								processWorkflow(workflowId, tx);
-								tx.commit();
-
-							} catch (Throwable th) {
-								tx.rollback();
-								throw th;
-							}
-						}
+						processBatch(batch);
 					} catch (Throwable th) {
-						logger.error(th.getMessage() + " occurred for " + workflowId, th);
-					}
-				} else {
-					try {
-						Thread.sleep(500);
-					} catch (InterruptedException e) {
-						e.printStackTrace();
+						logger.error(th.getMessage() + " occurred for batch of " + batch.workflowIds.size()
+							+ " starting with " + batch.workflowIds.get(0), th);
 					}
 				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				logger.info("No workflows left to process. Finishing " + Thread.currentThread().getName());
+				latch.countDown();
 			}
-			logger.info("No workflows left to process. Finishing " + Thread.currentThread().getName());
-			latch.countDown();
 		};
 
 		IntStream.range(0, config.queueWorkers()).forEach(o -> {
@@ -83,77 +84,57 @@ public class WorkflowJob extends AbstractJob {
 		});
 	}
 
-	private void grabWorkflows() {
-		String SQL = "SELECT workflow_id FROM workflow WHERE end_time < ? " +
-			"AND workflow_status NOT IN ('RESET', 'RUNNING', 'PAUSED') AND parent_workflow_id IS NULL";
-		try (Connection tx = dataSource.getConnection(); PreparedStatement st = tx.prepareStatement(SQL)) {
-			st.setTimestamp(1, new Timestamp(endTime));
-			ResultSet rs = st.executeQuery();
-			int totalHits = 0;
-			while (rs.next()) {
-				String workflowId = rs.getString("workflow_id");
-				workflowQueue.add(workflowId);
-				totalHits++;
-			}
-			logger.info("Found " + totalHits + " root level workflows to be deleted");
-		} catch (Exception ex) {
-			keepPooling.set(false);
-			logger.error("grabWorkflows failed with " + ex.getMessage(), ex);
-			throw new RuntimeException(ex.getMessage(), ex);
-		}
+	private void grabWorkflows() throws Exception {
+		long totalHits = WorkflowTree.roots(dataSource, endTime, config.batchSize(),
+			(workflowIds, oldest) -> queue.put(new Batch(workflowIds, oldest)));
+		logger.info("Found " + totalHits + " root level workflows to be deleted");
 	}
 
-	private void waitWorkflows() {
-		int size;
-		while ((size = workflowQueue.size()) > 0) {
-			logger.info("Waiting ... workflows left " + size);
+	private void processBatch(Batch batch) throws SQLException {
+		long start = System.currentTimeMillis();
+		long queued = start - batch.queuedAt;
+		int workflows;
+		try (Connection tx = dataSource.getConnection()) {
+			tx.setAutoCommit(false);
 			try {
-				Thread.sleep(1000);
-			} catch (InterruptedException e) {
-				e.printStackTrace();
+				List<String> workflowIds = WorkflowTree.expand(tx, batch.workflowIds);
+				if (workflowIds.isEmpty()) {
+					tx.rollback();
+					return;
+				}
+
+				workflows = WorkflowTree.delete(tx, workflowIds);
+				tx.commit();
+			} catch (Throwable th) {
+				tx.rollback();
+				throw th;
 			}
 		}
 
-		keepPooling.set(false);
-		logger.info("Waiting for workers to complete");
-		try {
-			latch.await();
-		} catch (InterruptedException e) {
-			e.printStackTrace();
-		}
+		long took = elapsed(start);
+		long total = deleted.addAndGet(workflows);
+		logger.info(String.format("Deleted %d workflows (%d roots) in %d ms, %.1f/s. Total %d, %.1f/s. " +
+				"Queued for %d ms, oldest end_time %s is %d h past the endTime",
+			workflows, batch.workflowIds.size(), took, rate(workflows, took), total, rate(total, elapsed(started)),
+			queued, batch.oldest, Duration.ofMillis(endTime.getTime() - batch.oldest.getTime()).toHours()));
 	}
 
-	private void processWorkflow(String workflowId, Connection tx) throws SQLException {
-		if (processed.contains(workflowId)) {
-			logger.debug("Workflow " + workflowId + " already processed");
-			return;
-		}
-		executeUpdate(tx, "DELETE FROM task WHERE workflow_id = ?", workflowId);
-		executeUpdate(tx, "DELETE FROM task_scheduled WHERE workflow_id = ?", workflowId);
-		executeUpdate(tx, "DELETE FROM task_in_progress WHERE workflow_id = ?", workflowId);
-		executeUpdate(tx, "DELETE FROM workflow WHERE workflow_id = ?", workflowId);
-		executeUpdate(tx, "DELETE FROM queue_message WHERE message_id = ?", workflowId);
-
-		processChildren(workflowId, tx);
-
-		processed.add(workflowId);
+	private static long elapsed(long since) {
+		return System.currentTimeMillis() - since;
 	}
 
-	private void processChildren(String workflowId, Connection tx) throws SQLException {
-		try (PreparedStatement st = tx.prepareStatement("SELECT workflow_id FROM workflow WHERE parent_workflow_id = ?")) {
-			st.setString(1, workflowId);
-			ResultSet rs = st.executeQuery();
-			while (rs.next()) {
-				workflowId = rs.getString("workflow_id");
-				processWorkflow(workflowId, tx);
-			}
-		}
+	private static double rate(long count, long millis) {
+		return millis > 0 ? count * 1000.0 / millis : count;
 	}
 
-	private void executeUpdate(Connection tx, String query, String workflowId) throws SQLException {
-		try (PreparedStatement st = tx.prepareStatement(query)) {
-			st.setString(1, workflowId);
-			st.executeUpdate();
+	private static class Batch {
+		private final List<String> workflowIds;
+		private final Timestamp oldest;
+		private final long queuedAt = System.currentTimeMillis();
+
+		Batch(List<String> workflowIds, Timestamp oldest) {
+			this.workflowIds = workflowIds;
+			this.oldest = oldest;
 		}
 	}
 }
@@ -0,0 +1,105 @@
+package com.netflix.conductor.archiver.job;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The expired root workflows and their descendants, shared by the {@link WorkflowJob} and the {@link ArchiveJob}.
+ * <p>
+ * The roots are read in pages by id, each page in its own short statement, so no transaction (and no snapshot
+ * holding back the vacuum) stays open for the whole run. The rows deleted meanwhile do not affect the paging.
+ */
+class WorkflowTree {
+	// The ids and workflow ids of the trees of the roots bound to the first parameter
+	static final String TREE = "WITH RECURSIVE tree AS (" +
+		"SELECT id, workflow_id FROM workflow WHERE workflow_id = ANY(?) " +
+		"UNION " +
+		"SELECT c.id, c.workflow_id FROM workflow c JOIN tree t ON c.parent_workflow_id = t.workflow_id) ";
+
+	private static final String ROOTS = "SELECT id, workflow_id, end_time FROM workflow WHERE end_time < ? " +
+		"AND workflow_status NOT IN ('RESET', 'RUNNING', 'PAUSED') AND parent_workflow_id IS NULL " +
+		"AND id > ? ORDER BY id LIMIT ?";
+
+	interface RootsConsumer {
+		void accept(List<String> workflowIds, Timestamp oldest) throws Exception;
+	}
+
+	/**
+	 * Hands the expired root workflows to the consumer in pages of pageSize
+	 *
+	 * @return The number of the root workflows found
+	 */
+	static long roots(DataSource dataSource, Timestamp endTime, int pageSize, RootsConsumer consumer) throws Exception {
+		long total = 0;
+		long lastId = 0;
+		while (true) {
+			List<String> workflowIds = new ArrayList<>(pageSize);
+			Timestamp oldest = null;
+			try (Connection tx = dataSource.getConnection(); PreparedStatement st = tx.prepareStatement(ROOTS)) {
+				st.setTimestamp(1, endTime);
+				st.setLong(2, lastId);
+				st.setInt(3, pageSize);
+				try (ResultSet rs = st.executeQuery()) {
+					while (rs.next()) {
+						lastId = rs.getLong("id");
+						workflowIds.add(rs.getString("workflow_id"));
+						Timestamp workflowEnd = rs.getTimestamp("end_time");
+						if (oldest == null || workflowEnd.before(oldest)) {
+							oldest = workflowEnd;
+						}
+					}
+				}
+			}
+			if (workflowIds.isEmpty()) {
+				return total;
+			}
+
+			total += workflowIds.size();
+			consumer.accept(workflowIds, oldest);
+			if (workflowIds.size() < pageSize) {
+				return total;
+			}
+		}
+	}
+
+	/**
+	 * @return The workflow ids of the roots and all their descendants
+	 */
+	static List<String> expand(Connection tx, List<String> roots) throws SQLException {
+		List<String> workflowIds = new ArrayList<>();
+		try (PreparedStatement st = tx.prepareStatement(TREE + "SELECT workflow_id FROM tree")) {
+			st.setArray(1, tx.createArrayOf("varchar", roots.toArray()));
+			try (ResultSet rs = st.executeQuery()) {
+				while (rs.next()) {
+					workflowIds.add(rs.getString("workflow_id"));
+				}
+			}
+		}
+		return workflowIds;
+	}
+
+	/**
+	 * Deletes the workflows with their tasks and queue messages within the given transaction.
+	 * The task logs and matches go with the tasks (on delete cascade)
+	 *
+	 * @return The number of the deleted workflows
+	 */
+	static int delete(Connection tx, List<String> workflowIds) throws SQLException {
+		Array ids = tx.createArrayOf("varchar", workflowIds.toArray());
+		executeUpdate(tx, "DELETE FROM task WHERE workflow_id = ANY(?)", ids);
+		executeUpdate(tx, "DELETE FROM task_scheduled WHERE workflow_id = ANY(?)", ids);
+		executeUpdate(tx, "DELETE FROM task_in_progress WHERE workflow_id = ANY(?)", ids);
+		int workflows = executeUpdate(tx, "DELETE FROM workflow WHERE workflow_id = ANY(?)", ids);
+		executeUpdate(tx, "DELETE FROM queue_message WHERE message_id = ANY(?)", ids);
+		return workflows;
+	}
+
+	private static int executeUpdate(Connection tx, String query, Array workflowIds) throws SQLException {
+		try (PreparedStatement st = tx.prepareStatement(query)) {
+			st.setArray(1, workflowIds);
+			return st.executeUpdate();
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package com.netflix.conductor.archiver.sink;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One archived workflow - a single NDJSON line of a segment:
+ * {"workflowId":"..","workflow":{..},"tasks":[{..}],"logs":[{"taskId":"..","createdOn":0,"log":".."}]}
+ * <p>
+ * The workflow and task json_data columns are JSON already, so they are written as is.
+ */
+public class ArchiveRecord {
+	private final String workflowId;
+	private final String workflow;
+	private final List<String> tasks = new ArrayList<>();
+	private final StringBuilder logs = new StringBuilder();
+
+	public ArchiveRecord(String workflowId, String workflow) {
+		this.workflowId = workflowId;
+		this.workflow = workflow;
+	}
+
+	public String getWorkflowId() {
+		return workflowId;
+	}
+
+	public void addTask(String task) {
+		tasks.add(task);
+	}
+
+	public void addLog(String taskId, long createdOn, String log) {
+		if (logs.length() > 0) {
+			logs.append(',');
+		}
+		logs.append("{\"taskId\":").append(quote(taskId))
+			.append(",\"createdOn\":").append(createdOn)
+			.append(",\"log\":").append(quote(log)).append('}');
+	}
+
+	public String toJson() {
+		StringBuilder json = new StringBuilder(prefix(workflowId));
+		json.append("\"workflow\":").append(workflow);
+		json.append(",\"tasks\":[").append(String.join(",", tasks)).append(']');
+		json.append(",\"logs\":[").append(logs).append("]}");
+		return json.toString();
+	}
+
+	/**
+	 * @return The beginning of the line of the workflow, used by the reader to find it within the block
+	 */
+	static String prefix(String workflowId) {
+		return "{\"workflowId\":" + quote(workflowId) + ",";
+	}
+
+	static String quote(String value) {
+		if (value == null) {
+			return "null";
+		}
+		StringBuilder result = new StringBuilder(value.length() + 2).append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+				case '"':
+					result.append("\\\"");
+					break;
+				case '\\':
+					result.append("\\\\");
+					break;
+				case '\n':
+					result.append("\\n");
+					break;
+				case '\r':
+					result.append("\\r");
+					break;
+				case '\t':
+					result.append("\\t");
+					break;
+				default:
+					if (c < 0x20) {
+						result.append(String.format("\\u%04x", (int) c));
+					} else {
+						result.append(c);
+					}
+			}
+		}
+		return result.append('"').toString();
+	}
+}
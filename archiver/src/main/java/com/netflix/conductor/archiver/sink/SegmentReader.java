@@ -0,0 +1,68 @@
+package com.netflix.conductor.archiver.sink;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Finds archived workflows in the segments written by {@link SegmentWriter}.
+ * The indexes are scanned for the workflow id and only the block holding it is decompressed.
+ */
+public class SegmentReader {
+	private final File dir;
+
+	public SegmentReader(File dir) {
+		this.dir = dir;
+	}
+
+	/**
+	 * @return The archived record (see {@link ArchiveRecord}) of the workflow or null if not archived
+	 */
+	public String find(String workflowId) throws IOException {
+		File[] indexes = dir.listFiles((d, name) -> name.endsWith(SegmentWriter.INDEX_SUFFIX));
+		if (indexes == null) {
+			return null;
+		}
+
+		// The latest segment first, a workflow exported again after a failed delete is the same record
+		Arrays.sort(indexes, (a, b) -> b.getName().compareTo(a.getName()));
+		for (File indexFile : indexes) {
+			Long offset = lookup(indexFile, workflowId);
+			if (offset != null) {
+				String name = indexFile.getName();
+				name = name.substring(0, name.length() - SegmentWriter.INDEX_SUFFIX.length());
+				return read(new File(dir, name + SegmentWriter.DATA_SUFFIX), offset, workflowId);
+			}
+		}
+		return null;
+	}
+
+	private Long lookup(File indexFile, String workflowId) throws IOException {
+		String prefix = workflowId + "\t";
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(indexFile), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.startsWith(prefix)) {
+					return Long.parseLong(line.substring(prefix.length()));
+				}
+			}
+		}
+		return null;
+	}
+
+	private String read(File dataFile, long offset, String workflowId) throws IOException {
+		String prefix = ArchiveRecord.prefix(workflowId);
+		try (FileInputStream in = new FileInputStream(dataFile)) {
+			in.getChannel().position(offset);
+			BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(in, 65536), StandardCharsets.UTF_8));
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.startsWith(prefix)) {
+					return line;
+				}
+			}
+		}
+		return null;
+	}
+}
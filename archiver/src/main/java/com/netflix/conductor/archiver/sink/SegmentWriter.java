@@ -0,0 +1,94 @@
+package com.netflix.conductor.archiver.sink;
+
+import org.apache.commons.io.output.CloseShieldOutputStream;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the archived workflows into a segment: a gzip NDJSON file made of independent gzip members of
+ * blockSize records each, so the reader can decompress a single block, plus a small index file of the
+ * workflow id to the offset of its block.
+ * <p>
+ * The index is written on {@link #close} after the data file is fsynced, a segment without index is
+ * incomplete and ignored by the {@link SegmentReader}. The archived rows may only be deleted after close.
+ */
+public class SegmentWriter implements Closeable {
+	static final String DATA_SUFFIX = ".ndjson.gz";
+	static final String INDEX_SUFFIX = ".idx";
+	private final Map<String, Long> index = new LinkedHashMap<>();
+	private final File dataFile;
+	private final File indexFile;
+	private final FileOutputStream out;
+	private final int blockSize;
+	private Writer block;
+	private long blockOffset;
+	private int blockRecords;
+
+	public SegmentWriter(File dir, String name, int blockSize) throws IOException {
+		if (!dir.isDirectory() && !dir.mkdirs()) {
+			throw new IOException("Unable to create " + dir);
+		}
+		this.dataFile = new File(dir, name + DATA_SUFFIX);
+		this.indexFile = new File(dir, name + INDEX_SUFFIX);
+		this.out = new FileOutputStream(dataFile);
+		this.blockSize = blockSize;
+	}
+
+	public void append(ArchiveRecord record) throws IOException {
+		if (block == null) {
+			blockOffset = out.getChannel().position();
+			block = new BufferedWriter(new OutputStreamWriter(
+				new GZIPOutputStream(new CloseShieldOutputStream(out), 65536), StandardCharsets.UTF_8));
+		}
+		block.write(record.toJson());
+		block.write('\n');
+		index.put(record.getWorkflowId(), blockOffset);
+
+		if (++blockRecords >= blockSize) {
+			closeBlock();
+		}
+	}
+
+	public int size() {
+		return index.size();
+	}
+
+	public File getDataFile() {
+		return dataFile;
+	}
+
+	/**
+	 * Completes the segment: fsyncs the data, then writes and fsyncs the index
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			closeBlock();
+			out.getChannel().force(true);
+		} finally {
+			out.close();
+		}
+
+		try (FileOutputStream indexOut = new FileOutputStream(indexFile)) {
+			Writer writer = new BufferedWriter(new OutputStreamWriter(indexOut, StandardCharsets.UTF_8));
+			for (Map.Entry<String, Long> entry : index.entrySet()) {
+				writer.write(entry.getKey() + "\t" + entry.getValue() + "\n");
+			}
+			writer.flush();
+			indexOut.getChannel().force(true);
+		}
+	}
+
+	private void closeBlock() throws IOException {
+		if (block != null) {
+			// Finishes the gzip member, the shield keeps the segment file open
+			block.close();
+			block = null;
+			blockRecords = 0;
+		}
+	}
+}
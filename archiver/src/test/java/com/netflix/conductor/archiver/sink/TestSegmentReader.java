@@ -0,0 +1,106 @@
+package com.netflix.conductor.archiver.sink;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestSegmentReader {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testRoundTripAcrossBlocks() throws Exception {
+		File dir = folder.newFolder("archive");
+
+		// 5 records in blocks of 2, the last block is a partial one
+		SegmentWriter writer = new SegmentWriter(dir, "segment-00000", 2);
+		for (int i = 0; i < 5; i++) {
+			writer.append(record("wf" + i));
+		}
+		assertEquals(5, writer.size());
+		writer.close();
+
+		SegmentReader reader = new SegmentReader(dir);
+		for (int i = 0; i < 5; i++) {
+			assertEquals(record("wf" + i).toJson(), reader.find("wf" + i));
+		}
+	}
+
+	@Test
+	public void testFindMissing() throws Exception {
+		File dir = folder.newFolder("archive");
+		SegmentWriter writer = new SegmentWriter(dir, "segment-00000", 10);
+		writer.append(record("wf1"));
+		writer.close();
+
+		SegmentReader reader = new SegmentReader(dir);
+		assertNull(reader.find("wf2"));
+		// Not a prefix match on the index
+		assertNull(reader.find("wf"));
+		assertNull(new SegmentReader(new File(dir, "none")).find("wf1"));
+	}
+
+	@Test
+	public void testRecordEscaping() throws Exception {
+		File dir = folder.newFolder("archive");
+		ArchiveRecord record = new ArchiveRecord("wf1", "{\"workflowId\":\"wf1\"}");
+		record.addTask("{\"taskId\":\"t1\"}");
+		record.addLog("t1", 1000L, "line \"one\"\nline\ttwo \\ end");
+
+		SegmentWriter writer = new SegmentWriter(dir, "segment-00000", 10);
+		writer.append(record);
+		writer.close();
+
+		String json = new SegmentReader(dir).find("wf1");
+		assertEquals("{\"workflowId\":\"wf1\",\"workflow\":{\"workflowId\":\"wf1\"},\"tasks\":[{\"taskId\":\"t1\"}]," +
+			"\"logs\":[{\"taskId\":\"t1\",\"createdOn\":1000,\"log\":\"line \\\"one\\\"\\nline\\ttwo \\\\ end\"}]}", json);
+	}
+
+	@Test
+	public void testSegmentWithoutIndexIsIgnored() throws Exception {
+		File dir = folder.newFolder("archive");
+		SegmentWriter complete = new SegmentWriter(dir, "segment-00000", 10);
+		complete.append(record("wf1"));
+		complete.close();
+
+		// Not closed - the data may be there but the index is not, so the rows were never deleted
+		SegmentWriter incomplete = new SegmentWriter(dir, "segment-00001", 1);
+		incomplete.append(record("wf2"));
+		assertTrue(incomplete.getDataFile().exists());
+
+		SegmentReader reader = new SegmentReader(dir);
+		assertNull(reader.find("wf2"));
+		assertEquals(record("wf1").toJson(), reader.find("wf1"));
+	}
+
+	@Test
+	public void testLatestSegmentWins() throws Exception {
+		File dir = folder.newFolder("archive");
+		write(dir, "segment-20240101-000000-00000", new ArchiveRecord("wf1", "{\"version\":1}"));
+		write(dir, "segment-20240102-000000-00000", new ArchiveRecord("wf1", "{\"version\":2}"));
+
+		assertEquals(new ArchiveRecord("wf1", "{\"version\":2}").toJson(), new SegmentReader(dir).find("wf1"));
+	}
+
+	private void write(File dir, String name, ArchiveRecord record) throws IOException {
+		SegmentWriter writer = new SegmentWriter(dir, name, 10);
+		writer.append(record);
+		writer.close();
+	}
+
+	private ArchiveRecord record(String workflowId) {
+		ArchiveRecord record = new ArchiveRecord(workflowId, "{\"workflowId\":\"" + workflowId + "\",\"status\":\"COMPLETED\"}");
+		record.addTask("{\"taskId\":\"" + workflowId + "-t1\"}");
+		record.addTask("{\"taskId\":\"" + workflowId + "-t2\"}");
+		record.addLog(workflowId + "-t1", 1L, "started");
+		return record;
+	}
+}
@@ -16,6 +16,7 @@
 package com.netflix.conductor.client.http;
 
 import java.util.List;
+import java.util.Map;
 
 import com.netflix.conductor.common.metadata.tasks.Task;
 import com.netflix.conductor.common.metadata.tasks.TaskDef;
@@ -37,6 +38,10 @@ public class TaskClient extends ClientBase {
 	
 	private static GenericType<List<TaskDef>> task_def_types = new GenericType<List<TaskDef>>(){};
 
+	private static GenericType<Map<String, String>> update_errors = new GenericType<Map<String, String>>(){};
+
+	private static GenericType<Map<String, Boolean>> ack_results = new GenericType<Map<String, Boolean>>(){};
+
 	/**
 	 * Creates a default task client
 	 */
@@ -144,6 +149,15 @@ public class TaskClient extends ClientBase {
 		postForEntity("tasks", task);
 	}
 	
+	/**
+	 * Updates the results of several task executions with one call
+	 * @param results TaskResults to be updated.
+	 * @return Task id to the error of the results which could not be updated.  Empty if all of them were.
+	 */
+	public Map<String, String> updateTasks(List<TaskResult> results) {
+		return postForEntity("tasks/batch", results, null, update_errors);
+	}
+
 	public void log(String taskId, String logMessage) {
 		postForEntity("tasks/"  + taskId + "/log", logMessage);		
 	}
@@ -159,6 +173,17 @@ public class TaskClient extends ClientBase {
 		String response = postForEntity("tasks/{taskId}/ack", null, params, String.class, taskId);
 		return Boolean.valueOf(response);
 	}	
+
+	/**
+	 * Ack for several polled tasks with one call
+	 * @param taskIds Ids of the tasks polled
+	 * @param workerId user identified worker.
+	 * @return Task id to the ack result, see {@link #ack(String, String)}
+	 */
+	public Map<String, Boolean> ackTasks(List<String> taskIds, String workerId) {
+		Object[] params = new Object[]{"workerid", workerId};
+		return postForEntity("tasks/ack/batch", taskIds, params, ack_results);
+	}
 	
 	
 	/**
@@ -0,0 +1,212 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.conductor.client.task;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.netflix.conductor.client.http.TaskClient;
+import com.netflix.conductor.client.worker.Worker;
+import com.netflix.conductor.common.metadata.tasks.Task;
+import com.netflix.conductor.common.metadata.tasks.TaskResult;
+
+/**
+ * Coalesces the task acks and updates of the {@link WorkflowTaskCoordinator} into batch calls.
+ * <p>
+ * A batch is sent once batchSize entries are pending or after maxDelay milliseconds. The failed updates are
+ * retried by the scheduler after sleepWhenRetry milliseconds instead of sleeping the worker thread.
+ */
+class TaskBatcher {
+
+	private static final Logger logger = LoggerFactory.getLogger(TaskBatcher.class);
+
+	private final TaskClient client;
+
+	private final int batchSize;
+
+	private final int sleepWhenRetry;
+
+	private final int updateRetryCount;
+
+	private final ScheduledExecutorService scheduler;
+
+	private final Map<String, List<PendingAck>> acks = new HashMap<>();
+
+	private final List<PendingUpdate> updates = new ArrayList<>();
+
+	TaskBatcher(TaskClient client, int batchSize, int maxDelay, int sleepWhenRetry, int updateRetryCount) {
+		this.client = client;
+		this.batchSize = batchSize;
+		this.sleepWhenRetry = sleepWhenRetry;
+		this.updateRetryCount = updateRetryCount;
+
+		AtomicInteger count = new AtomicInteger(0);
+		this.scheduler = Executors.newScheduledThreadPool(2, r -> {
+			Thread t = new Thread(r);
+			t.setName("workflow-task-batcher-" + count.getAndIncrement());
+			t.setDaemon(true);
+			return t;
+		});
+		scheduler.scheduleWithFixedDelay(this::flush, maxDelay, maxDelay, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * @return The ack result, see {@link TaskClient#ack(String, String)}
+	 */
+	CompletableFuture<Boolean> ack(String taskId, String workerId) {
+		PendingAck ack = new PendingAck(taskId);
+		boolean full;
+		synchronized (acks) {
+			List<PendingAck> pending = acks.computeIfAbsent(workerId, k -> new ArrayList<>());
+			pending.add(ack);
+			full = pending.size() >= batchSize;
+		}
+		if (full) {
+			scheduler.execute(this::flushAcks);
+		}
+		return ack.future;
+	}
+
+	/**
+	 * Sends the result with the next batch. {@link Worker#onErrorUpdate} is called once the retries are exhausted
+	 */
+	void update(Task task, TaskResult result, Worker worker) {
+		enqueue(new PendingUpdate(task, result, worker, updateRetryCount));
+	}
+
+	private void enqueue(PendingUpdate update) {
+		boolean full;
+		synchronized (updates) {
+			updates.add(update);
+			full = updates.size() >= batchSize;
+		}
+		if (full) {
+			scheduler.execute(this::flushUpdates);
+		}
+	}
+
+	private void flush() {
+		try {
+			flushAcks();
+			flushUpdates();
+		} catch (Throwable t) {
+			// Keeps the scheduled flush alive
+			logger.error("Unable to flush the task batches", t);
+		}
+	}
+
+	private void flushAcks() {
+		Map<String, List<PendingAck>> pending;
+		synchronized (acks) {
+			if (acks.isEmpty()) {
+				return;
+			}
+			pending = new HashMap<>(acks);
+			acks.clear();
+		}
+
+		pending.forEach((workerId, all) -> {
+			for (int i = 0; i < all.size(); i += batchSize) {
+				List<PendingAck> batch = all.subList(i, Math.min(i + batchSize, all.size()));
+				try {
+					List<String> taskIds = batch.stream().map(ack -> ack.taskId).collect(Collectors.toList());
+					Map<String, Boolean> result = client.ackTasks(taskIds, workerId);
+					batch.forEach(ack -> ack.future.complete(result != null && Boolean.TRUE.equals(result.get(ack.taskId))));
+				} catch (Exception e) {
+					batch.forEach(ack -> ack.future.completeExceptionally(e));
+				}
+			}
+		});
+	}
+
+	private void flushUpdates() {
+		List<PendingUpdate> pending;
+		synchronized (updates) {
+			if (updates.isEmpty()) {
+				return;
+			}
+			pending = new ArrayList<>(updates);
+			updates.clear();
+		}
+
+		for (int i = 0; i < pending.size(); i += batchSize) {
+			List<PendingUpdate> batch = pending.subList(i, Math.min(i + batchSize, pending.size()));
+			try {
+				List<TaskResult> results = batch.stream().map(update -> update.result).collect(Collectors.toList());
+				Map<String, String> errors = client.updateTasks(results);
+				for (PendingUpdate update : batch) {
+					String error = errors == null ? null : errors.get(update.result.getTaskId());
+					if (error != null) {
+						retry(update, new RuntimeException(error));
+					}
+				}
+			} catch (Exception e) {
+				batch.forEach(update -> retry(update, e));
+			}
+		}
+	}
+
+	private void retry(PendingUpdate update, Exception e) {
+		WorkflowTaskMetrics.updateTaskError(update.worker.getTaskDefName(), e);
+		logger.error("Unable to update {} on count {}", update.result, update.retries, e);
+		if (update.retries <= 0) {
+			update.worker.onErrorUpdate(update.task);
+			return;
+		}
+		update.retries--;
+		scheduler.schedule(() -> enqueue(update), sleepWhenRetry, TimeUnit.MILLISECONDS);
+	}
+
+	private static class PendingAck {
+
+		private final String taskId;
+
+		private final CompletableFuture<Boolean> future = new CompletableFuture<>();
+
+		PendingAck(String taskId) {
+			this.taskId = taskId;
+		}
+	}
+
+	private static class PendingUpdate {
+
+		private final Task task;
+
+		private final TaskResult result;
+
+		private final Worker worker;
+
+		private int retries;
+
+		PendingUpdate(Task task, TaskResult result, Worker worker, int retries) {
+			this.task = task;
+			this.result = result;
+			this.worker = worker;
+			this.retries = retries;
+		}
+	}
+}
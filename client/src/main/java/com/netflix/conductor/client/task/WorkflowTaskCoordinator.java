@@ -20,6 +20,7 @@ import java.io.StringWriter;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -69,6 +70,12 @@ public class WorkflowTaskCoordinator {
 	
 	private int threadCount;
 	
+	private int batchSize;
+	
+	private int batchDelay;
+	
+	private TaskBatcher batcher;
+	
 	private static final String DOMAIN = "domain";
 	
 	private static final String ALL_WORKERS = "all";
@@ -88,12 +95,24 @@ public class WorkflowTaskCoordinator {
 	 * @see Builder
 	 */
 	public WorkflowTaskCoordinator(EurekaClient ec, TaskClient client, int threadCount, int sleepWhenRetry, int updateRetryCount, int workerQueueSize, Iterable<Worker> taskWorkers) {
+		this(ec, client, threadCount, sleepWhenRetry, updateRetryCount, workerQueueSize, 1, 10, taskWorkers);
+	}
+	
+	/**
+	 *
+	 * @param batchSize max # of acks or task updates sent with one call.  1 disables the batching.
+	 * @param batchDelay max time in millisecond an ack or task update waits for its batch to fill up.
+	 * @see #WorkflowTaskCoordinator(EurekaClient, TaskClient, int, int, int, int, Iterable)
+	 */
+	public WorkflowTaskCoordinator(EurekaClient ec, TaskClient client, int threadCount, int sleepWhenRetry, int updateRetryCount, int workerQueueSize, int batchSize, int batchDelay, Iterable<Worker> taskWorkers) {
 		this.ec = ec;
 		this.client = client;
 		this.threadCount = threadCount;
 		this.sleepWhenRetry = sleepWhenRetry;
 		this.updateRetryCount = updateRetryCount;
 		this.workerQueueSize = workerQueueSize;
+		this.batchSize = batchSize;
+		this.batchDelay = batchDelay;
 		for (Worker worker : taskWorkers) {
 			workers.add(worker);
 		}
@@ -114,6 +133,10 @@ public class WorkflowTaskCoordinator {
 		
 		private int threadCount = -1;
 		
+		private int batchSize = 1;
+		
+		private int batchDelay = 10;
+		
 		private Iterable<Worker> taskWorkers;
 		
 		private EurekaClient ec;
@@ -164,6 +187,35 @@ public class WorkflowTaskCoordinator {
 			return this;
 		}
 		
+		/**
+		 * 
+		 * @param batchSize max # of acks or task updates sent to the server with one call.  Default is 1, no batching.
+		 * The failed updates of a batch are retried without blocking the worker threads.
+		 * @return Builder instance
+		 * @see #withBatchDelay(int)
+		 */
+		public Builder withBatchSize(int batchSize) {
+			if(batchSize < 1) {
+				throw new IllegalArgumentException("Batch size cannot be less than 1");
+			}
+			this.batchSize = batchSize;
+			return this;
+		}
+		
+		/**
+		 * 
+		 * @param batchDelay max time in millisecond an ack or task update waits for its batch to fill up.  Default is 10.
+		 * @return Builder instance
+		 * @see #withBatchSize(int)
+		 */
+		public Builder withBatchDelay(int batchDelay) {
+			if(batchDelay < 1) {
+				throw new IllegalArgumentException("Batch delay cannot be less than 1");
+			}
+			this.batchDelay = batchDelay;
+			return this;
+		}
+		
 		/**
 		 * 
 		 * @param client Task Client used to communicate to Conductor server
@@ -219,7 +271,7 @@ public class WorkflowTaskCoordinator {
 			if(client == null) {
 				throw new IllegalArgumentException("No TaskClient provided.  use withTaskClient() to provide one"); 
 			}
-			return new WorkflowTaskCoordinator(ec, client, threadCount, sleepWhenRetry, updateRetryCount, workerQueueSize, taskWorkers);
+			return new WorkflowTaskCoordinator(ec, client, threadCount, sleepWhenRetry, updateRetryCount, workerQueueSize, batchSize, batchDelay, taskWorkers);
 		}
 	}
 	
@@ -234,6 +286,11 @@ public class WorkflowTaskCoordinator {
 		
 		logger.info("Initialized the worker with {} threads", threadCount);
 		
+		if(batchSize > 1) {
+			logger.info("Batching the acks and updates by {} within {} ms", batchSize, batchDelay);
+			this.batcher = new TaskBatcher(client, batchSize, batchDelay, sleepWhenRetry, updateRetryCount);
+		}
+		
 		AtomicInteger count = new AtomicInteger(0);
 		this.es = new ThreadPoolExecutor(threadCount, threadCount,
                 0L, TimeUnit.MILLISECONDS,
@@ -310,7 +367,7 @@ public class WorkflowTaskCoordinator {
 				return;
 			}
 			
-			if (!client.ack(task.getTaskId(), worker.getIdentity())) {
+			if (!ack(worker, task)) {
 				WorkflowTaskMetrics.ackFailed(worker.getTaskDefName());
 				logger.error("Ack failed for {}, id {}", taskType, task.getTaskId());
 				return;
@@ -345,7 +402,7 @@ public class WorkflowTaskCoordinator {
 		}
 		
 		logger.debug("Task {} executed by worker {} with status {}", task.getTaskId(), worker.getClass().getSimpleName(), task.getStatus());
-		updateWithRetry(updateRetryCount, task, result, worker);
+		update(task, result, worker);
 
 	}
 	
@@ -381,6 +438,41 @@ public class WorkflowTaskCoordinator {
 		return updateRetryCount;
 	}
 	
+	/**
+	 * 
+	 * @return max # of acks or task updates sent with one call
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+	
+	/**
+	 * 
+	 * @return max time in millisecond an ack or task update waits for its batch
+	 */
+	public int getBatchDelay() {
+		return batchDelay;
+	}
+	
+	private boolean ack(Worker worker, Task task) throws Exception {
+		if(batcher == null) {
+			return client.ack(task.getTaskId(), worker.getIdentity());
+		}
+		try {
+			return batcher.ack(task.getTaskId(), worker.getIdentity()).get();
+		} catch (ExecutionException e) {
+			throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+		}
+	}
+	
+	private void update(Task task, TaskResult result, Worker worker) {
+		if(batcher == null) {
+			updateWithRetry(updateRetryCount, task, result, worker);
+		} else {
+			batcher.update(task, result, worker);
+		}
+	}
+	
 	private void updateWithRetry(int count, Task task, TaskResult result, Worker worker) {
 		
 		if(count < 0) {
@@ -413,7 +505,7 @@ public class WorkflowTaskCoordinator {
 		t.printStackTrace(new PrintWriter(sw));
 		result.log(sw.toString());
 		
-		updateWithRetry(updateRetryCount, task, result, worker);
+		update(task, result, worker);
 	}
 	
 }
@@ -25,6 +25,8 @@ import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
 
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 
 import org.junit.Test;
@@ -33,6 +35,7 @@ import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.util.concurrent.Uninterruptibles;
 import com.netflix.conductor.client.http.TaskClient;
 import com.netflix.conductor.client.worker.Worker;
@@ -116,4 +119,47 @@ public class WorkflowTaskCoordinatorTests {
 		Mockito.verify(client).updateTask(any());
 
 	}
+
+	@Test
+	public void testBatchedUpdateRetry() {
+
+		Worker worker = Worker.create("test", task -> {
+			TaskResult result = new TaskResult(task);
+			result.setStatus(TaskResult.Status.COMPLETED);
+			return result;
+		});
+		TaskClient client = Mockito.mock(TaskClient.class);
+		WorkflowTaskCoordinator coordinator = new WorkflowTaskCoordinator.Builder()
+				.withWorkers(worker)
+				.withThreadCount(1)
+				.withSleepWhenRetry(10)
+				.withUpdateRetryCount(1)
+				.withBatchSize(10)
+				.withBatchDelay(10)
+				.withTaskClient(client)
+				.build();
+		assertEquals(10, coordinator.getBatchSize());
+		assertEquals(10, coordinator.getBatchDelay());
+
+		Task task = new Task();
+		task.setTaskId("t1");
+		when(client.poll(anyString(), anyString(), anyString(), anyInt(), anyInt())).thenReturn(ImmutableList.of(task)).thenReturn(ImmutableList.of());
+		when(client.ackTasks(any(), anyString())).thenReturn(ImmutableMap.of("t1", true));
+		CountDownLatch latch = new CountDownLatch(2);
+		doAnswer(new Answer<Map<String, String>>() {
+			@Override
+			public Map<String, String> answer(InvocationOnMock invocation) throws Throwable {
+				List<TaskResult> results = (List<TaskResult>) invocation.getArguments()[0];
+				assertEquals(1, results.size());
+				assertEquals(TaskResult.Status.COMPLETED, results.get(0).getStatus());
+				latch.countDown();
+				// The first attempt fails and gets retried
+				return latch.getCount() > 0 ? ImmutableMap.of("t1", "error") : ImmutableMap.of();
+			}
+		}).when(client).updateTasks(any());
+		coordinator.init();
+		Uninterruptibles.awaitUninterruptibly(latch);
+		Mockito.verify(client, Mockito.never()).updateTask(any());
+		Mockito.verify(client, Mockito.never()).ack(anyString(), anyString());
+	}
 }
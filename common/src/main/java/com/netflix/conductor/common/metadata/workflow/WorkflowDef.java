@@ -60,6 +60,8 @@ public class WorkflowDef extends Auditable {
 
 	private Map<String, Object> attributes = new HashMap<>();;
 
+	private transient volatile Index index;
+
 
 	/**
 	 * @return the name
@@ -101,6 +103,7 @@ public class WorkflowDef extends Auditable {
 	 */
 	public void setTasks(LinkedList<WorkflowTask> tasks) {
 		this.tasks = tasks;
+		this.index = null;
 	}
 
 	/**
@@ -287,6 +290,14 @@ public class WorkflowDef extends Auditable {
 	}
 
     public WorkflowTask getNextTask(String taskReferenceName){
+		Index index = this.index;
+		if(index != null && index.nextTasks.containsKey(taskReferenceName)){
+			return index.nextTasks.get(taskReferenceName);
+		}
+		return findNextTask(taskReferenceName);
+	}
+
+	private WorkflowTask findNextTask(String taskReferenceName){
 		Iterator<WorkflowTask> it = tasks.iterator();
 		while(it.hasNext()){
 			 WorkflowTask task = it.next();
@@ -306,12 +317,36 @@ public class WorkflowDef extends Auditable {
 	}
 	
 	public WorkflowTask getTaskByRefName(String taskReferenceName){
+		Index index = this.index;
+		if(index != null){
+			return index.tasks.get(taskReferenceName);
+		}
 		Optional<WorkflowTask> found = all().stream().filter(wft -> wft.getTaskReferenceName().equals(taskReferenceName)).findFirst();
 		if(found.isPresent()){
 			return found.get();
 		}
 		return null;
 	}
+
+	/**
+	 * Precomputes {@link #getTaskByRefName} and {@link #getNextTask} for every task of the definition.
+	 * Used for the shared cached definitions - the tasks must not be modified once indexed.
+	 */
+	public void index(){
+		List<WorkflowTask> all = all();
+		Map<String, WorkflowTask> byRefName = new HashMap<>();
+		for(WorkflowTask wft : all){
+			if(wft.getTaskReferenceName() == null){
+				return;
+			}
+			byRefName.putIfAbsent(wft.getTaskReferenceName(), wft);
+		}
+		Map<String, WorkflowTask> nextTasks = new HashMap<>();
+		for(String refName : byRefName.keySet()){
+			nextTasks.put(refName, findNextTask(refName));
+		}
+		this.index = new Index(byRefName, nextTasks);
+	}
 	
 	public List<WorkflowTask> all(){
 		List<WorkflowTask> all = new LinkedList<>();
@@ -320,4 +355,14 @@ public class WorkflowDef extends Auditable {
 		}
 		return all;
 	}
+
+	private static class Index {
+		private final Map<String, WorkflowTask> tasks;
+		private final Map<String, WorkflowTask> nextTasks;
+
+		Index(Map<String, WorkflowTask> tasks, Map<String, WorkflowTask> nextTasks) {
+			this.tasks = tasks;
+			this.nextTasks = nextTasks;
+		}
+	}
 }
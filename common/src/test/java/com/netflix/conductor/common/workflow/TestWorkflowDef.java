@@ -20,6 +20,7 @@ package com.netflix.conductor.common.workflow;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -102,4 +103,54 @@ public class TestWorkflowDef {
 		assertEquals("t1", nxt.getTaskReferenceName());
 	
 	}
+
+	@Test
+	public void testIndex() throws Exception {
+		List<WorkflowTask> wfts = new ArrayList<WorkflowTask>(10);
+		for(int i = 0; i < 10; i++){
+			wfts.add(createTask(i));
+		}
+
+		WorkflowTask subCaseTask = new WorkflowTask();
+		subCaseTask.setType(Type.DECISION.name());
+		subCaseTask.setCaseValueParam("case2");
+		subCaseTask.setName("case2");
+		subCaseTask.setTaskReferenceName("case2");
+		Map<String, List<WorkflowTask>> dcx = new HashMap<>();
+		dcx.put("sc1", wfts.subList(4, 5));
+		dcx.put("sc2", wfts.subList(5, 7));
+		subCaseTask.setDecisionCases(dcx);
+
+		WorkflowTask caseTask = new WorkflowTask();
+		caseTask.setType(Type.DECISION.name());
+		caseTask.setCaseValueParam("case");
+		caseTask.setName("case");
+		caseTask.setTaskReferenceName("case");
+		Map<String, List<WorkflowTask>> dc = new HashMap<>();
+		dc.put("c1", Arrays.asList(wfts.get(0), subCaseTask, wfts.get(1)));
+		dc.put("c2", Arrays.asList(wfts.get(3)));
+		caseTask.setDecisionCases(dc);
+
+		WorkflowDef wf = new WorkflowDef();
+		wf.setName("INDEX_WF");
+		wf.getTasks().add(caseTask);
+		wf.getTasks().addAll(wfts.subList(8, 10));
+
+		Map<String, WorkflowTask> next = new HashMap<>();
+		Map<String, WorkflowTask> byRefName = new HashMap<>();
+		for (WorkflowTask wft : wf.all()) {
+			next.put(wft.getTaskReferenceName(), wf.getNextTask(wft.getTaskReferenceName()));
+			byRefName.put(wft.getTaskReferenceName(), wf.getTaskByRefName(wft.getTaskReferenceName()));
+		}
+
+		wf.index();
+		for (WorkflowTask wft : wf.all()) {
+			assertSame(next.get(wft.getTaskReferenceName()), wf.getNextTask(wft.getTaskReferenceName()));
+			assertSame(byRefName.get(wft.getTaskReferenceName()), wf.getTaskByRefName(wft.getTaskReferenceName()));
+		}
+		assertEquals("t9", wf.getNextTask("t8").getTaskReferenceName());
+		assertEquals("case2", wf.getNextTask("t0").getTaskReferenceName());
+		assertNull(wf.getNextTask("t9"));
+		assertNull(wf.getTaskByRefName("unknown"));
+	}
 }
@@ -21,6 +21,7 @@ package com.netflix.conductor.contribs;
 import com.google.inject.AbstractModule;
 import com.netflix.conductor.contribs.http.HttpTask;
 import com.netflix.conductor.contribs.http.RestClientManager;
+import com.netflix.conductor.contribs.http.ServiceDiscovery;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -35,6 +36,7 @@ public class HttpModule extends AbstractModule {
 	@Override
 	protected void configure() {
 		bind(RestClientManager.class).asEagerSingleton();
+		bind(ServiceDiscovery.class).asEagerSingleton();
 		bind(HttpTask.class).asEagerSingleton();
 		logger.debug("Http Module configured ...");
 	}
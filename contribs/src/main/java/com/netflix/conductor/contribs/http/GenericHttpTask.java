@@ -11,7 +11,6 @@ import com.netflix.conductor.common.metadata.tasks.Task;
 import com.netflix.conductor.common.run.Workflow;
 import com.netflix.conductor.common.run.CommonParams;
 import com.netflix.conductor.contribs.correlation.Correlator;
-import com.netflix.conductor.core.DNSLookup;
 import com.netflix.conductor.core.config.Configuration;
 import com.netflix.conductor.core.events.ScriptEvaluator;
 import com.netflix.conductor.core.execution.WorkflowExecutor;
@@ -25,7 +24,6 @@ import com.sun.jersey.oauth.client.OAuthClientFilter;
 import com.sun.jersey.oauth.signature.OAuthParameters;
 import com.sun.jersey.oauth.signature.OAuthSecrets;
 import org.apache.commons.collections.MapUtils;
-import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -52,6 +50,7 @@ class GenericHttpTask extends WorkflowSystemTask {
 	protected ObjectMapper om;
 	private final AuthManager authManager;
 	private final RestClientManager rcm;
+	protected final ServiceDiscovery discovery;
 	private final boolean traceIdEnabled;
 	private final boolean authContextEnabled;
 	private final ForeignAuthManager foreignAuthManager;
@@ -62,10 +61,11 @@ class GenericHttpTask extends WorkflowSystemTask {
 	private final TypeReference<List<Object>> listOfObj = new TypeReference<List<Object>>() {
 	};
 
-	GenericHttpTask(String name, Configuration config, RestClientManager rcm, ObjectMapper om, AuthManager authManager, ForeignAuthManager foreignAuthManager) {
+	GenericHttpTask(String name, Configuration config, RestClientManager rcm, ServiceDiscovery discovery, ObjectMapper om, AuthManager authManager, ForeignAuthManager foreignAuthManager) {
 		super(name);
 		this.config = config;
 		this.rcm = rcm;
+		this.discovery = discovery;
 		this.om = om;
 		this.authManager = authManager;
 		this.foreignAuthManager = foreignAuthManager;
@@ -73,17 +73,6 @@ class GenericHttpTask extends WorkflowSystemTask {
 		this.authContextEnabled = Boolean.parseBoolean(config.getProperty("workflow.authcontext.enabled", "false"));
 	}
 
-	String lookup(String service) {
-		DNSLookup lookup = new DNSLookup();
-		DNSLookup.DNSResponses responses = lookup.lookupService(service);
-		if (responses != null && ArrayUtils.isNotEmpty(responses.getResponses())) {
-			String address = responses.getResponses()[0].getAddress();
-			int port = responses.getResponses()[0].getPort();
-			return "http://" + address + ":" + port;
-		}
-		return null;
-	}
-
 	@SuppressWarnings("unchecked")
 	HttpResponse httpCallUrlEncoded(Input input, String body) throws Exception {
 		Client client = rcm.getClient(input);
@@ -100,17 +89,20 @@ class GenericHttpTask extends WorkflowSystemTask {
 		ClientResponse response = webResource
 			.type(MediaType.APPLICATION_FORM_URLENCODED_TYPE)
 			.post(ClientResponse.class, formData);
-
-		if (response.getStatus() != 201 && response.getStatus() != 200) {
-			throw new RuntimeException("Failed : HTTP error code : "
-				+ response.getStatus() + response.getEntity(String.class));
+		try {
+			if (response.getStatus() != 201 && response.getStatus() != 200) {
+				throw new RuntimeException("Failed : HTTP error code : "
+					+ response.getStatus() + response.getEntity(String.class));
+			}
+			HttpResponse responsehttp = new HttpResponse();
+
+			responsehttp.body = extractBody(response);
+			responsehttp.statusCode = response.getStatus();
+			responsehttp.headers = response.getHeaders();
+			return responsehttp;
+		} finally {
+			response.close();
 		}
-		HttpResponse responsehttp = new HttpResponse();
-
-		responsehttp.body = extractBody(response);
-		responsehttp.statusCode = response.getStatus();
-		responsehttp.headers = response.getHeaders();
-		return responsehttp;
 
 	}
 
@@ -121,15 +113,17 @@ class GenericHttpTask extends WorkflowSystemTask {
 	 */
 	HttpResponse httpCall(Input input, Task task, Workflow workflow, WorkflowExecutor executor) throws Exception {
 		Client client = rcm.getClient(input);
+		WebResource resource = client.resource(input.getUri());
 
+		// The client is shared, so the request gets signed by the filter of its own resource
 		if (input.getOauthConsumerKey() != null) {
 			logger.debug("Configuring OAuth filter");
 			OAuthParameters params = new OAuthParameters().consumerKey(input.getOauthConsumerKey()).signatureMethod("HMAC-SHA1").version("1.0");
 			OAuthSecrets secrets = new OAuthSecrets().consumerSecret(input.getOauthConsumerSecret());
-			client.addFilter(new OAuthClientFilter(client.getProviders(), params, secrets));
+			resource.addFilter(new OAuthClientFilter(client.getProviders(), params, secrets));
 		}
 
-		WebResource.Builder builder = client.resource(input.getUri()).type(MediaType.APPLICATION_JSON);
+		WebResource.Builder builder = resource.type(MediaType.APPLICATION_JSON);
 
 		if (input.getBody() != null) {
 			builder.entity(input.getBody());
@@ -191,13 +185,18 @@ class GenericHttpTask extends WorkflowSystemTask {
 		HttpResponse response = new HttpResponse();
 		try {
 			ClientResponse cr = builder.accept(input.getAccept()).method(input.getMethod(), ClientResponse.class);
-			Response.Status.Family family = cr.getStatusInfo().getFamily();
-			if (cr.getStatus() != 204 && cr.hasEntity() && !family.equals(Response.Status.Family.REDIRECTION)) {
-				response.body = extractBody(cr);
+			try {
+				Response.Status.Family family = cr.getStatusInfo().getFamily();
+				if (cr.getStatus() != 204 && cr.hasEntity() && !family.equals(Response.Status.Family.REDIRECTION)) {
+					response.body = extractBody(cr);
+				}
+				response.statusCode = cr.getStatus();
+				response.headers = cr.getHeaders();
+				return response;
+			} finally {
+				// Returns the connection to the pool when the entity was not read
+				cr.close();
 			}
-			response.statusCode = cr.getStatus();
-			response.headers = cr.getHeaders();
-			return response;
 		} catch (UniformInterfaceException ex) {
 			logger.error(ex.getMessage(), ex);
 			ClientResponse cr = ex.getResponse();
@@ -216,6 +215,10 @@ class GenericHttpTask extends WorkflowSystemTask {
 				throw new Exception(reason);
 			}
 		} catch (Exception ex) {
+			// Not a connection failure of the target - fails the task so it gets retried
+			if (RestClientManager.isLeaseTimeout(ex)) {
+				throw new Exception("Timed out waiting for a pooled connection to " + input.getUri(), ex);
+			}
 			logger.error(ex.getMessage(), ex);
 			response.body = null;
 			response.headers = null;
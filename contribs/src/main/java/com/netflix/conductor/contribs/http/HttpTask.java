@@ -23,10 +23,12 @@ import com.netflix.conductor.auth.AuthManager;
 import com.netflix.conductor.auth.ForeignAuthManager;
 import com.netflix.conductor.common.metadata.tasks.Task;
 import com.netflix.conductor.common.metadata.tasks.Task.Status;
+import com.netflix.conductor.common.metadata.tasks.TaskResult;
 import com.netflix.conductor.common.run.Workflow;
 import com.netflix.conductor.core.config.Configuration;
 import com.netflix.conductor.core.events.ScriptEvaluator;
 import com.netflix.conductor.core.execution.WorkflowExecutor;
+import com.netflix.conductor.service.MetricService;
 import org.apache.commons.lang3.StringUtils;
 import org.json.JSONObject;
 import org.slf4j.Logger;
@@ -39,7 +41,10 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import datadog.trace.api.Trace;
 /**
@@ -54,21 +59,108 @@ public class HttpTask extends GenericHttpTask {
 	public static final String NAME = "HTTP";
 	private static final String CONDITIONS_PARAMETER = "conditions";
 	private final int unackTimeout;
+	private final boolean asyncEnabled;
+	private final int asyncMaxInFlight;
+	private final long asyncLostTime;
+	private final Map<String, Semaphore> asyncPermits = new ConcurrentHashMap<>();
+	private final Set<String> asyncInFlight = ConcurrentHashMap.newKeySet();
+	private final ThreadPoolExecutor asyncPool;
 
 	@Inject
-	public HttpTask(RestClientManager rcm, Configuration config, ObjectMapper om, AuthManager authManager, ForeignAuthManager foreignAuthManager) {
-		super(NAME, config, rcm, om, authManager, foreignAuthManager);
+	public HttpTask(RestClientManager rcm, ServiceDiscovery discovery, Configuration config, ObjectMapper om, AuthManager authManager, ForeignAuthManager foreignAuthManager) {
+		super(NAME, config, rcm, discovery, om, authManager, foreignAuthManager);
 		unackTimeout = config.getIntProperty("workflow.system.task.http.unack.timeout", 60);
+		asyncEnabled = Boolean.parseBoolean(config.getProperty("workflow.system.task.http.async.enabled", "false"));
+		asyncMaxInFlight = config.getIntProperty("workflow.system.task.http.async.max.inflight", 50);
+		asyncLostTime = TimeUnit.SECONDS.toMillis(config.getIntProperty("workflow.system.task.http.async.lost.seconds", 600));
+		if (asyncEnabled) {
+			int threads = config.getIntProperty("workflow.system.task.http.async.threads", 200);
+			AtomicInteger count = new AtomicInteger();
+			asyncPool = new ThreadPoolExecutor(0, threads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+				Thread thread = new Thread(runnable, "http-task-async-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+		} else {
+			asyncPool = null;
+		}
 		logger.debug("HttpTask initialized...");
 	}
 
 	@Trace(operationName = "Start Http Task", resourceName = "httpTask")
 	@Override
 	public void start(Workflow workflow, Task task, WorkflowExecutor executor) throws Exception {
+		task.setWorkerId(config.getServerId());
+
+		// The call is made by onStarted once the in progress state has been stored
+		if (asyncEnabled) {
+			task.setStatus(Status.IN_PROGRESS);
+			return;
+		}
+		call(workflow, task, executor);
+	}
+
+	/**
+	 * Sends the request of the task started in the async mode. The response completes the task
+	 * via {@link WorkflowExecutor#updateTask(TaskResult)} and the system task worker thread is released
+	 * right away. Over the per task def in flight limit (or when the pool is exhausted) the call is made
+	 * by the worker thread like in the synchronous mode.
+	 */
+	@Override
+	public void onStarted(Workflow workflow, Task task, WorkflowExecutor executor) {
+		if (!asyncEnabled || task.getStatus() != Status.IN_PROGRESS) {
+			return;
+		}
+		String taskDefName = task.getTaskDefName();
+		Semaphore permits = asyncPermits.computeIfAbsent(taskDefName, name -> new Semaphore(asyncMaxInFlight));
+		if (permits.tryAcquire()) {
+			asyncInFlight.add(task.getTaskId());
+			MetricService.getInstance().httpAsyncInFlight(taskDefName, asyncMaxInFlight - permits.availablePermits());
+			try {
+				asyncPool.execute(() -> {
+					try {
+						complete(workflow, task, executor);
+					} finally {
+						asyncInFlight.remove(task.getTaskId());
+						permits.release();
+						MetricService.getInstance().httpAsyncInFlight(taskDefName, asyncMaxInFlight - permits.availablePermits());
+					}
+				});
+				return;
+			} catch (RejectedExecutionException ex) {
+				asyncInFlight.remove(task.getTaskId());
+				permits.release();
+			}
+		}
+		MetricService.getInstance().httpAsyncOverflow(taskDefName);
+		complete(workflow, task, executor);
+	}
 
+	private void complete(Workflow workflow, Task task, WorkflowExecutor executor) {
+		long startTime = System.currentTimeMillis();
+		try {
+			call(workflow, task, executor);
+		} catch (Exception ex) {
+			logger.error("http task failed for workflowId=" + workflow.getWorkflowId() + ",taskId=" + task.getTaskId()
+					+ " with " + ex.getMessage(), ex);
+			task.setStatus(Status.FAILED);
+			task.setReasonForIncompletion(ex.getMessage());
+		}
+		MetricService.getInstance().httpAsyncLatency(task.getTaskDefName(), System.currentTimeMillis() - startTime);
+
+		try {
+			executor.updateTask(new TaskResult(task));
+		} catch (Exception ex) {
+			// The task stays in progress and gets failed by execute once considered lost
+			logger.error("Unable to update http task for workflowId=" + workflow.getWorkflowId() + ",taskId="
+					+ task.getTaskId() + " with " + ex.getMessage(), ex);
+		}
+	}
+
+	private void call(Workflow workflow, Task task, WorkflowExecutor executor) throws Exception {
 		Object request = task.getInputData().get(REQUEST_PARAMETER_NAME);
-		task.setWorkerId(config.getServerId());
 		String hostAndPort = null;
+		ServiceDiscovery.Target target = null;
 		Input input = om.convertValue(request, Input.class);
 
 		if (request == null) {
@@ -76,9 +168,9 @@ public class HttpTask extends GenericHttpTask {
 			task.setStatus(Status.FAILED);
 			return;
 		} else if (StringUtils.isNotEmpty(input.getServiceDiscoveryQuery())) {
-			hostAndPort = lookup(input.getServiceDiscoveryQuery());
+			target = discovery.acquire(input.getServiceDiscoveryQuery());
 
-			if (null == hostAndPort) {
+			if (null == target) {
 				final String msg = "Service discovery failed for: " + input.getServiceDiscoveryQuery()
 						+ " . No records found.";
 			        logger.error(msg);
@@ -87,106 +179,122 @@ public class HttpTask extends GenericHttpTask {
 				task.getOutputData().put("response",msg);
 				return;
 			}
+			hostAndPort = target.getHostAndPort();
 		}
 
-		if (StringUtils.isEmpty(input.getUri())) {
-			task.setReasonForIncompletion(
-					"Missing HTTP URI. See documentation for HttpTask for required input parameters");
-			task.setStatus(Status.FAILED);
-			return;
-		} else if (StringUtils.isNotEmpty(hostAndPort)) {
-			final String uri = input.getUri();
-
-			if (uri.startsWith("/")) {
-				input.setUri(hostAndPort + uri);
-			} else {
-				// https://jira.d3nw.com/browse/ONECOND-837
-				// Parse URI, extract the path, and append it to url
-				try {
-					URL tmp = new URL(uri);
-					input.setUri(hostAndPort + tmp.getPath());
-				} catch (MalformedURLException e) {
-					logger.error("Unable to build endpoint URL: " + uri, e);
-					throw new Exception("Unable to build endpoint URL: " + uri, e);
+		boolean connectionFailed = false;
+		try {
+			if (StringUtils.isEmpty(input.getUri())) {
+				task.setReasonForIncompletion(
+						"Missing HTTP URI. See documentation for HttpTask for required input parameters");
+				task.setStatus(Status.FAILED);
+				return;
+			} else if (StringUtils.isNotEmpty(hostAndPort)) {
+				final String uri = input.getUri();
+
+				if (uri.startsWith("/")) {
+					input.setUri(hostAndPort + uri);
+				} else {
+					// https://jira.d3nw.com/browse/ONECOND-837
+					// Parse URI, extract the path, and append it to url
+					try {
+						URL tmp = new URL(uri);
+						input.setUri(hostAndPort + tmp.getPath());
+					} catch (MalformedURLException e) {
+						logger.error("Unable to build endpoint URL: " + uri, e);
+						throw new Exception("Unable to build endpoint URL: " + uri, e);
+					}
 				}
+			} else if (StringUtils.isNotEmpty(input.getUri())) {
+				// Do Nothing, use input.getUri() as is
 			}
-		} else if (StringUtils.isNotEmpty(input.getUri())) {
-			// Do Nothing, use input.getUri() as is
-		}
 
-		if (input.getMethod() == null) {
-			task.setReasonForIncompletion("No HTTP method specified");
-			task.setStatus(Status.FAILED);
-			return;
-		}
+			if (input.getMethod() == null) {
+				task.setReasonForIncompletion("No HTTP method specified");
+				task.setStatus(Status.FAILED);
+				return;
+			}
 
-		try {
-			HttpResponse response = new HttpResponse();
-			logger.debug("http task started.workflowId=" + workflow.getWorkflowId() + ",correlationId="
-					+ workflow.getCorrelationId() + ",traceId=" + workflow.getTraceId() + ",taskId=" + task.getTaskId()
-					+ ",taskreference name=" + task.getReferenceTaskName() + ",url=" + input.getUri()
-					+ ",contextUser=" + workflow.getContextUser());
-			if (input.getContentType() != null) {
-				if (input.getContentType().equalsIgnoreCase("application/x-www-form-urlencoded")) {
-					String json = new ObjectMapper().writeValueAsString(task.getInputData());
-					JSONObject obj = new JSONObject(json);
-					JSONObject getSth = obj.getJSONObject("http_request");
-
-					Object main_body = getSth.get("body");
-					String body = main_body.toString();
-
-					response = httpCallUrlEncoded(input, body);
+			try {
+				HttpResponse response = new HttpResponse();
+				logger.debug("http task started.workflowId=" + workflow.getWorkflowId() + ",correlationId="
+						+ workflow.getCorrelationId() + ",traceId=" + workflow.getTraceId() + ",taskId=" + task.getTaskId()
+						+ ",taskreference name=" + task.getReferenceTaskName() + ",url=" + input.getUri()
+						+ ",contextUser=" + workflow.getContextUser());
+				if (input.getContentType() != null) {
+					if (input.getContentType().equalsIgnoreCase("application/x-www-form-urlencoded")) {
+						String json = new ObjectMapper().writeValueAsString(task.getInputData());
+						JSONObject obj = new JSONObject(json);
+						JSONObject getSth = obj.getJSONObject("http_request");
+
+						Object main_body = getSth.get("body");
+						String body = main_body.toString();
+
+						response = httpCallUrlEncoded(input, body);
 
+					} else {
+						response = httpCall(input, task, workflow, executor);
+					}
 				} else {
 					response = httpCall(input, task, workflow, executor);
 				}
-			} else {
-				response = httpCall(input, task, workflow, executor);
-			}
+				connectionFailed = response.statusCode == -1;
 
-			logger.info("http task execution completed.workflowId=" + workflow.getWorkflowId() + ",CorrelationId="
-					+ workflow.getCorrelationId() + ",traceId=" + workflow.getTraceId() + ",taskId=" + task.getTaskId()
-					+ ",taskreference name=" + task.getReferenceTaskName() + ",url=" + input.getUri()
-					+ ",response code=" + response.statusCode
-					+ ",contextUser=" + workflow.getContextUser()+ ",body="+ input.getBody());
+				logger.info("http task execution completed.workflowId=" + workflow.getWorkflowId() + ",CorrelationId="
+						+ workflow.getCorrelationId() + ",traceId=" + workflow.getTraceId() + ",taskId=" + task.getTaskId()
+						+ ",taskreference name=" + task.getReferenceTaskName() + ",url=" + input.getUri()
+						+ ",response code=" + response.statusCode
+						+ ",contextUser=" + workflow.getContextUser()+ ",body="+ input.getBody());
 
-			// true - means status been handled, otherwise should apply the original logic
-			boolean handled = handleStatusMapping(task, response);
-			if (!handled) {
-				handled = handleResponseMapping(task, response);
+				// true - means status been handled, otherwise should apply the original logic
+				boolean handled = handleStatusMapping(task, response);
 				if (!handled) {
-					if (response.statusCode > 199 && response.statusCode < 300) {
-						task.setStatus(Status.COMPLETED);
-					} else {
-						task.setStatus(Task.Status.FAILED);
+					handled = handleResponseMapping(task, response);
+					if (!handled) {
+						if (response.statusCode > 199 && response.statusCode < 300) {
+							task.setStatus(Status.COMPLETED);
+						} else {
+							task.setStatus(Task.Status.FAILED);
+						}
 					}
 				}
-			}
 
-			// Check the http response validation. It will overwrite the task status if
-			// needed
-			if (task.getStatus() == Status.COMPLETED) {
-				checkHttpResponseValidation(task, response);
-			} else {
-				setReasonForIncompletion(response, task);
-			}
-			handleResetStartTime(task, executor);
+				// Check the http response validation. It will overwrite the task status if
+				// needed
+				if (task.getStatus() == Status.COMPLETED) {
+					checkHttpResponseValidation(task, response);
+				} else {
+					setReasonForIncompletion(response, task);
+				}
+				handleResetStartTime(task, executor);
 
-			task.getOutputData().put("response", response.asMap());
-		} catch (Exception ex) {
-			logger.error("http task failed for workflowId=" + workflow.getWorkflowId() + ",correlationId="
-					+ workflow.getCorrelationId() + ",taskId=" + task.getTaskId() + ",taskreference name="
-					+ task.getReferenceTaskName() + ",url=" + input.getUri() + ",contextUser=" + workflow.getContextUser() +
-					" with " + ex.getMessage(), ex);
-			task.setStatus(Status.FAILED);
-			task.setReasonForIncompletion(ex.getMessage());
-			task.getOutputData().put("response", ex.getMessage());
+				task.getOutputData().put("response", response.asMap());
+			} catch (Exception ex) {
+				logger.error("http task failed for workflowId=" + workflow.getWorkflowId() + ",correlationId="
+						+ workflow.getCorrelationId() + ",taskId=" + task.getTaskId() + ",taskreference name="
+						+ task.getReferenceTaskName() + ",url=" + input.getUri() + ",contextUser=" + workflow.getContextUser() +
+						" with " + ex.getMessage(), ex);
+				task.setStatus(Status.FAILED);
+				task.setReasonForIncompletion(ex.getMessage());
+				task.getOutputData().put("response", ex.getMessage());
+			}
+		} finally {
+			if (target != null) {
+				discovery.release(target, connectionFailed);
+			}
 		}
 	}
 
 	@Override
 	public boolean execute(Workflow workflow, Task task, WorkflowExecutor executor) throws Exception {
-		return false;
+		// Async call still waiting for the response on this node or maybe on another one
+		if (!asyncEnabled || asyncInFlight.contains(task.getTaskId())
+				|| System.currentTimeMillis() - task.getStartTime() < asyncLostTime) {
+			return false;
+		}
+		task.setStatus(Status.FAILED);
+		task.setReasonForIncompletion("No response received for the async http call within " + asyncLostTime + " ms");
+		return true;
 	}
 
 	@Override
@@ -18,23 +18,156 @@
  */
 package com.netflix.conductor.contribs.http;
 
+import com.netflix.conductor.core.config.Configuration;
+import com.netflix.conductor.service.MetricService;
 import com.sun.jersey.api.client.Client;
 import com.sun.jersey.api.client.config.ClientConfig;
 import com.sun.jersey.client.apache4.ApacheHttpClient4;
+import com.sun.jersey.client.apache4.config.ApacheHttpClient4Config;
 import com.sun.jersey.client.apache4.config.DefaultApacheHttpClient4Config;
+import org.apache.http.client.params.ClientPNames;
+import org.apache.http.conn.ClientConnectionRequest;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ManagedClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.params.BasicHttpParams;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+import org.apache.http.pool.PoolStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import javax.inject.Inject;
 import javax.inject.Singleton;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author Viren
  * Provider for Jersey Client.  This class provides an 
+ * <p>
+ * The clients are shared by all the http tasks. They keep the connections alive in one pool
+ * (per route limits) so the calls to the same host reuse the TCP/TLS connections.
+ * The clients must not be modified by the callers - per request filters go to the {@link com.sun.jersey.api.client.WebResource}
+ * <p>
+ * A request waits for a pooled connection up to the lease timeout, see {@link #isLeaseTimeout}.
+ * The connect and read timeouts bound the calls, including the ones of the async http tasks.
  */
 @Singleton
 public class RestClientManager {
+	private static final Logger logger = LoggerFactory.getLogger(RestClientManager.class);
+	private final PoolingClientConnectionManager connectionManager;
+	private final HttpParams httpParams;
+	private final Client redirectingClient;
+	private final Client client;
+
+	public RestClientManager() {
+		this(200, 20, 60, 10000, 10000, 60000);
+	}
+
+	@Inject
+	public RestClientManager(Configuration config) {
+		this(config.getIntProperty("workflow.system.task.http.pool.max.total", 200),
+			config.getIntProperty("workflow.system.task.http.pool.max.per.route", 20),
+			config.getIntProperty("workflow.system.task.http.pool.idle.seconds", 60),
+			config.getIntProperty("workflow.system.task.http.pool.lease.timeout.ms", 10000),
+			config.getIntProperty("workflow.system.task.http.connect.timeout.ms", 10000),
+			config.getIntProperty("workflow.system.task.http.read.timeout.ms", 60000));
+	}
+
+	private RestClientManager(int maxTotal, int maxPerRoute, int idleSeconds, int leaseTimeout, int connectTimeout, int readTimeout) {
+		connectionManager = new MeteredConnectionManager();
+		connectionManager.setMaxTotal(maxTotal);
+		connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+
+		httpParams = new BasicHttpParams();
+		DefaultHttpClient.setDefaultHttpParams(httpParams);
+		httpParams.setLongParameter(ClientPNames.CONN_MANAGER_TIMEOUT, leaseTimeout);
+		HttpConnectionParams.setConnectionTimeout(httpParams, connectTimeout);
+		HttpConnectionParams.setSoTimeout(httpParams, readTimeout);
+
+		redirectingClient = createClient(true);
+		client = createClient(false);
+
+		ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "http-pool-evictor");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long period = Math.max(1, idleSeconds / 2);
+		executorService.scheduleWithFixedDelay(() -> evict(idleSeconds), period, period, TimeUnit.SECONDS);
+
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			logger.info("Closing http connection pool");
+			executorService.shutdown();
+			connectionManager.shutdown();
+		}));
+	}
 
 	public Client getClient(Input input) {
+		return input.isFollowRedirects() ? redirectingClient : client;
+	}
+
+	private Client createClient(boolean followRedirects) {
 		ClientConfig config = new DefaultApacheHttpClient4Config();
-		config.getProperties().put("http.protocol.handle-redirects", input.isFollowRedirects());
+		config.getProperties().put("http.protocol.handle-redirects", followRedirects);
+		config.getProperties().put(ApacheHttpClient4Config.PROPERTY_CONNECTION_MANAGER, connectionManager);
+		config.getProperties().put(ApacheHttpClient4Config.PROPERTY_HTTP_PARAMS, httpParams);
 		return ApacheHttpClient4.create(config);
 	}
+
+	/**
+	 * @return true if the call failed because no pooled connection got free within the lease timeout.
+	 * The target was not called, so the task can be retried safely
+	 */
+	public static boolean isLeaseTimeout(Throwable ex) {
+		for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+			if (cause instanceof ConnectionPoolTimeoutException) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void evict(int idleSeconds) {
+		try {
+			connectionManager.closeExpiredConnections();
+			connectionManager.closeIdleConnections(idleSeconds, TimeUnit.SECONDS);
+
+			PoolStats stats = connectionManager.getTotalStats();
+			MetricService.getInstance().httpPoolGauge(stats.getLeased(), stats.getPending(), stats.getAvailable());
+		} catch (Exception ex) {
+			logger.error("Http connection pool eviction failed with " + ex.getMessage(), ex);
+		}
+	}
+
+	/**
+	 * Reports how long the requests wait for a connection lease
+	 */
+	private static class MeteredConnectionManager extends PoolingClientConnectionManager {
+
+		@Override
+		public ClientConnectionRequest requestConnection(HttpRoute route, Object state) {
+			ClientConnectionRequest request = super.requestConnection(route, state);
+			return new ClientConnectionRequest() {
+				@Override
+				public ManagedClientConnection getConnection(long timeout, TimeUnit unit) throws InterruptedException, ConnectionPoolTimeoutException {
+					long start = System.currentTimeMillis();
+					try {
+						return request.getConnection(timeout, unit);
+					} finally {
+						MetricService.getInstance().httpPoolLease(route.getTargetHost().getHostName(), System.currentTimeMillis() - start);
+					}
+				}
+
+				@Override
+				public void abortRequest() {
+					request.abortRequest();
+				}
+			};
+		}
+	}
 }
@@ -0,0 +1,197 @@
+package com.netflix.conductor.contribs.http;
+
+import com.netflix.conductor.core.DNSLookup;
+import com.netflix.conductor.core.config.Configuration;
+import org.apache.commons.lang3.ArrayUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Caches the SRV lookups of the http tasks and spreads the calls over all the targets.
+ * <p>
+ * The records are kept for their DNS TTL (bounded by the configured min/max) and refreshed in the background
+ * once expired, the callers keep using the previous targets meanwhile. The target with the least outstanding
+ * requests is chosen, round-robin among the equal ones. A target that failed to connect is skipped for a while.
+ */
+@Singleton
+public class ServiceDiscovery {
+	private static final Logger logger = LoggerFactory.getLogger(ServiceDiscovery.class);
+	private final Map<String, Service> services = new ConcurrentHashMap<>();
+	private final Function<String, DNSLookup.DNSResponses> lookup;
+	private final ScheduledExecutorService refresher;
+	private final long minTtl;
+	private final long maxTtl;
+	private final long ejectTime;
+	private final long idleTime;
+
+	@Inject
+	public ServiceDiscovery(Configuration config) {
+		this(config, query -> new DNSLookup().lookupService(query));
+	}
+
+	ServiceDiscovery(Configuration config, Function<String, DNSLookup.DNSResponses> lookup) {
+		this.lookup = lookup;
+		this.minTtl = TimeUnit.SECONDS.toMillis(config.getIntProperty("workflow.system.task.http.discovery.ttl.min.seconds", 5));
+		this.maxTtl = TimeUnit.SECONDS.toMillis(config.getIntProperty("workflow.system.task.http.discovery.ttl.max.seconds", 300));
+		this.ejectTime = TimeUnit.SECONDS.toMillis(config.getIntProperty("workflow.system.task.http.discovery.eject.seconds", 30));
+		this.idleTime = TimeUnit.SECONDS.toMillis(config.getIntProperty("workflow.system.task.http.discovery.idle.seconds", 600));
+
+		refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "http-service-discovery");
+			thread.setDaemon(true);
+			return thread;
+		});
+		refresher.scheduleWithFixedDelay(this::removeIdle, 1, 1, TimeUnit.MINUTES);
+	}
+
+	/**
+	 * @param query SRV query
+	 * @return The target to call or null if the query has no records. Must be given back via {@link #release}
+	 */
+	public Target acquire(String query) {
+		Service service = services.computeIfAbsent(query, Service::new);
+		service.lastAccess = System.currentTimeMillis();
+		if (service.targets == null) {
+			synchronized (service) {
+				if (service.targets == null) {
+					refresh(service);
+				}
+			}
+		} else if (service.lastAccess >= service.expiresAt && service.refreshing.compareAndSet(false, true)) {
+			refresher.submit(() -> {
+				try {
+					refresh(service);
+				} finally {
+					service.refreshing.set(false);
+				}
+			});
+		}
+		return choose(service);
+	}
+
+	/**
+	 * @param target           Target returned by {@link #acquire}
+	 * @param connectionFailed true if the call did not get any response from the target
+	 */
+	public void release(Target target, boolean connectionFailed) {
+		target.outstanding.decrementAndGet();
+		if (connectionFailed && ejectTime > 0) {
+			logger.warn("Ejecting {} for {} ms after connection failure", target.getHostAndPort(), ejectTime);
+			target.ejectedUntil = System.currentTimeMillis() + ejectTime;
+		}
+	}
+
+	private Target choose(Service service) {
+		List<Target> targets = service.targets;
+		if (targets.isEmpty()) {
+			return null;
+		}
+
+		long now = System.currentTimeMillis();
+		int start = Math.floorMod(service.next.getAndIncrement(), targets.size());
+		Target chosen = null;
+		for (int i = 0; i < targets.size(); i++) {
+			Target target = targets.get((start + i) % targets.size());
+			if (target.ejectedUntil > now) {
+				continue;
+			}
+			if (chosen == null || target.outstanding.get() < chosen.outstanding.get()) {
+				chosen = target;
+			}
+		}
+
+		// All of them are ejected - better to try one than to fail the task
+		if (chosen == null) {
+			chosen = targets.get(start);
+		}
+		chosen.outstanding.incrementAndGet();
+		return chosen;
+	}
+
+	private void refresh(Service service) {
+		try {
+			DNSLookup.DNSResponses responses = lookup.apply(service.query);
+			long now = System.currentTimeMillis();
+			if (responses == null || ArrayUtils.isEmpty(responses.getResponses())) {
+				// Keep the previous targets if any, the lookup is retried after the min ttl
+				if (service.targets == null) {
+					service.targets = Collections.emptyList();
+				}
+				service.expiresAt = now + minTtl;
+				return;
+			}
+
+			// Keep the existing targets so the outstanding counters and ejections survive the refresh
+			Map<String, Target> existing = new HashMap<>();
+			if (service.targets != null) {
+				service.targets.forEach(target -> existing.put(target.getHostAndPort(), target));
+			}
+
+			long ttl = Long.MAX_VALUE;
+			List<Target> targets = new ArrayList<>();
+			for (DNSLookup.DNSResponse response : responses.getResponses()) {
+				Target target = new Target(response.getHostName(), response.getAddress(), response.getPort());
+				targets.add(existing.getOrDefault(target.getHostAndPort(), target));
+				ttl = Math.min(ttl, TimeUnit.SECONDS.toMillis(response.getTtl()));
+			}
+
+			service.targets = Collections.unmodifiableList(targets);
+			service.expiresAt = now + Math.max(minTtl, Math.min(maxTtl, ttl));
+		} catch (Exception ex) {
+			logger.error("Service discovery failed for " + service.query + " with " + ex.getMessage(), ex);
+			if (service.targets == null) {
+				service.targets = Collections.emptyList();
+			}
+			service.expiresAt = System.currentTimeMillis() + minTtl;
+		}
+	}
+
+	private void removeIdle() {
+		long threshold = System.currentTimeMillis() - idleTime;
+		services.values().removeIf(service -> service.lastAccess < threshold);
+	}
+
+	private static class Service {
+		private final String query;
+		private final AtomicInteger next = new AtomicInteger();
+		private final AtomicBoolean refreshing = new AtomicBoolean();
+		private volatile List<Target> targets;
+		private volatile long expiresAt;
+		private volatile long lastAccess;
+
+		Service(String query) {
+			this.query = query;
+		}
+	}
+
+	public static class Target {
+		private final String hostName;
+		private final String hostAndPort;
+		private final AtomicInteger outstanding = new AtomicInteger();
+		private volatile long ejectedUntil;
+
+		Target(String hostName, String address, int port) {
+			this.hostName = hostName;
+			this.hostAndPort = "http://" + address + ":" + port;
+		}
+
+		public String getHostName() {
+			return hostName;
+		}
+
+		public String getHostAndPort() {
+			return hostAndPort;
+		}
+	}
+}
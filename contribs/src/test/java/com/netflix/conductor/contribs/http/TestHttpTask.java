@@ -24,14 +24,18 @@ import com.netflix.conductor.auth.AuthManager;
 import com.netflix.conductor.auth.ForeignAuthManager;
 import com.netflix.conductor.common.metadata.tasks.Task;
 import com.netflix.conductor.common.metadata.tasks.Task.Status;
+import com.netflix.conductor.common.metadata.tasks.TaskResult;
 import com.netflix.conductor.common.metadata.workflow.WorkflowDef;
 import com.netflix.conductor.common.metadata.workflow.WorkflowTask;
 import com.netflix.conductor.common.metadata.workflow.WorkflowTask.Type;
 import com.netflix.conductor.common.run.Workflow;
+import com.netflix.conductor.core.DNSLookup;
 import com.netflix.conductor.core.config.Configuration;
 import com.netflix.conductor.core.execution.DeciderService;
 import com.netflix.conductor.core.execution.WorkflowExecutor;
 import com.netflix.conductor.dao.MetadataDAO;
+import com.sun.jersey.api.client.ClientHandlerException;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
 import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.server.handler.AbstractHandler;
@@ -40,6 +44,7 @@ import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -47,11 +52,15 @@ import javax.servlet.http.HttpServletResponse;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.net.ConnectException;
+import java.net.ServerSocket;
 import java.util.*;
 import java.util.stream.Collectors;
 
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -113,7 +122,7 @@ public class TestHttpTask {
 		Configuration config = mock(Configuration.class);
 		when(config.getServerId()).thenReturn("test_server_id");
 		RestClientManager rcm = new RestClientManager();
-		httpTask = new HttpTask(rcm, config, new ObjectMapper(), authManager, foreignAuthManager);
+		httpTask = new HttpTask(rcm, new ServiceDiscovery(config), config, new ObjectMapper(), authManager, foreignAuthManager);
 	}
 	
 	@Test
@@ -141,7 +150,46 @@ public class TestHttpTask {
 		inputKeys.containsAll(responseKeys);
 		responseKeys.containsAll(inputKeys);
 	}
-	
+
+
+	@Test
+	public void testPostAsync() throws Exception {
+		Configuration config = mock(Configuration.class);
+		when(config.getServerId()).thenReturn("test_server_id");
+		when(config.getProperty("workflow.system.task.http.async.enabled", "false")).thenReturn("true");
+		when(config.getIntProperty("workflow.system.task.http.async.max.inflight", 50)).thenReturn(1);
+		when(config.getIntProperty("workflow.system.task.http.async.threads", 200)).thenReturn(1);
+		when(config.getIntProperty("workflow.system.task.http.async.lost.seconds", 600)).thenReturn(600);
+		HttpTask asyncTask = new HttpTask(new RestClientManager(), new ServiceDiscovery(config), config, new ObjectMapper(), authManager, foreignAuthManager);
+
+		Task task = new Task();
+		task.setTaskId("async_task_id");
+		task.setTaskDefName("async_task");
+		task.setStartTime(System.currentTimeMillis());
+		Input input = new Input();
+		input.setUri("http://localhost:7009/post");
+		input.setBody(Collections.singletonMap("input_key1", "value1"));
+		input.setMethod("POST");
+		task.getInputData().put(HttpTask.REQUEST_PARAMETER_NAME, input);
+
+		// Nothing is sent until the in progress state is stored
+		asyncTask.start(workflow, task, executor);
+		assertEquals(Task.Status.IN_PROGRESS, task.getStatus());
+		assertNull(task.getOutputData().get("response"));
+
+		asyncTask.onStarted(workflow, task, executor);
+		ArgumentCaptor<TaskResult> captor = ArgumentCaptor.forClass(TaskResult.class);
+		verify(executor, timeout(5000)).updateTask(captor.capture());
+		assertEquals(TaskResult.Status.COMPLETED, captor.getValue().getStatus());
+		assertNotNull(captor.getValue().getOutputData().get("response"));
+
+		// Not considered lost while the call is recent
+		task.setStatus(Task.Status.IN_PROGRESS);
+		assertFalse(asyncTask.execute(workflow, task, executor));
+		task.setStartTime(System.currentTimeMillis() - 3600_000);
+		assertTrue(asyncTask.execute(workflow, task, executor));
+		assertEquals(Task.Status.FAILED, task.getStatus());
+	}	
 
 	@Test
 	public void testPostNoContent() throws Exception {
@@ -250,6 +298,54 @@ public class TestHttpTask {
 
 	}
 	
+	@Test
+	public void testServiceDiscoveryEjectsUnreachableTarget() throws Exception {
+		int closedPort;
+		try (ServerSocket socket = new ServerSocket(0)) {
+			closedPort = socket.getLocalPort();
+		}
+
+		// The unreachable target is listed first, so it is the first one called
+		DNSLookup lookup = new DNSLookup();
+		DNSLookup.DNSResponses responses = lookup.new DNSResponses();
+		for (int port : new int[]{closedPort, 7009}) {
+			DNSLookup.DNSResponse response = lookup.new DNSResponse("localhost", port);
+			response.setAddress("127.0.0.1");
+			response.setTtl(60);
+			responses.addResponse(response);
+		}
+
+		Configuration config = mock(Configuration.class);
+		when(config.getServerId()).thenReturn("test_server_id");
+		when(config.getIntProperty("workflow.system.task.http.discovery.ttl.min.seconds", 5)).thenReturn(5);
+		when(config.getIntProperty("workflow.system.task.http.discovery.ttl.max.seconds", 300)).thenReturn(300);
+		when(config.getIntProperty("workflow.system.task.http.discovery.eject.seconds", 30)).thenReturn(30);
+		when(config.getIntProperty("workflow.system.task.http.discovery.idle.seconds", 600)).thenReturn(600);
+		ServiceDiscovery discovery = new ServiceDiscovery(config, query -> responses);
+		HttpTask discoveryTask = new HttpTask(new RestClientManager(), discovery, config, new ObjectMapper(), authManager, foreignAuthManager);
+
+		Task failed = discoveryTask(discoveryTask);
+		assertEquals(Task.Status.FAILED, failed.getStatus());
+		assertEquals(-1, ((Map<String, Object>) failed.getOutputData().get("response")).get("statusCode"));
+
+		// The round-robin would go back to the unreachable target, it is ejected instead
+		for (int i = 0; i < 3; i++) {
+			Task task = discoveryTask(discoveryTask);
+			assertEquals(task.getReasonForIncompletion(), Task.Status.COMPLETED, task.getStatus());
+		}
+	}
+
+	private Task discoveryTask(HttpTask discoveryTask) throws Exception {
+		Task task = new Task();
+		Input input = new Input();
+		input.setServiceDiscoveryQuery("json.service");
+		input.setUri("/json");
+		input.setMethod("GET");
+		task.getInputData().put(HttpTask.REQUEST_PARAMETER_NAME, input);
+		discoveryTask.start(workflow, task, executor);
+		return task;
+	}
+
 	@Test
 	public void testOptional() throws Exception {
  		Task task = new Task();
@@ -340,6 +436,12 @@ public class TestHttpTask {
 		responseKeys.containsAll(inputKeys);
 	}
 	
+	@Test
+	public void testLeaseTimeout() {
+		assertTrue(RestClientManager.isLeaseTimeout(new ClientHandlerException(new ConnectionPoolTimeoutException("Timeout waiting for connection from pool"))));
+		assertFalse(RestClientManager.isLeaseTimeout(new ClientHandlerException(new ConnectException("Connection refused"))));
+	}
+
 	private static class EchoHandler extends AbstractHandler {
 
 		private TypeReference<Map<String, Object>> mapOfObj = new TypeReference<Map<String,Object>>() {};
@@ -0,0 +1,178 @@
+package com.netflix.conductor.contribs.http;
+
+import com.netflix.conductor.core.DNSLookup;
+import com.netflix.conductor.core.config.Configuration;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TestServiceDiscovery {
+	private static final String QUERY = "service.query";
+
+	private final Map<String, DNSLookup.DNSResponses> records = new ConcurrentHashMap<>();
+	private final AtomicInteger lookups = new AtomicInteger();
+	private Configuration config;
+
+	@Before
+	public void setup() {
+		config = mock(Configuration.class);
+		when(config.getIntProperty(anyString(), anyInt())).thenAnswer(invocation -> invocation.getArguments()[1]);
+	}
+
+	@Test
+	public void testChooseLeastOutstanding() {
+		records.put(QUERY, responses(60, "10.0.0.1", "10.0.0.2"));
+		ServiceDiscovery discovery = discovery();
+
+		ServiceDiscovery.Target first = discovery.acquire(QUERY);
+		ServiceDiscovery.Target second = discovery.acquire(QUERY);
+		assertFalse(first.getHostAndPort().equals(second.getHostAndPort()));
+
+		// The first one is free again, the second one is still busy
+		discovery.release(first, false);
+		assertSame(first, discovery.acquire(QUERY));
+
+		// Cached for the ttl
+		assertEquals(1, lookups.get());
+	}
+
+	@Test
+	public void testRoundRobinAmongEqual() {
+		records.put(QUERY, responses(60, "10.0.0.1", "10.0.0.2"));
+		ServiceDiscovery discovery = discovery();
+
+		ServiceDiscovery.Target first = discovery.acquire(QUERY);
+		discovery.release(first, false);
+		ServiceDiscovery.Target second = discovery.acquire(QUERY);
+		discovery.release(second, false);
+
+		assertFalse(first.getHostAndPort().equals(second.getHostAndPort()));
+	}
+
+	@Test
+	public void testEjectAfterConnectionFailure() {
+		records.put(QUERY, responses(60, "10.0.0.1", "10.0.0.2"));
+		ServiceDiscovery discovery = discovery();
+
+		ServiceDiscovery.Target failed = discovery.acquire(QUERY);
+		discovery.release(failed, true);
+
+		for (int i = 0; i < 4; i++) {
+			ServiceDiscovery.Target target = discovery.acquire(QUERY);
+			assertFalse(failed.getHostAndPort().equals(target.getHostAndPort()));
+			discovery.release(target, false);
+		}
+	}
+
+	@Test
+	public void testAllEjectedStillTriesOne() {
+		records.put(QUERY, responses(60, "10.0.0.1"));
+		ServiceDiscovery discovery = discovery();
+
+		ServiceDiscovery.Target failed = discovery.acquire(QUERY);
+		discovery.release(failed, true);
+
+		assertSame(failed, discovery.acquire(QUERY));
+	}
+
+	@Test
+	public void testNoEjectWhenDisabled() {
+		when(config.getIntProperty("workflow.system.task.http.discovery.eject.seconds", 30)).thenReturn(0);
+		records.put(QUERY, responses(60, "10.0.0.1", "10.0.0.2"));
+		ServiceDiscovery discovery = discovery();
+
+		ServiceDiscovery.Target failed = discovery.acquire(QUERY);
+		discovery.release(failed, true);
+		discovery.release(discovery.acquire(QUERY), false);
+
+		// Back to the failed one by the round-robin
+		assertSame(failed, discovery.acquire(QUERY));
+	}
+
+	@Test
+	public void testNoRecords() {
+		ServiceDiscovery discovery = discovery();
+		assertNull(discovery.acquire(QUERY));
+	}
+
+	@Test
+	public void testRefreshAfterTtlKeepsTargets() throws Exception {
+		when(config.getIntProperty("workflow.system.task.http.discovery.ttl.min.seconds", 5)).thenReturn(0);
+		records.put(QUERY, responses(0, "10.0.0.1"));
+		ServiceDiscovery discovery = discovery();
+
+		ServiceDiscovery.Target kept = discovery.acquire(QUERY);
+		discovery.release(kept, false);
+
+		// Expired - the callers keep getting the previous targets until the background refresh is done
+		records.put(QUERY, responses(60, "10.0.0.1", "10.0.0.2"));
+		waitFor(() -> {
+			ServiceDiscovery.Target target = discovery.acquire(QUERY);
+			discovery.release(target, false);
+			return target != kept;
+		});
+
+		ServiceDiscovery.Target first = discovery.acquire(QUERY);
+		ServiceDiscovery.Target second = discovery.acquire(QUERY);
+		assertFalse(first.getHostAndPort().equals(second.getHostAndPort()));
+
+		// The existing target survives the refresh with its state
+		assertSame(kept, kept.getHostAndPort().equals(first.getHostAndPort()) ? first : second);
+		assertEquals(2, lookups.get());
+	}
+
+	@Test
+	public void testFailedRefreshKeepsTargets() throws Exception {
+		when(config.getIntProperty("workflow.system.task.http.discovery.ttl.min.seconds", 5)).thenReturn(0);
+		records.put(QUERY, responses(0, "10.0.0.1"));
+		ServiceDiscovery discovery = discovery();
+
+		ServiceDiscovery.Target kept = discovery.acquire(QUERY);
+		discovery.release(kept, false);
+
+		records.remove(QUERY);
+		discovery.release(discovery.acquire(QUERY), false);
+		waitFor(() -> lookups.get() >= 2);
+
+		assertSame(kept, discovery.acquire(QUERY));
+	}
+
+	private ServiceDiscovery discovery() {
+		return new ServiceDiscovery(config, query -> {
+			lookups.incrementAndGet();
+			return records.get(query);
+		});
+	}
+
+	private DNSLookup.DNSResponses responses(long ttl, String... addresses) {
+		DNSLookup lookup = new DNSLookup();
+		DNSLookup.DNSResponses responses = lookup.new DNSResponses();
+		for (String address : addresses) {
+			DNSLookup.DNSResponse response = lookup.new DNSResponse(address, 8080);
+			response.setAddress(address);
+			response.setTtl(ttl);
+			responses.addResponse(response);
+		}
+		return responses;
+	}
+
+	private void waitFor(BooleanSupplier condition) throws InterruptedException {
+		long until = System.currentTimeMillis() + 5000;
+		while (!condition.getAsBoolean() && System.currentTimeMillis() < until) {
+			Thread.sleep(10);
+		}
+	}
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright 2017 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.conductor.core.events;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Message path of a handler with tags and five update actions: the previous per-evaluation
+ * materialisation of the document vs the shared {@link ParsedMessage}.
+ * <p>
+ * Run with the gc profiler to get the allocation rate per operation:
+ * ./gradlew :conductor-core:jmh -Pjmh.args="ParsedMessageBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParsedMessageBenchmark {
+	private static final int ACTIONS = 5;
+	private final ObjectMapper om = new ObjectMapper();
+	private final String payload = "{\"jobId\":\"6e7c3bd9-5a1f-4a36-9b0b-3d0a2b3b2a41\",\"status\":\"Complete\"," +
+		"\"correlationId\":\"urn:deluxe:one-orders:order:1234\",\"data\":{\"progress\":100,\"titleKeys\":" +
+		"{\"featureId\":\"f-100\",\"seriesId\":\"s-200\"},\"files\":[\"a.mov\",\"b.mov\",\"c.mov\"]}}";
+	private final Map<String, String> inputParameters = new HashMap<>();
+
+	public ParsedMessageBenchmark() {
+		inputParameters.put("jobId", ".jobId");
+		inputParameters.put("featureId", ".data.titleKeys.featureId");
+	}
+
+	@Benchmark
+	public void perEvaluation(Blackhole bh) throws Exception {
+		Object document = om.readValue(payload, Object.class);
+		bh.consume(ScriptEvaluator.evalJqAsList("[.correlationId]", document));
+		for (int i = 0; i < ACTIONS; i++) {
+			Object actionDocument = om.readValue(payload, Object.class);
+			bh.consume(ScriptEvaluator.evalJq(".status", actionDocument));
+			bh.consume(ScriptEvaluator.evaluateMap(inputParameters, actionDocument));
+		}
+	}
+
+	@Benchmark
+	public Object parse() {
+		return ParsedMessage.parse(om, payload).getDocument();
+	}
+
+	@Benchmark
+	public void sharedMessage(Blackhole bh) throws Exception {
+		ParsedMessage message = ParsedMessage.parse(om, payload);
+		bh.consume(ScriptEvaluator.evalJqAsList("[.correlationId]", message.getDocument()));
+		for (int i = 0; i < ACTIONS; i++) {
+			bh.consume(ScriptEvaluator.evalJq(".status", message.getDocument()));
+			bh.consume(ScriptEvaluator.evaluateMap(inputParameters, message.getDocument()));
+		}
+	}
+}
@@ -0,0 +1,87 @@
+/**
+ * Copyright 2017 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.conductor.core.events;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.script.Bindings;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the raw engine eval (parse and compile per call) with the cached evaluation
+ * of {@link ScriptEvaluator} on the typical event handler conditions
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class ScriptEvaluatorBenchmark {
+	private static final ScriptEngine engine = new ScriptEngineManager().getEngineByName("nashorn");
+
+	@Param({
+		"$.status == 'COMPLETED'",
+		"$.workflowType == 'deluxe.dependencygraph.sourcewait.process' && $.status == 'COMPLETED'",
+		"$.data.jobId != undefined && $.data.status == 'Complete' && $.data.progress >= 100",
+		"$.correlationId != null && ['FAILED', 'TIMED_OUT', 'TERMINATED'].indexOf($.status) >= 0"
+	})
+	public String condition;
+
+	private Map<String, Object> payload;
+
+	@Setup
+	public void setup() {
+		Map<String, Object> data = new HashMap<>();
+		data.put("jobId", "6e7c3bd9-5a1f-4a36-9b0b-3d0a2b3b2a41");
+		data.put("status", "Complete");
+		data.put("progress", 100);
+
+		payload = new HashMap<>();
+		payload.put("workflowType", "deluxe.dependencygraph.sourcewait.process");
+		payload.put("correlationId", "urn:deluxe:one-orders:order:1234");
+		payload.put("status", "COMPLETED");
+		payload.put("data", data);
+	}
+
+	@Benchmark
+	public Object rawEval() throws Exception {
+		Bindings bindings = engine.createBindings();
+		bindings.put("$", payload);
+		return engine.eval(condition, bindings);
+	}
+
+	@Benchmark
+	public Object cachedEval() throws Exception {
+		return ScriptEvaluator.evalBool(condition, payload);
+	}
+}
@@ -31,6 +31,7 @@ import com.netflix.conductor.common.run.Workflow;
 import com.netflix.conductor.contribs.correlation.Correlator;
 import com.netflix.conductor.core.DNSLookup;
 import com.netflix.conductor.core.config.Configuration;
+import com.netflix.conductor.service.MetricService;
 import com.sun.jersey.api.client.Client;
 import com.sun.jersey.api.client.ClientResponse;
 import com.sun.jersey.api.client.WebResource;
@@ -51,7 +52,13 @@ import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Singleton
 public class AuthManager {
@@ -62,11 +69,24 @@ public class AuthManager {
 	public static final String PROPERTY_ENDPOINT = "conductor.auth.endpoint";
 	public static final String PROPERTY_CLIENT = "conductor.auth.clientId";
 	public static final String PROPERTY_SECRET = "conductor.auth.clientSecret";
+	public static final String PROPERTY_SCOPE = "conductor.auth.scope";
+	// The compiled validation rules, shared by all the callers of the process
+	private static final LoadingCache<String, JsonQuery> queryCache = createQueryCache();
+	private final Map<String, CachedToken> tokens = new ConcurrentHashMap<>();
+	private final Map<String, CompletableFuture<AuthResponse>> fetching = new ConcurrentHashMap<>();
+	private final ExecutorService refresher = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "auth-token-refresher");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private final Client client = Client.create();
 	private final ObjectMapper mapper = new ObjectMapper();
 	private final String clientSecret;
 	private final String clientId;
 	private final String authUrl;
 	private final String authService;
+	private final String scope;
+	private final long refreshMillis;
 	private String authEndpoint;
 	private boolean traceIdEnabled;
 
@@ -93,15 +113,101 @@ public class AuthManager {
 		if (StringUtils.isEmpty(clientSecret))
 			throw new IllegalArgumentException(MISSING_PROPERTY + PROPERTY_SECRET);
 
+		scope = config.getProperty(PROPERTY_SCOPE, null);
+		refreshMillis = TimeUnit.SECONDS.toMillis(config.getIntProperty("conductor.auth.token.refresh.seconds", 60));
 		traceIdEnabled = Boolean.parseBoolean(config.getProperty("workflow.traceid.enabled", "false"));
 	}
 
+	/**
+	 * Returns the cached token of the client id and scope while it is valid. Within the last refresh seconds
+	 * before its expiry the token is still returned and a new one is fetched in the background. Only one fetch
+	 * per key runs at a time, the concurrent callers wait for it. The error responses are not cached.
+	 */
 	public AuthResponse authorize(Workflow workflow) throws Exception {
-		Client client = Client.create();
+		String key = clientId + ":" + StringUtils.defaultString(scope);
+		long now = System.currentTimeMillis();
+
+		CachedToken cached = tokens.get(key);
+		if (cached != null && now < cached.expiresAt) {
+			if (now >= cached.expiresAt - refreshMillis && cached.refreshing.compareAndSet(false, true)) {
+				refresher.execute(() -> {
+					fetch(key, workflow, cached, true);
+					// Not replaced, the next caller retries the refresh
+					if (tokens.get(key) == cached) {
+						cached.refreshing.set(false);
+					}
+				});
+			}
+			MetricService.getInstance().authTokenHit();
+			return cached.response;
+		}
+
+		try {
+			return fetch(key, workflow, cached, false).get();
+		} catch (ExecutionException ex) {
+			Throwable cause = ex.getCause();
+			throw cause instanceof Exception ? (Exception) cause : ex;
+		}
+	}
+
+	/**
+	 * @param seen The cached token the caller found (expired, about to expire or null), a newer one is reused
+	 */
+	private CompletableFuture<AuthResponse> fetch(String key, Workflow workflow, CachedToken seen, boolean refresh) {
+		CompletableFuture<AuthResponse> future = new CompletableFuture<>();
+		CompletableFuture<AuthResponse> running = fetching.putIfAbsent(key, future);
+		if (running != null) {
+			return running;
+		}
+
+		// Another fetch may have completed between the cache check of the caller and the putIfAbsent above
+		CachedToken current = tokens.get(key);
+		if (current != null && current != seen && System.currentTimeMillis() < current.expiresAt) {
+			fetching.remove(key, future);
+			MetricService.getInstance().authTokenHit();
+			future.complete(current.response);
+			return future;
+		}
+
+		long start = System.currentTimeMillis();
+		try {
+			AuthResponse response = requestToken(workflow);
+			Long expiresAt = expiresAt(response);
+			if (expiresAt != null) {
+				tokens.put(key, new CachedToken(response, expiresAt));
+			}
+			future.complete(response);
+		} catch (Throwable th) {
+			logger.error("Token fetch failed for " + key + " with " + th.getMessage(), th);
+			future.completeExceptionally(th);
+		} finally {
+			fetching.remove(key, future);
+			MetricService.getInstance().authTokenFetch(refresh, System.currentTimeMillis() - start);
+		}
+		return future;
+	}
+
+	private Long expiresAt(AuthResponse response) {
+		if (!response.hasAccessToken()) {
+			return null;
+		}
+		try {
+			Object exp = decode(response.getAccessToken()).get("exp");
+			return exp == null ? null : Long.valueOf(exp.toString()) * 1000;
+		} catch (Exception ex) {
+			logger.debug("Token is not cached, unable to read its expiration: " + ex.getMessage());
+			return null;
+		}
+	}
+
+	private AuthResponse requestToken(Workflow workflow) throws Exception {
 		MultivaluedMap<String, String> data = new MultivaluedMapImpl();
 		data.add("grant_type", "client_credentials");
 		data.add("client_id", this.clientId);
 		data.add("client_secret", this.clientSecret);
+		if (StringUtils.isNotEmpty(scope)) {
+			data.add("scope", scope);
+		}
 
 		String url = this.authUrl;
 		String hostAndPort = DNSLookup.lookup(this.authService);
@@ -164,8 +270,6 @@ public class AuthManager {
 
 		JsonNode input = mapper.valueToTree(decoded);
 
-		LoadingCache<String, JsonQuery> queryCache = createQueryCache();
-
 		Map<String, Object> failed = new HashMap<>();
 		rules.forEach((rule, condition) -> {
 			try {
@@ -200,7 +304,7 @@ public class AuthManager {
 		}
 	}
 
-	private LoadingCache<String, JsonQuery> createQueryCache() {
+	private static LoadingCache<String, JsonQuery> createQueryCache() {
 		CacheLoader<String, JsonQuery> loader = new CacheLoader<String, JsonQuery>() {
 			@Override
 			public JsonQuery load(@Nonnull String query) throws JsonQueryException {
@@ -209,4 +313,15 @@ public class AuthManager {
 		};
 		return CacheBuilder.newBuilder().expireAfterWrite(1, TimeUnit.HOURS).maximumSize(1000).build(loader);
 	}
+
+	private static class CachedToken {
+		private final AuthResponse response;
+		private final long expiresAt;
+		private final AtomicBoolean refreshing = new AtomicBoolean();
+
+		CachedToken(AuthResponse response, long expiresAt) {
+			this.response = response;
+			this.expiresAt = expiresAt;
+		}
+	}
 }
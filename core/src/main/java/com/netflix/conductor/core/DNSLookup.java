@@ -40,6 +40,7 @@ public class DNSLookup {
                     int port = srv.getPort();
                     DNSResponse r = new DNSResponse(hostname, port);
                     r.setAddress(address.getHostAddress());
+                    r.setTtl(srv.getTTL());
                     responses.addResponse(r);
                 }
             }
@@ -54,6 +55,7 @@ public class DNSLookup {
         String hostname;
         String address;
         int port;
+        long ttl;
 
         public DNSResponse(String hostname, int port) {
             this.hostname = hostname;
@@ -81,6 +83,13 @@ public class DNSLookup {
         public int getPort() {
             return this.port;
         }
+
+        public void setTtl(long ttl) {
+            this.ttl = ttl;
+        }
+        public long getTtl() {
+            return this.ttl;
+        }
     }
 
     public class DNSResponses {
@@ -75,10 +75,18 @@ public class ActionProcessor {
 	}
 
 	public Map<String, Object> execute(Action action, String payload, EventExecution ee) throws Exception {
+		return execute(action, ParsedMessage.parse(om, payload), ee);
+	}
+
+	public Map<String, Object> execute(Action action, ParsedMessage message, EventExecution ee) throws Exception {
+		if (!message.isJson()) {
+			throw new IllegalArgumentException("Payload is not a valid json");
+		}
 
-		Object jsonObj = om.readValue(payload, Object.class);
+		Object jsonObj = message.getDocument();
 		if (action.isExpandInlineJSON()) {
-			jsonObj = expand(jsonObj);
+			// The document is shared with the other actions, expand a copy
+			jsonObj = expand(message.copyDocument(om));
 		}
 
 		switch (action.getAction()) {
@@ -55,6 +55,10 @@ public class EventProcessor {
 	private Map<String, Pair<ObservableQueue, ThreadPoolExecutor>> queuesMap = new ConcurrentHashMap<>();
 	private ParametersUtils pu = new ParametersUtils();
 	private volatile List<EventHandler> activeHandlers;
+	// Lower cased event -> active handlers. Rebuilt on every refresh
+	private volatile Map<String, List<EventHandler>> handlersByEvent = Collections.emptyMap();
+	// Condition class name -> instance. Rebuilt on every refresh
+	private volatile Map<String, JavaEventCondition> conditionClasses = Collections.emptyMap();
 	private ScheduledExecutorService refreshPool;
 	private MetadataService ms;
 	private ExecutionService es;
@@ -108,6 +112,7 @@ public class EventProcessor {
 					String replaced = (String) pu.replace(handler.getEvent());
 					handler.setEvent(replaced);
 				}).collect(Collectors.toList());
+			index(activeHandlers);
 
 			List<ObservableQueue> created = new LinkedList<>();
 			activeHandlers.parallelStream().forEach(handler -> queuesMap.computeIfAbsent(handler.getEvent(), s -> {
@@ -133,8 +138,7 @@ public class EventProcessor {
 			// Find events which present in queuesMap but does not exist in the db (disabled/removed)
 			List<String> removed = new LinkedList<>();
 			queuesMap.keySet().forEach(event -> {
-				boolean noneMatch = activeHandlers.stream().noneMatch(handler -> handler.getEvent().equalsIgnoreCase(event));
-				if (noneMatch) {
+				if (!handlersByEvent.containsKey(event.toLowerCase())) {
 					removed.add(event);
 				}
 			});
@@ -183,6 +187,43 @@ public class EventProcessor {
 		}
 	}
 
+	private void index(List<EventHandler> handlers) {
+		Map<String, List<EventHandler>> byEvent = new HashMap<>();
+		Map<String, JavaEventCondition> conditions = new HashMap<>();
+		for (EventHandler handler : handlers) {
+			byEvent.computeIfAbsent(handler.getEvent().toLowerCase(), event -> new ArrayList<>()).add(handler);
+
+			precompile(handler.getName(), handler.getCondition(), handler.getConditionClass(), conditions);
+			if (isNotEmpty(handler.getTags())) {
+				try {
+					ScriptEvaluator.compileJq(handler.getTags());
+				} catch (Exception ex) {
+					logger.error("Tags compilation failed for " + handler.getName() + " " + ex.getMessage(), ex);
+				}
+			}
+			for (Action action : handler.getActions()) {
+				precompile(handler.getName(), action.getCondition(), action.getConditionClass(), conditions);
+			}
+		}
+		byEvent.replaceAll((event, list) -> Collections.unmodifiableList(list));
+
+		conditionClasses = Collections.unmodifiableMap(conditions);
+		handlersByEvent = Collections.unmodifiableMap(byEvent);
+	}
+
+	private void precompile(String handlerName, String condition, String conditionClass,
+							Map<String, JavaEventCondition> conditions) {
+		try {
+			if (isNotEmpty(condition)) {
+				ScriptEvaluator.compile(condition);
+			} else if (isNotEmpty(conditionClass) && !conditions.containsKey(conditionClass)) {
+				conditions.put(conditionClass, newCondition(conditionClass));
+			}
+		} catch (Exception ex) {
+			logger.error("Condition compilation failed for " + handlerName + " " + ex.getMessage(), ex);
+		}
+	}
+
 	public void shutdown() {
 		try {
 			if (refreshPool != null) {
@@ -232,22 +273,14 @@ public class EventProcessor {
 			List<Future<Boolean>> futures = new LinkedList<>();
 
 			String payload = msg.getPayload();
-			Object payloadObj = null;
-			if (payload != null) {
-				try {
-					payloadObj = om.readValue(payload, Object.class);
-				} catch (Exception e) {
-					payloadObj = payload;
-				}
-			}
+			ParsedMessage message = ParsedMessage.parse(om, payload);
+			Object payloadObj = message.getDocument();
 
 			es.addMessage(queue.getName(), msg);
 
 			// Find event handlers by the event name considering variables in the handler's event
 			String event = queue.getType() + ":" + queue.getURI();
-			List<EventHandler> handlers = activeHandlers.stream()
-				.filter(handler -> handler.getEvent().equalsIgnoreCase(event))
-				.collect(Collectors.toList());
+			List<EventHandler> handlers = handlersByEvent.getOrDefault(event.toLowerCase(), Collections.emptyList());
 
 			String subject = queue.getURI();
 			if (queue.getURI().contains(":")) {
@@ -361,7 +394,7 @@ public class EventProcessor {
 					ee.setSubject(subject);
 					ee.setTags(tags);
 					ExecutorService executor = queuesMap.get(event).getRight();
-					Future<Boolean> future = execute(executor, ee, action, payload);
+					Future<Boolean> future = execute(executor, ee, action, message);
 					futures.add(future);
 				}
 			}
@@ -418,14 +451,21 @@ public class EventProcessor {
 		if (isNotEmpty(condition)) {
 			return ScriptEvaluator.evalBool(condition, payload);
 		} else if (isNotEmpty(conditionClass)) {
-			Class clazz = Class.forName(conditionClass);
-			JavaEventCondition javaEventCondition = (JavaEventCondition) clazz.newInstance();
+			JavaEventCondition javaEventCondition = conditionClasses.get(conditionClass);
+			if (javaEventCondition == null) {
+				javaEventCondition = newCondition(conditionClass);
+			}
 			return javaEventCondition.evalBool(payload);
 		}
 		return true;
 	}
 
-	private Future<Boolean> execute(ExecutorService executor, EventExecution ee, Action action, String payload) {
+	private JavaEventCondition newCondition(String conditionClass) throws Exception {
+		Class clazz = Class.forName(conditionClass);
+		return (JavaEventCondition) clazz.newInstance();
+	}
+
+	private Future<Boolean> execute(ExecutorService executor, EventExecution ee, Action action, ParsedMessage message) {
 		return executor.submit(() -> {
 			boolean success = false;
 			NDC.push("event-" + ee.getMessageId());
@@ -435,7 +475,7 @@ public class EventProcessor {
 					logger.debug("Duplicate delivery/execution? {}", ee.getId());
 				}
 				ee.setStarted(System.currentTimeMillis());
-				Map<String, Object> output = ap.execute(action, payload, ee);
+				Map<String, Object> output = ap.execute(action, message, ee);
 				if (output != null) {
 					ee.getOutput().putAll(output);
 					success = BooleanUtils.isTrue((Boolean) output.get("conductor.event.success"));
@@ -64,10 +64,13 @@ public class FindUpdateAction implements JavaEventAction {
 
 		// Get the tasks either by
 		// a) tags -> workflows -> WAIT + IN_PROGRESS task
-		// b) backward compatible for all 'WAIT + IN_PROGRESS'
+		// b) legacy mode - the index of 'WAIT + IN_PROGRESS' task inputs
+		// c) backward compatible for all 'WAIT + IN_PROGRESS'
 		List<Task> tasks;
 		if (CollectionUtils.isNotEmpty(tags)) {
 			tasks = executor.getPendingTasksByTags(Wait.NAME, tags);
+		} else if (StringUtils.isEmpty(findUpdate.getExpression())) {
+			tasks = executor.getPendingTasksByInput(Wait.NAME, inputParameters);
 		} else {
 			tasks = executor.getPendingSystemTasks(Wait.NAME);
 		}
@@ -0,0 +1,185 @@
+package com.netflix.conductor.core.events;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The event message payload parsed once and shared by the conditions, tags and actions of all handlers.
+ * <p>
+ * The parsed document is registered against its tree, so {@link ScriptEvaluator} jq evaluations against
+ * the document (including the ones made by java conditions/actions) reuse the tree instead of converting it again.
+ * The document is shared between the action threads, so it is handed out as an unmodifiable view - a change would
+ * leave the cached tree stale. The view is not a copy, the nested maps and lists are wrapped when they are read.
+ * Use {@link #copyDocument} for a document which can be modified.
+ */
+public class ParsedMessage {
+	// Weak keys are compared by identity and released together with the document
+	private static final Cache<Object, JsonNode> trees = CacheBuilder.newBuilder().weakKeys().build();
+
+	private final String payload;
+	private final Object document;
+	private final JsonNode tree;
+
+	private ParsedMessage(String payload, Object document, JsonNode tree) {
+		this.payload = payload;
+		this.document = document;
+		this.tree = tree;
+	}
+
+	/**
+	 * @param om      Object mapper
+	 * @param payload Raw message payload
+	 * @return Parsed message. The document is the raw payload when it is not a valid json
+	 */
+	public static ParsedMessage parse(ObjectMapper om, String payload) {
+		if (payload == null) {
+			return new ParsedMessage(null, null, null);
+		}
+
+		JsonNode tree;
+		try {
+			tree = om.readTree(payload);
+		} catch (Exception e) {
+			tree = null;
+		}
+		if (tree == null) {
+			return new ParsedMessage(payload, payload, null);
+		}
+
+		Object document = readOnly(om.convertValue(tree, Object.class));
+		if (document instanceof Map || document instanceof List) {
+			trees.put(document, tree);
+		}
+		return new ParsedMessage(payload, document, tree);
+	}
+
+	/**
+	 * @param document Parsed document
+	 * @return The tree of the document if it was parsed by {@link #parse}, otherwise null
+	 */
+	static JsonNode treeOf(Object document) {
+		if (document == null) {
+			return null;
+		}
+		return trees.getIfPresent(document);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Object readOnly(Object value) {
+		if (value instanceof ReadOnlyMap || value instanceof ReadOnlyList) {
+			return value;
+		}
+		if (value instanceof Map) {
+			return new ReadOnlyMap((Map<String, Object>) value);
+		}
+		if (value instanceof List) {
+			return new ReadOnlyList((List<Object>) value);
+		}
+		return value;
+	}
+
+	public String getPayload() {
+		return payload;
+	}
+
+	/**
+	 * @return Unmodifiable view of the parsed document, the raw payload when it is not a valid json
+	 */
+	public Object getDocument() {
+		return document;
+	}
+
+	public JsonNode getTree() {
+		return tree;
+	}
+
+	public boolean isJson() {
+		return tree != null;
+	}
+
+	/**
+	 * @param om Object mapper
+	 * @return Deep copy of the document which can be modified
+	 */
+	public Object copyDocument(ObjectMapper om) {
+		return tree != null ? om.convertValue(tree, Object.class) : document;
+	}
+
+	private static class ReadOnlyMap extends AbstractMap<String, Object> {
+		private final Map<String, Object> map;
+
+		ReadOnlyMap(Map<String, Object> map) {
+			this.map = map;
+		}
+
+		@Override
+		public Object get(Object key) {
+			return readOnly(map.get(key));
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return map.containsKey(key);
+		}
+
+		@Override
+		public int size() {
+			return map.size();
+		}
+
+		@Override
+		public Set<Entry<String, Object>> entrySet() {
+			return new AbstractSet<Entry<String, Object>>() {
+				@Override
+				public Iterator<Entry<String, Object>> iterator() {
+					Iterator<Entry<String, Object>> entries = map.entrySet().iterator();
+					return new Iterator<Entry<String, Object>>() {
+						@Override
+						public boolean hasNext() {
+							return entries.hasNext();
+						}
+
+						@Override
+						public Entry<String, Object> next() {
+							Entry<String, Object> entry = entries.next();
+							return new SimpleImmutableEntry<>(entry.getKey(), readOnly(entry.getValue()));
+						}
+					};
+				}
+
+				@Override
+				public int size() {
+					return map.size();
+				}
+			};
+		}
+	}
+
+	private static class ReadOnlyList extends AbstractList<Object> {
+		private final List<Object> list;
+
+		ReadOnlyList(List<Object> list) {
+			this.list = list;
+		}
+
+		@Override
+		public Object get(int index) {
+			return readOnly(list.get(index));
+		}
+
+		@Override
+		public int size() {
+			return list.size();
+		}
+	}
+}
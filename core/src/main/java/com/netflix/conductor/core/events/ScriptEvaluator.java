@@ -30,6 +30,8 @@ import org.apache.commons.lang.StringUtils;
 
 import javax.annotation.Nonnull;
 import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
@@ -37,6 +39,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -47,6 +50,7 @@ public class ScriptEvaluator {
 
 	private static ScriptEngine engine = new ScriptEngineManager().getEngineByName("nashorn");
 	private static LoadingCache<String, JsonQuery> queryCache = createQueryCache();
+	private static LoadingCache<String, CompiledScript> scriptCache = createScriptCache();
 	private static final ObjectMapper om = new ObjectMapper();
 
 	private ScriptEvaluator() {
@@ -65,14 +69,31 @@ public class ScriptEvaluator {
 	}
 
 	public static Object eval(String script, Object input) throws ScriptException {
+		CompiledScript compiled = compile(script);
+		// The compiled scripts are shared. A fresh global per evaluation keeps the top level vars of a script
+		// away from the next one
 		Bindings bindings = engine.createBindings();
 		bindings.put("$", input);
-		return engine.eval(script, bindings);
+		return compiled.eval(bindings);
+	}
 
+	public static CompiledScript compile(String script) throws ScriptException {
+		try {
+			return scriptCache.get(script);
+		} catch (ExecutionException ex) {
+			if (ex.getCause() instanceof ScriptException) {
+				throw (ScriptException) ex.getCause();
+			}
+			throw new ScriptException(ex.getMessage());
+		}
+	}
+
+	public static JsonQuery compileJq(String expression) throws Exception {
+		return queryCache.get(expression);
 	}
 
 	public static String evalJq(String expression, Object payload) throws Exception {
-		JsonNode input = om.valueToTree(payload);
+		JsonNode input = toTree(payload);
 		JsonQuery query = queryCache.get(expression);
 		List<JsonNode> result = query.apply(input);
 		if (result == null || result.isEmpty()) {
@@ -83,7 +104,7 @@ public class ScriptEvaluator {
 	}
 
 	public static Object evalJqAsObject(String expression, Object payload) throws Exception {
-		JsonNode input = om.valueToTree(payload);
+		JsonNode input = toTree(payload);
 		JsonQuery query = queryCache.get(expression);
 		List<JsonNode> result = query.apply(input);
 		if (result == null || result.isEmpty()) {
@@ -97,7 +118,7 @@ public class ScriptEvaluator {
 	}
 
 	public static List<Object> evalJqAsList(String expression, Object payload) throws Exception {
-		JsonNode input = om.valueToTree(payload);
+		JsonNode input = toTree(payload);
 		JsonQuery query = queryCache.get(expression);
 		List<JsonNode> result = query.apply(input);
 		if (result == null || result.isEmpty()) {
@@ -107,7 +128,7 @@ public class ScriptEvaluator {
 	}
 
 	public static Object evalJqRaw(String expression, Object payload) throws Exception {
-		JsonNode input = om.valueToTree(payload);
+		JsonNode input = toTree(payload);
 		JsonQuery query = queryCache.get(expression);
 		List<JsonNode> result = query.apply(input);
 		if (result == null || result.isEmpty()) {
@@ -134,12 +155,33 @@ public class ScriptEvaluator {
 		}).collect(HashMap::new, (m,v)->m.put(v.getKey(), v.getValue()), HashMap::putAll);
 	}
 
+	// Reuses the tree of the documents parsed by ParsedMessage
+	private static JsonNode toTree(Object payload) {
+		if (payload instanceof JsonNode) {
+			return (JsonNode) payload;
+		}
+		JsonNode tree = ParsedMessage.treeOf(payload);
+		if (tree != null) {
+			return tree;
+		}
+		return om.valueToTree(payload);
+	}
+
 	private static LoadingCache<String, JsonQuery> createQueryCache() {
 		CacheLoader<String, JsonQuery> loader = new CacheLoader<String, JsonQuery>() {
 			public JsonQuery load(@Nonnull String query) throws JsonQueryException {
 				return JsonQuery.compile(query);
 			}
 		};
-		return CacheBuilder.newBuilder().expireAfterWrite(1, TimeUnit.HOURS).maximumSize(1000).build(loader);
+		return CacheBuilder.newBuilder().expireAfterAccess(1, TimeUnit.HOURS).maximumSize(1000).build(loader);
+	}
+
+	private static LoadingCache<String, CompiledScript> createScriptCache() {
+		CacheLoader<String, CompiledScript> loader = new CacheLoader<String, CompiledScript>() {
+			public CompiledScript load(@Nonnull String script) throws ScriptException {
+				return ((Compilable) engine).compile(script);
+			}
+		};
+		return CacheBuilder.newBuilder().expireAfterAccess(1, TimeUnit.HOURS).maximumSize(1000).build(loader);
 	}
 }
@@ -75,15 +75,21 @@ public class DeciderService {
 	public DeciderOutcome decide(Workflow workflow, WorkflowDef def) throws TerminateWorkflow {
 		
 		workflow.setSchemaVersion(def.getSchemaVersion());
-		
-		final List<Task> tasks = workflow.getTasks();
-		List<Task> executedTasks = tasks.stream().filter(t -> !t.getStatus().equals(Status.SKIPPED) && !t.getStatus().equals(Status.READY_FOR_RERUN)).collect(Collectors.toList());
-		List<Task> tasksToBeScheduled = new LinkedList<>();
-		if (executedTasks.isEmpty()) {
-			tasksToBeScheduled = startWorkflow(workflow, def);
-			if(tasksToBeScheduled == null) tasksToBeScheduled = new LinkedList<>();
+
+		// All the task inputs of this pass share the same workflow variables
+		InputContext previous = InputContext.open(workflow);
+		try {
+			final List<Task> tasks = workflow.getTasks();
+			List<Task> executedTasks = tasks.stream().filter(t -> !t.getStatus().equals(Status.SKIPPED) && !t.getStatus().equals(Status.READY_FOR_RERUN)).collect(Collectors.toList());
+			List<Task> tasksToBeScheduled = new LinkedList<>();
+			if (executedTasks.isEmpty()) {
+				tasksToBeScheduled = startWorkflow(workflow, def);
+				if(tasksToBeScheduled == null) tasksToBeScheduled = new LinkedList<>();
+			}
+			return decide(def, workflow, tasksToBeScheduled);
+		} finally {
+			InputContext.close(previous);
 		}
-		return decide(def, workflow, tasksToBeScheduled);
 	}
 	
 	private DeciderOutcome decide(final WorkflowDef def, final Workflow workflow, List<Task> preScheduledTasks) throws TerminateWorkflow {
@@ -437,6 +443,8 @@ public class DeciderService {
 		Map<String, Object> input = getTaskInput(taskToSchedule.getInputParameters(), workflow, null, null);
 
 		if ( input.get("timeoutSecondsOverride") != null){
+			// The definition is shared, the override goes to the copy the task is scheduled with
+			taskToSchedule = copyOf(taskToSchedule);
 			try {
 				taskToSchedule.setTimeoutSeconds(Long.parseLong(String.valueOf(input.get("timeoutSecondsOverride"))));
 			}catch(NumberFormatException nfe){}
@@ -493,8 +501,9 @@ public class DeciderService {
 					//Workflow should be terminated here...
 					throw new TerminateWorkflow("Cannot map a dynamic task based on the parameter and input.  Parameter= " + paramName + ", input=" + input);
 				}
-				taskToSchedule.setName(taskName);				
-				task = createSimpleTask(workflow, taskToSchedule, retryCount);
+				WorkflowTask dynamicTask = copyOf(taskToSchedule);
+				dynamicTask.setName(taskName);
+				task = createSimpleTask(workflow, dynamicTask, retryCount);
 				task.setTaskType(taskName);
 				task.setRetriedTaskId(retriedTaskId);
 				tasks.add(task);
@@ -589,8 +598,9 @@ public class DeciderService {
 				}
 				Map<String, Map<String, Object>> defaults = Collections.singletonMap("defaults", preProcess);
 
-				taskToSchedule.getInputParameters().put("sink", taskToSchedule.getSink());
-				Map<String, Object> eventTaskInput = pu.getTaskInputV2(taskToSchedule.getInputParameters(), defaults, workflow, taskId, null, taskToSchedule);
+				Map<String, Object> eventInputParams = new HashMap<>(taskToSchedule.getInputParameters());
+				eventInputParams.put("sink", taskToSchedule.getSink());
+				Map<String, Object> eventTaskInput = pu.getTaskInputV2(eventInputParams, defaults, workflow, taskId, null, taskToSchedule);
 				String sink = (String)eventTaskInput.get("sink");				
 				Task eventTask = SystemTask.eventTask(workflow, taskId, taskToSchedule, eventTaskInput, sink);
 				tasks.add(eventTask);
@@ -738,6 +748,13 @@ public class DeciderService {
 		return input;
 	}
 	
+	/**
+	 * @return Deep copy of the workflow task to modify without touching the (cached) workflow definition
+	 */
+	private WorkflowTask copyOf(WorkflowTask workflowTask) {
+		return om.convertValue(om.valueToTree(workflowTask), WorkflowTask.class);
+	}
+
 	private boolean isTaskSkipped(WorkflowTask taskToSchedule, Workflow workflow) {
 		try {
 			boolean retval = false;
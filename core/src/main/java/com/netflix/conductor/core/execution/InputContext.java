@@ -0,0 +1,232 @@
+package com.netflix.conductor.core.execution;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.netflix.conductor.common.metadata.tasks.Task;
+import com.netflix.conductor.common.metadata.workflow.WorkflowTask;
+import com.netflix.conductor.common.run.Workflow;
+import org.apache.commons.lang.StringUtils;
+import org.joda.time.format.DateTimeFormatter;
+import org.joda.time.format.ISODateTimeFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Variables of a workflow used to evaluate the task inputs.
+ * <p>
+ * The workflow section and the task index are built once on the first access and shared by every input
+ * evaluated within the same {@link DeciderService#decide} pass. The task sections are built on access,
+ * so they always reflect the current task state. Not thread safe - a context belongs to the deciding thread.
+ */
+public class InputContext {
+	private static Logger logger = LoggerFactory.getLogger(InputContext.class);
+	private static final ThreadLocal<InputContext> current = new ThreadLocal<>();
+	private static final TypeReference<Map<String, Object>> map = new TypeReference<Map<String, Object>>() {};
+	private static final ObjectMapper om = new ObjectMapper();
+
+	private final Workflow workflow;
+	private Map<String, Object> workflowSection;
+	private Map<String, Task> tasksByRefName;
+	private Map<String, Task> tasksById;
+
+	private InputContext(Workflow workflow) {
+		this.workflow = workflow;
+	}
+
+	/**
+	 * Opens the context of the workflow for the current thread
+	 *
+	 * @return The previous context which must be passed to {@link #close}
+	 */
+	static InputContext open(Workflow workflow) {
+		InputContext previous = current.get();
+		current.set(new InputContext(workflow));
+		return previous;
+	}
+
+	/**
+	 * Closes the context of the current thread and restores the previous one
+	 */
+	static void close(InputContext previous) {
+		if (previous == null) {
+			current.remove();
+		} else {
+			current.set(previous);
+		}
+	}
+
+	/**
+	 * @return The context opened for the workflow by the current thread or a new one
+	 */
+	public static InputContext of(Workflow workflow) {
+		InputContext context = current.get();
+		if (context != null && context.workflow == workflow) {
+			return context;
+		}
+		return new InputContext(workflow);
+	}
+
+	/**
+	 * @return Read only variables map: workflow, defaults, task and the task sections by reference name
+	 */
+	public Map<String, Map<String, Object>> getInputMap(Map<String, Map<String, Object>> defaults, String taskId, WorkflowTask workflowTask) {
+		Map<String, Object> taskSection = null;
+		if (workflowTask != null) {
+			taskSection = new HashMap<>();
+			taskSection.put("referenceTaskName", workflowTask.getTaskReferenceName());
+		}
+		if (taskId != null) {
+			Task task = getTasksById().get(taskId.toLowerCase());
+			if (task != null) {
+				taskSection = createTaskIO(task);
+			}
+		}
+		return new InputMap(defaults, taskSection);
+	}
+
+	private Map<String, Object> getWorkflowSection() {
+		if (workflowSection != null) {
+			return workflowSection;
+		}
+
+		DateTimeFormatter fmt = ISODateTimeFormat.dateTime().withZoneUTC();
+		Map<String, Object> wf = new HashMap<>();
+		wf.put("input", workflow.getInput());
+		wf.put("output", workflow.getOutput());
+		wf.put("status", workflow.getStatus());
+		wf.put("startTime", workflow.getStartTime());
+		wf.put("startTimeIso", fmt.print(workflow.getStartTime()));
+		wf.put("workflowId", workflow.getWorkflowId());
+		wf.put("parentWorkflowId", workflow.getParentWorkflowId());
+		wf.put("parentWorkflowTaskId", workflow.getParentWorkflowTaskId());
+		wf.put("workflowType", workflow.getWorkflowType());
+		wf.put("version", workflow.getVersion());
+		wf.put("correlationId", workflow.getCorrelationId());
+		wf.put("reasonForIncompletion", workflow.getReasonForIncompletion());
+		wf.put("schemaVersion", workflow.getSchemaVersion());
+		wf.put("workflowIds", workflow.getWorkflowIds());
+		wf.put("authorization", workflow.getAuthorization());
+		wf.put("contextUser", workflow.getContextUser());
+		wf.put("tags", workflow.getTags());
+		wf.put("traceId", workflow.getTraceId());
+		wf.put("attributes", workflow.getAttributes());
+
+		String correlationId = workflow.getCorrelationId();
+		if (StringUtils.isNotEmpty(correlationId) && correlationId.startsWith("{") && correlationId.endsWith("}")) {
+			try {
+				Map<String, Object> cloned = om.readValue(correlationId, map);
+				wf.put("correlationMap", cloned);
+			} catch (IOException e) {
+				logger.error("Unable to parse workflow correlation id");
+			}
+		}
+
+		workflowSection = wf;
+		return workflowSection;
+	}
+
+	private Map<String, Task> getTasksByRefName() {
+		if (tasksByRefName == null) {
+			// The last task wins like in Workflow.getTaskByRefName
+			Map<String, Task> index = new LinkedHashMap<>();
+			for (Task task : workflow.getTasks()) {
+				if (task.getReferenceTaskName() == null) {
+					throw new RuntimeException("Task " + task.getTaskDefName() + ", seq=" + task.getSeq() + " does not have reference name specified.");
+				}
+				index.put(task.getReferenceTaskName(), task);
+			}
+			tasksByRefName = index;
+		}
+		return tasksByRefName;
+	}
+
+	private Map<String, Task> getTasksById() {
+		if (tasksById == null) {
+			Map<String, Task> index = new HashMap<>();
+			for (Task task : workflow.getTasks()) {
+				index.putIfAbsent(task.getTaskId().toLowerCase(), task);
+			}
+			tasksById = index;
+		}
+		return tasksById;
+	}
+
+	private static Map<String, Object> createTaskIO(Task task) {
+		Map<String, Object> taskIO = new HashMap<>();
+		taskIO.put("input", task.getInputData());
+		taskIO.put("output", task.getOutputData());
+		taskIO.put("taskType", task.getTaskType());
+		if(task.getStatus() != null) {
+			taskIO.put("status", task.getStatus().toString());
+		}
+		taskIO.put("referenceTaskName", task.getReferenceTaskName());
+		taskIO.put("retryCount", task.getRetryCount());
+		taskIO.put("correlationId", task.getCorrelationId());
+		taskIO.put("pollCount", task.getPollCount());
+		taskIO.put("taskDefName", task.getTaskDefName());
+		taskIO.put("scheduledTime", task.getScheduledTime());
+		taskIO.put("startTime", task.getStartTime());
+		taskIO.put("endTime", task.getEndTime());
+		taskIO.put("workflowInstanceId", task.getWorkflowInstanceId());
+		taskIO.put("taskId", task.getTaskId());
+		taskIO.put("reasonForIncompletion", task.getReasonForIncompletion());
+		taskIO.put("callbackAfterSeconds", task.getCallbackAfterSeconds());
+		taskIO.put("workerId", task.getWorkerId());
+		return taskIO;
+	}
+
+	/**
+	 * Resolves the sections on access. Precedence is the same as the map used to be built with:
+	 * task reference names, then task, then defaults, then workflow
+	 */
+	private class InputMap extends AbstractMap<String, Map<String, Object>> {
+		private final Map<String, Map<String, Object>> defaults;
+		private final Map<String, Object> taskSection;
+
+		InputMap(Map<String, Map<String, Object>> defaults, Map<String, Object> taskSection) {
+			this.defaults = defaults != null ? defaults : Collections.emptyMap();
+			this.taskSection = taskSection;
+		}
+
+		@Override
+		public Map<String, Object> get(Object key) {
+			Task task = getTasksByRefName().get(key);
+			if (task != null) {
+				return createTaskIO(task);
+			}
+			if (taskSection != null && "task".equals(key)) {
+				return taskSection;
+			}
+			if (defaults.containsKey(key)) {
+				return defaults.get(key);
+			}
+			if ("workflow".equals(key)) {
+				return getWorkflowSection();
+			}
+			return null;
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return getTasksByRefName().containsKey(key)
+				|| (taskSection != null && "task".equals(key))
+				|| defaults.containsKey(key)
+				|| "workflow".equals(key);
+		}
+
+		@Override
+		public Set<Entry<String, Map<String, Object>>> entrySet() {
+			Map<String, Map<String, Object>> inputMap = new HashMap<>();
+			inputMap.put("workflow", getWorkflowSection());
+			inputMap.putAll(defaults);
+			if (taskSection != null) {
+				inputMap.put("task", taskSection);
+			}
+			getTasksByRefName().forEach((refName, task) -> inputMap.put(refName, createTaskIO(task)));
+			return Collections.unmodifiableMap(inputMap).entrySet();
+		}
+	}
+}
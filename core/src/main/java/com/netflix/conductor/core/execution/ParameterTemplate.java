@@ -0,0 +1,304 @@
+package com.netflix.conductor.core.execution;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.Option;
+import com.netflix.conductor.core.events.ScriptEvaluator;
+import com.netflix.conductor.core.execution.ParametersUtils.SystemParameters;
+import org.apache.commons.collections.CollectionUtils;
+import org.joda.time.DateTime;
+import org.joda.time.format.DateTimeFormatter;
+import org.joda.time.format.ISODateTimeFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parameter template compiled once into a tree of maps, lists and expressions.
+ * <p>
+ * An expression is a string value split into literal, ${path}, system parameter and $jq{expression} segments
+ * the same way {@link ParametersUtils} used to split it on every evaluation. The paths are compiled to
+ * {@link JsonPath} up front, so the evaluation is a walk over the tree without any parsing.
+ */
+class ParameterTemplate {
+	private static Logger logger = LoggerFactory.getLogger(ParameterTemplate.class);
+	private static final Configuration option = Configuration.defaultConfiguration().addOptions(Option.SUPPRESS_EXCEPTIONS);
+	private static final LoadingCache<String, Expression> expressions = CacheBuilder.newBuilder()
+		.expireAfterAccess(1, TimeUnit.HOURS).maximumSize(10000)
+		.build(CacheLoader.from(Expression::compile));
+
+	private final Map<String, Node> root;
+
+	private ParameterTemplate(Map<String, Node> root) {
+		this.root = root;
+	}
+
+	/**
+	 * @param template Input template. Must not be modified by the caller afterwards
+	 * @return Compiled template
+	 */
+	static ParameterTemplate compile(Map<String, Object> template) {
+		return new ParameterTemplate(MapNode.compileEntries(template));
+	}
+
+	/**
+	 * Evaluates the template into the target map
+	 *
+	 * @param target   Map to put the evaluated parameters to
+	 * @param document The document to resolve the paths against
+	 * @param taskId   Task id for the CPEWF_TASK_ID system parameter
+	 * @param skip     Parameters not to evaluate
+	 */
+	void evaluate(Map<String, Object> target, Object document, String taskId, Set<String> skip) {
+		root.forEach((name, node) -> {
+			if (!skip.contains(name)) {
+				target.put(name, node.evaluate(document, taskId));
+			}
+		});
+	}
+
+	/**
+	 * Evaluates a single string value using the compiled expression cache
+	 */
+	static Object evaluate(String value, Object document, String taskId) {
+		return expressions.getUnchecked(value).evaluate(document, taskId);
+	}
+
+	/**
+	 * @return Structural copy of the map - the maps and lists are copied, the values are shared
+	 */
+	@SuppressWarnings("unchecked")
+	static Object copyOf(Object value) {
+		if (value instanceof Map) {
+			Map<Object, Object> copy = new LinkedHashMap<>();
+			((Map<Object, Object>) value).forEach((k, v) -> copy.put(k, copyOf(v)));
+			return copy;
+		} else if (value instanceof List) {
+			List<Object> copy = new ArrayList<>();
+			((List<Object>) value).forEach(v -> copy.add(copyOf(v)));
+			return copy;
+		}
+		return value;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Node compileNode(Object value) {
+		if (value instanceof String) {
+			return expressions.getUnchecked((String) value);
+		} else if (value instanceof Map) {
+			return new MapNode(MapNode.compileEntries((Map<String, Object>) value));
+		} else if (value instanceof List) {
+			List<Node> items = new ArrayList<>();
+			((List<Object>) value).forEach(item -> items.add(compileNode(item)));
+			return new ListNode(items);
+		}
+		return new Literal(value);
+	}
+
+	private interface Node {
+		Object evaluate(Object document, String taskId);
+	}
+
+	private static class Literal implements Node {
+		private final Object value;
+
+		Literal(Object value) {
+			this.value = value;
+		}
+
+		@Override
+		public Object evaluate(Object document, String taskId) {
+			return value;
+		}
+	}
+
+	private static class MapNode implements Node {
+		private final Map<String, Node> entries;
+
+		MapNode(Map<String, Node> entries) {
+			this.entries = entries;
+		}
+
+		static Map<String, Node> compileEntries(Map<String, Object> map) {
+			Map<String, Node> entries = new LinkedHashMap<>();
+			map.forEach((name, value) -> entries.put(name, compileNode(value)));
+			return entries;
+		}
+
+		@Override
+		public Object evaluate(Object document, String taskId) {
+			Map<String, Object> result = new LinkedHashMap<>();
+			entries.forEach((name, node) -> result.put(name, node.evaluate(document, taskId)));
+			return result;
+		}
+	}
+
+	private static class ListNode implements Node {
+		private final List<Node> items;
+
+		ListNode(List<Node> items) {
+			this.items = items;
+		}
+
+		@Override
+		public Object evaluate(Object document, String taskId) {
+			List<Object> result = new LinkedList<>();
+			items.forEach(node -> result.add(node.evaluate(document, taskId)));
+			return result;
+		}
+	}
+
+	private static class Expression implements Node {
+		private final Node[] segments;
+
+		Expression(Node[] segments) {
+			this.segments = segments;
+		}
+
+		static Expression compile(String value) {
+			List<Node> segments = new ArrayList<>();
+			StringBuilder literal = null;
+			for (String piece : split(value)) {
+				Node segment = null;
+				if (piece.startsWith("${") && piece.endsWith("}")) {
+					segment = new PathSegment(piece, piece.substring(2, piece.length() - 1));
+				} else if (piece.startsWith("$jq{") && piece.endsWith("}")) {
+					segment = new JqSegment(piece.substring(4, piece.length() - 1));
+				}
+
+				// Adjacent literals are merged
+				if (segment == null) {
+					literal = literal == null ? new StringBuilder(piece) : literal.append(piece);
+					continue;
+				}
+				if (literal != null) {
+					segments.add(new Literal(literal.toString()));
+					literal = null;
+				}
+				segments.add(segment);
+			}
+			if (literal != null) {
+				segments.add(new Literal(literal.toString()));
+			}
+			return new Expression(segments.toArray(new Node[0]));
+		}
+
+		/**
+		 * Same as value.split("(?=\\$\\{)|(?=\\$jq\\{)|(?<=\\})") - before each ${ and $jq{ and after each }
+		 */
+		static List<String> split(String value) {
+			List<String> pieces = new ArrayList<>();
+			int start = 0;
+			for (int i = 1; i < value.length(); i++) {
+				if (value.charAt(i - 1) == '}' || value.startsWith("${", i) || value.startsWith("$jq{", i)) {
+					pieces.add(value.substring(start, i));
+					start = i;
+				}
+			}
+			pieces.add(value.substring(start));
+			return pieces;
+		}
+
+		@Override
+		public Object evaluate(Object document, String taskId) {
+			if (segments.length == 1) {
+				return segments[0].evaluate(document, taskId);
+			}
+
+			// If the parameter String was "v1 v2 v3" then make sure to stitch it back
+			StringBuilder result = new StringBuilder();
+			for (Node segment : segments) {
+				Object value = segment.evaluate(document, taskId);
+				if (value != null) {
+					result.append(value.toString());
+				}
+			}
+			return result.toString();
+		}
+	}
+
+	private static class PathSegment implements Node {
+		private final String piece;
+		private final String path;
+		private final boolean systemParameter;
+		private final JsonPath jsonPath;
+
+		PathSegment(String piece, String path) {
+			this.piece = piece;
+			this.path = path;
+			this.systemParameter = Arrays.stream(SystemParameters.values()).anyMatch(c -> path.startsWith(c.name()));
+
+			JsonPath compiled = null;
+			if (!systemParameter) {
+				try {
+					compiled = JsonPath.compile(path);
+				} catch (Exception ex) {
+					// Invalid path fails on evaluation like it did before
+				}
+			}
+			this.jsonPath = compiled;
+		}
+
+		@Override
+		public Object evaluate(Object document, String taskId) {
+			if (systemParameter || System.getProperty(path) != null || System.getenv(path) != null) {
+				String sysValue = getSystemParametersValue(path, taskId);
+				return sysValue != null ? sysValue : piece;
+			}
+			JsonPath compiled = jsonPath != null ? jsonPath : JsonPath.compile(path);
+			return compiled.read(document, option);
+		}
+	}
+
+	private static class JqSegment implements Node {
+		private final String expression;
+
+		JqSegment(String expression) {
+			this.expression = expression;
+		}
+
+		@Override
+		public Object evaluate(Object document, String taskId) {
+			try {
+				List<Object> result = ScriptEvaluator.evalJqAsList(expression, document);
+				return CollectionUtils.isNotEmpty(result) ? result.get(0) : null;
+			} catch (Exception ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+	}
+
+	private static String getSystemParametersValue(String sysParam, String taskId) {
+		if ("UUID".equals(sysParam)) {
+			return UUID.randomUUID().toString();
+		} else if ("CPEWF_TASK_ID".equals(sysParam)) {
+			return taskId;
+		} else if (sysParam.startsWith("CPEWF_CURRENT_TIMESTAMP")) {
+			try {
+				if (sysParam.contains(":")) {
+					String format = sysParam.substring(sysParam.indexOf(":") + 1);
+					SimpleDateFormat fmt = new SimpleDateFormat(format);
+					return fmt.format(new Date());
+				} else {
+					DateTimeFormatter fmt = ISODateTimeFormat.dateTime().withZoneUTC();
+					return fmt.print(new DateTime());
+				}
+			} catch (Exception ex) {
+				logger.error("Unable to get param value for '" + sysParam + "'", ex);
+				return null;
+			}
+		}
+
+		String value = System.getenv(sysParam);
+		if (value == null) {
+			value = System.getProperty(sysParam);
+		}
+		return value;
+	}
+}
@@ -17,28 +17,22 @@ package com.netflix.conductor.core.execution;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.jayway.jsonpath.Configuration;
 import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.JsonPath;
 import com.jayway.jsonpath.Option;
-import com.netflix.conductor.common.metadata.tasks.Task;
 import com.netflix.conductor.common.metadata.tasks.TaskDef;
 import com.netflix.conductor.common.metadata.workflow.WorkflowTask;
 import com.netflix.conductor.common.run.Workflow;
-import com.netflix.conductor.core.events.ScriptEvaluator;
-import org.apache.commons.collections.CollectionUtils;
-import org.apache.commons.collections.MapUtils;
-import org.apache.commons.lang.StringUtils;
-import org.joda.time.DateTime;
-import org.joda.time.format.DateTimeFormatter;
-import org.joda.time.format.ISODateTimeFormat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 
@@ -52,6 +46,10 @@ public class ParametersUtils {
 	
 	private TypeReference<Map<String, Object>> map = new TypeReference<Map<String,Object>>() {};
 
+	// Keyed by the content of the input templates. The keys are copies, so changes of the original maps cause a miss
+	private static final Cache<Map<String, Object>, ParameterTemplate> templates = CacheBuilder.newBuilder()
+		.expireAfterAccess(1, TimeUnit.HOURS).maximumSize(10000).build();
+
 	public enum SystemParameters {
 		UUID,
 		CPEWF_TASK_ID,
@@ -73,108 +71,33 @@ public class ParametersUtils {
 	}
 
 	public Map<String, Object> getTaskInputV2(Map<String, Object> input, Map<String, Map<String, Object>> defaults, Workflow workflow, String taskId, TaskDef taskDef, WorkflowTask workflowTask) {
-		Map<String, Object> inputParams = null;
-		if(input != null) {
-			inputParams = clone(input);
-		} else {
-			inputParams = new HashMap<>();
-		}
-		if(taskDef != null && taskDef.getInputTemplate() != null) {
-			inputParams.putAll(clone(taskDef.getInputTemplate()));
-		}
-
 		Map<String, Map<String, Object>> inputMap = getInputMap(defaults, workflow, taskId, workflowTask);
 
-		Configuration option = Configuration.defaultConfiguration().addOptions(Option.SUPPRESS_EXCEPTIONS);
-		DocumentContext io = JsonPath.parse(inputMap, option);
-		return replace(inputParams, io, taskId);
-	}
-
-	public Map<String, Map<String, Object>> getInputMap(Map<String, Map<String, Object>> defaults, Workflow workflow, String taskId, WorkflowTask workflowTask) {
-		Map<String, Map<String, Object>> inputMap = new HashMap<>();
-
-		DateTimeFormatter fmt = ISODateTimeFormat.dateTime().withZoneUTC();
-		Map<String, Object> wf = new HashMap<>();
-		wf.put("input", workflow.getInput());
-		wf.put("output", workflow.getOutput());
-		wf.put("status", workflow.getStatus());
-		wf.put("startTime", workflow.getStartTime());
-		wf.put("startTimeIso", fmt.print(workflow.getStartTime()));
-		wf.put("workflowId", workflow.getWorkflowId());
-		wf.put("parentWorkflowId", workflow.getParentWorkflowId());
-		wf.put("parentWorkflowTaskId", workflow.getParentWorkflowTaskId());
-		wf.put("workflowType", workflow.getWorkflowType());
-		wf.put("version", workflow.getVersion());
-		wf.put("correlationId", workflow.getCorrelationId());
-		wf.put("reasonForIncompletion", workflow.getReasonForIncompletion());
-		wf.put("schemaVersion", workflow.getSchemaVersion());
-		wf.put("workflowIds", workflow.getWorkflowIds());
-		wf.put("authorization", workflow.getAuthorization());
-		wf.put("contextUser", workflow.getContextUser());
-		wf.put("tags", workflow.getTags());
-		wf.put("traceId", workflow.getTraceId());
-		wf.put("attributes", workflow.getAttributes());
-
-		String correlationId = workflow.getCorrelationId();
-		if (StringUtils.isNotEmpty(correlationId) && correlationId.startsWith("{") && correlationId.endsWith("}")) {
-			try {
-				Map<String, Object> cloned = om.readValue(correlationId, map);
-				wf.put("correlationMap", cloned);
-			} catch (IOException e) {
-				logger.error("Unable to parse workflow correlation id");
-			}
-		}
-
-		inputMap.put("workflow", wf);
-		if (MapUtils.isNotEmpty(defaults)) {
-			inputMap.putAll(defaults);
+		// The task definition input template overrides the input
+		Map<String, Object> inputTemplate = taskDef != null ? taskDef.getInputTemplate() : null;
+		Map<String, Object> inputParams = new LinkedHashMap<>();
+		if(input != null) {
+			Set<String> overridden = inputTemplate != null ? inputTemplate.keySet() : Collections.emptySet();
+			getTemplate(input).evaluate(inputParams, inputMap, taskId, overridden);
 		}
-
-		if (workflowTask != null) {
-			Map<String, Object> taskIO = new HashMap<>();
-			taskIO.put("referenceTaskName", workflowTask.getTaskReferenceName());
-			inputMap.put("task", taskIO);
+		if(inputTemplate != null) {
+			getTemplate(inputTemplate).evaluate(inputParams, inputMap, taskId, Collections.emptySet());
 		}
+		return inputParams;
+	}
 
-		if (taskId != null) {
-			Optional<Task> task = workflow.getTasks().stream()
-					.filter(item -> item.getTaskId().equalsIgnoreCase(taskId)).findFirst();
-			if (task.isPresent()) {
-				Map<String, Object> taskIO = createTaskIO(task.get());
-				inputMap.put("task", taskIO);
-			}
+	@SuppressWarnings("unchecked")
+	private ParameterTemplate getTemplate(Map<String, Object> input) {
+		ParameterTemplate template = templates.getIfPresent(input);
+		if (template == null) {
+			template = ParameterTemplate.compile(clone(input));
+			templates.put((Map<String, Object>) ParameterTemplate.copyOf(input), template);
 		}
-
-		workflow.getTasks().stream().map(Task::getReferenceTaskName).map(taskRefName -> workflow.getTaskByRefName(taskRefName)).forEach(task -> {
-			Map<String, Object> taskIO = createTaskIO(task);
-			inputMap.put(task.getReferenceTaskName(), taskIO);
-		});
-
-		return inputMap;
+		return template;
 	}
 
-	private Map<String, Object> createTaskIO(Task task) {
-		Map<String, Object> taskIO = new HashMap<>();
-		taskIO.put("input", task.getInputData());
-		taskIO.put("output", task.getOutputData());
-		taskIO.put("taskType", task.getTaskType());
-		if(task.getStatus() != null) {
-			taskIO.put("status", task.getStatus().toString());
-		}
-		taskIO.put("referenceTaskName", task.getReferenceTaskName());
-		taskIO.put("retryCount", task.getRetryCount());
-		taskIO.put("correlationId", task.getCorrelationId());
-		taskIO.put("pollCount", task.getPollCount());
-		taskIO.put("taskDefName", task.getTaskDefName());
-		taskIO.put("scheduledTime", task.getScheduledTime());
-		taskIO.put("startTime", task.getStartTime());
-		taskIO.put("endTime", task.getEndTime());
-		taskIO.put("workflowInstanceId", task.getWorkflowInstanceId());
-		taskIO.put("taskId", task.getTaskId());
-		taskIO.put("reasonForIncompletion", task.getReasonForIncompletion());
-		taskIO.put("callbackAfterSeconds", task.getCallbackAfterSeconds());
-		taskIO.put("workerId", task.getWorkerId());
-		return taskIO;
+	public Map<String, Map<String, Object>> getInputMap(Map<String, Map<String, Object>> defaults, Workflow workflow, String taskId, WorkflowTask workflowTask) {
+		return InputContext.of(workflow).getInputMap(defaults, taskId, workflowTask);
 	}
 
 	//deep clone using json - POJO
@@ -248,88 +171,7 @@ public class ParametersUtils {
 	}
 
 	private Object replaceVariables(String paramString, DocumentContext io, String taskId){
-		String[] values = paramString.split("(?=\\$\\{)|(?=\\$jq\\{)|(?<=\\})");
-		Object[] convertedValues = new Object[values.length];
-		for(int i=0; i < values.length; i++){
-			convertedValues[i] = values[i];
-			if(values[i].startsWith("${") && values[i].endsWith("}")){
-				String paramPath = values[i].substring(2, values[i].length()-1);
-				if (contains(paramPath)) {
-					String sysValue = getSystemParametersValue(paramPath, taskId);
-					if(sysValue != null){
-						convertedValues[i] = sysValue;
-					}
-
-				} else {
-					convertedValues[i] = io.read(paramPath);
-				}
-			} else if(values[i].startsWith("$jq{") && values[i].endsWith("}")) {
-				String expression = values[i].substring(4, values[i].length() - 1);
-				try {
-					Object json = io.read("$");
-					List<Object> result = ScriptEvaluator.evalJqAsList(expression, json);
-					convertedValues[i] = (CollectionUtils.isNotEmpty(result) ? result.get(0) : null);
-				} catch (Exception ex) {
-					throw new RuntimeException(ex);
-				}
-			}
-		}
-
-		Object retObj = convertedValues[0];
-		// If the parameter String was "v1 v2 v3" then make sure to stitch it back
-		if(convertedValues.length > 1){
-			for (int i = 0; i < convertedValues.length; i++) {
-				Object val = convertedValues[i];
-				if(val == null){
-					val = "";
-				}
-				if(i == 0){
-					retObj = val;
-				} else {
-					retObj = retObj + "" + val.toString();				
-				}
-			}
-			
-		}
-		return retObj;
-	}
-
-	private String getSystemParametersValue(String sysParam, String taskId){
-		if("UUID".equals(sysParam)) {
-			return UUID.randomUUID().toString();
-		} else if("CPEWF_TASK_ID".equals(sysParam)) {
-			return taskId;
-		} else if (sysParam.startsWith("CPEWF_CURRENT_TIMESTAMP")) {
-			try {
-				if (sysParam.contains(":")) {
-					String format = sysParam.substring(sysParam.indexOf(":") + 1);
-					SimpleDateFormat fmt = new SimpleDateFormat(format);
-					return fmt.format(new Date());
-				} else {
-					DateTimeFormatter fmt = ISODateTimeFormat.dateTime().withZoneUTC();
-					return fmt.print(new DateTime());
-				}
-			} catch (Exception ex) {
-				logger.error("Unable to get param value for '" + sysParam + "'", ex);
-				return null;
-			}
-		}
-
-		String value = System.getenv(sysParam);
-		if(value == null) {
-			value = System.getProperty(sysParam);
-		}
-		return value;
-	}
-	
-	private boolean contains(String test) {
-		for (SystemParameters c : SystemParameters.values()) {
-			if (test.startsWith(c.name())) {
-				return true;
-			}
-		}
-		String value = Optional.ofNullable(System.getProperty(test)).orElse(Optional.ofNullable(System.getenv(test)).orElse(null));
-		return value != null;
+		return ParameterTemplate.evaluate(paramString, io.json(), taskId);
 	}
 	
 }
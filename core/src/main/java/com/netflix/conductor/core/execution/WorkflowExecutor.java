@@ -29,6 +29,7 @@ import com.netflix.conductor.common.metadata.events.EventPublished;
 import com.netflix.conductor.common.metadata.tasks.PollData;
 import com.netflix.conductor.common.metadata.tasks.Task;
 import com.netflix.conductor.common.metadata.tasks.Task.Status;
+import com.netflix.conductor.common.metadata.tasks.TaskExecLog;
 import com.netflix.conductor.common.metadata.tasks.TaskResult;
 import com.netflix.conductor.common.metadata.workflow.RerunWorkflowRequest;
 import com.netflix.conductor.common.metadata.workflow.SkipTaskRequest;
@@ -50,6 +51,7 @@ import com.netflix.conductor.core.utils.QueueUtils;
 import com.netflix.conductor.dao.ExecutionDAO;
 import com.netflix.conductor.dao.MetadataDAO;
 import com.netflix.conductor.dao.QueueDAO;
+import com.netflix.conductor.dao.UnitOfWork;
 import com.netflix.conductor.service.MetricService;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.MapUtils;
@@ -100,6 +102,7 @@ public class WorkflowExecutor {
 	private boolean traceIdEnabled;
 	private boolean authContextEnabled;
 	private boolean lazyDecider;
+	private boolean inMemoryDecider;
 
 	private ParametersUtils pu = new ParametersUtils();
 
@@ -122,6 +125,7 @@ public class WorkflowExecutor {
 		this.traceIdEnabled = Boolean.parseBoolean(config.getProperty("workflow.traceid.enabled", "false"));
 		this.authContextEnabled = Boolean.parseBoolean(config.getProperty("workflow.authcontext.enabled", "false"));
 		this.lazyDecider = Boolean.parseBoolean(config.getProperty("workflow.lazy.decider", "false"));
+		this.inMemoryDecider = Boolean.parseBoolean(config.getProperty("workflow.decider.inmemory", "false"));
 	}
 
 	public String startWorkflow(String name, int version, String correlationId, Map<String, Object> input) throws Exception {
@@ -1027,6 +1031,105 @@ public class WorkflowExecutor {
 	}
 
 	public void updateTask(TaskResult result) throws Exception {
+		UnitOfWork.run("update", () -> {
+			storeResult(result);
+			return null;
+		});
+	}
+
+	private void storeResult(TaskResult result) throws Exception {
+		Task task = applyResult(result);
+		if (task == null) {
+			return;
+		}
+
+		if (result.isResetStartTime()) {
+			edao.resetStartTime(task, result.isUpdateOutput());
+		} else {
+			edao.updateTask(task);
+		}
+		addLogs(result, task);
+		afterUpdate(result, task);
+
+		// Exit if resetStartTime was requested as decider won't do any actions
+		if (result.isResetStartTime()) {
+			return;
+		}
+
+		// Who calls decider ? Sweeper or current thread?
+		if (lazyDecider) {
+			wakeUpSweeper(result.getWorkflowInstanceId());
+		} else {
+			decide(result.getWorkflowInstanceId());
+		}
+	}
+
+	/**
+	 * Same as {@link #updateTask} for several results at once: the tasks are stored with one bulk update,
+	 * the logs with one insert and every workflow is decided once.
+	 *
+	 * @return Task id to the error of the results which could not be applied
+	 */
+	public Map<String, String> updateTasks(List<TaskResult> results) throws Exception {
+		Map<String, String> errors = new HashMap<>();
+		Map<TaskResult, Task> applied = new LinkedHashMap<>();
+		List<Task> tasks = new LinkedList<>();
+		for (TaskResult result : results) {
+			try {
+				Task task = applyResult(result);
+				if (task == null) {
+					continue;
+				}
+				if (result.isResetStartTime()) {
+					edao.resetStartTime(task, result.isUpdateOutput());
+				} else {
+					tasks.add(task);
+				}
+				applied.put(result, task);
+			} catch (Exception ex) {
+				logger.error("Unable to update task " + result.getTaskId() + " with " + ex.getMessage(), ex);
+				errors.put(result.getTaskId(), ex.getMessage());
+			}
+		}
+		if (!tasks.isEmpty()) {
+			edao.updateTasks(tasks);
+		}
+
+		List<TaskExecLog> logs = new LinkedList<>();
+		Set<String> workflowIds = new LinkedHashSet<>();
+		applied.forEach((result, task) -> {
+			result.getLogs().forEach(tl -> tl.setTaskId(task.getTaskId()));
+			logs.addAll(result.getLogs());
+			afterUpdate(result, task);
+			if (!result.isResetStartTime()) {
+				workflowIds.add(result.getWorkflowInstanceId());
+			}
+		});
+		if (!logs.isEmpty()) {
+			edao.addTaskExecLog(logs);
+		}
+
+		for (String workflowId : workflowIds) {
+			try {
+				if (lazyDecider) {
+					wakeUpSweeper(workflowId);
+				} else {
+					decide(workflowId);
+				}
+			} catch (Exception ex) {
+				// The tasks are stored already, the sweeper decides the workflow later
+				logger.error("Unable to decide " + workflowId + " after the task updates with " + ex.getMessage(), ex);
+			}
+		}
+		return errors;
+	}
+
+	/**
+	 * Validates the result and applies it to its task
+	 *
+	 * @return The task to be stored or null if there is nothing to update
+	 */
+	private Task applyResult(TaskResult result) throws Exception {
 		if (result == null) {
 			logger.debug("null task given for update..." + result);
 			throw new ApplicationException(Code.INVALID_INPUT, "Task object is null");
@@ -1035,13 +1138,13 @@ public class WorkflowExecutor {
 		Workflow wf = edao.getWorkflow(workflowId, false);
 		if (wf == null) {
 			logger.debug("No workflow found for " + workflowId);
-			return;
+			return null;
 		}
 
 		Task task = edao.getTask(result.getTaskId());
 		if (task == null) {
 			logger.debug("No task found for " + result.getTaskId() + " in " + wf);
-			return;
+			return null;
 		}
 
 		if (wf.getStatus().isTerminal()) {
@@ -1055,7 +1158,7 @@ public class WorkflowExecutor {
 			String msg = "Workflow " + wf.getWorkflowId() + " is already completed as " + wf.getStatus() + ", task=" + task.getTaskType() + ",reason=" + wf.getReasonForIncompletion()+",correlationId="+wf.getCorrelationId() + ",contextUser=" + wf.getContextUser()+ ",clientId=" + wf.getClientId();
 			logger.debug(msg);
 			//Monitors.recordUpdateConflict(task.getTaskType(), wf.getWorkflowType(), wf.getStatus());
-			return;
+			return null;
 		}
 
 		if (task.getStatus().isTerminal()) {
@@ -1064,7 +1167,7 @@ public class WorkflowExecutor {
 			String msg = "Task is already completed as " + task.getStatus() + "@" + task.getEndTime() + ", workflow status=" + wf.getStatus() + ",workflowId=" + wf.getWorkflowId() + ",taskId=" + task.getTaskId()+",correlationId="+wf.getCorrelationId() + ",contextUser=" + wf.getContextUser()+ ",clientId=" + wf.getClientId();
 			logger.debug(msg);
 			//Monitors.recordUpdateConflict(task.getTaskType(), wf.getWorkflowType(), task.getStatus());
-			return;
+			return null;
 		}
 
 		task.setStatus(Status.valueOf(result.getStatus().name()));
@@ -1087,12 +1190,18 @@ public class WorkflowExecutor {
 				}
 			}
 		}
+		return task;
+	}
 
-		if (result.isResetStartTime()) {
-			edao.resetStartTime(task, result.isUpdateOutput());
-		} else {
-			edao.updateTask(task);
-		}
+	private void addLogs(TaskResult result, Task task) {
+		result.getLogs().forEach(tl -> tl.setTaskId(task.getTaskId()));
+		edao.addTaskExecLog(result.getLogs());
+	}
+
+	/**
+	 * Metrics, listener and queue handling of the stored task
+	 */
+	private void afterUpdate(TaskResult result, Task task) {
 		if (task.isTerminal()) {
 			MetricService.getInstance().taskComplete(task.getTaskType(),
 				task.getReferenceTaskName(),
@@ -1100,9 +1209,6 @@ public class WorkflowExecutor {
 				task.getStartTime());
 		}
 
-		result.getLogs().forEach(tl -> tl.setTaskId(task.getTaskId()));
-		edao.addTaskExecLog(result.getLogs());
-
 		switch (task.getStatus()) {
 
 			case COMPLETED:
@@ -1131,18 +1237,6 @@ public class WorkflowExecutor {
 			default:
 				break;
 		}
-
-		// Exit if resetStartTime was requested as decider won't do any actions
-		if (result.isResetStartTime()) {
-			return;
-		}
-
-		// Who calls decider ? Sweeper or current thread?
-		if (lazyDecider) {
-			wakeUpSweeper(workflowId);
-		} else {
-			decide(workflowId);
-		}
 	}
 
 	private void wakeUpSweeper(String workflowId) {
@@ -1177,6 +1271,10 @@ public class WorkflowExecutor {
 		return edao.getPendingSystemTasks(taskType);
 	}
 
+	public List<Task> getPendingTasksByInput(String taskType, Map<String, Object> input) throws Exception {
+		return edao.getPendingTasksByInput(taskType, input);
+	}
+
 	public List<Task> getPendingTasksByTags(String taskType, Set<String> tags) throws Exception {
 		return edao.getPendingTasksByTags(taskType, tags);
 	}
@@ -1215,6 +1313,22 @@ public class WorkflowExecutor {
 			return Pair.of(false, config.getSweepFrequency());
 		}
 
+		return decide(workflow);
+	}
+
+	/**
+	 *
+	 * @param workflow Workflow loaded with the tasks to evaluate the state for
+	 * @return true if the workflow has completed (success or failed), false otherwise.
+	 * @throws Exception If there was an error - caller should retry in this case.
+	 */
+	public Pair<Boolean, Integer> decide(Workflow workflow) throws Exception {
+		// The writes of the decide including the nested ones are stored together where supported
+		return UnitOfWork.run("decide", () -> decideWorkflow(workflow));
+	}
+
+	private Pair<Boolean, Integer> decideWorkflow(Workflow workflow) throws Exception {
+		String workflowId = workflow.getWorkflowId();
 		if (workflow.getStatus().isTerminal()) {
 			logger.debug("Invoked decide for finished workflow " + workflowId);
 			return Pair.of(true, config.getSweepFrequency());
@@ -1222,6 +1336,9 @@ public class WorkflowExecutor {
 
 		WorkflowDef def = metadata.get(workflow.getWorkflowType(), workflow.getVersion());
 		int sweepFrequency = def.getSweepFrequency() != null && def.getSweepFrequency() > 0 ? def.getSweepFrequency() : config.getSweepFrequency();
+		if (inMemoryDecider) {
+			return decideInMemory(workflow, def, sweepFrequency);
+		}
 		try {
 			DeciderOutcome outcome = decider.decide(workflow, def);
 			if(outcome.isComplete) {
@@ -1279,6 +1396,126 @@ public class WorkflowExecutor {
 		return Pair.of(false, sweepFrequency);
 	}
 
+	/**
+	 * Keeps running the decider against the already loaded workflow until sync system tasks stop changing its state,
+	 * instead of reloading the workflow and its definition for every change.
+	 * The updated tasks and the workflow are stored once at the end in a single transaction, or before rethrowing
+	 * when a later iteration fails.
+	 */
+	private Pair<Boolean, Integer> decideInMemory(Workflow workflow, WorkflowDef def, int sweepFrequency) throws Exception {
+		Map<String, Task> tasksToBeUpdated = new LinkedHashMap<>();
+		boolean workflowChanged = false;
+		boolean reload = false;
+		boolean storing = false;
+		int iterations = 0;
+		try {
+			boolean stateChanged = true;
+			while (stateChanged) {
+				iterations++;
+				DeciderOutcome outcome = decider.decide(workflow, def);
+				if (outcome.isComplete) {
+					storing = true;
+					storeDecide(workflow, tasksToBeUpdated.values(), workflowChanged);
+					completeWorkflow(workflow);
+					return Pair.of(true, sweepFrequency);
+				}
+
+				List<Task> tasksToBeScheduled = outcome.tasksToBeScheduled;
+				setTaskDomains(tasksToBeScheduled, workflow);
+				stateChanged = false;
+
+				// Pending system tasks come back from the decider, the list must not get them twice
+				Set<String> knownIds = workflow.getTasks().stream().map(Task::getTaskId).collect(Collectors.toSet());
+				List<Task> newTasks = tasksToBeScheduled.stream()
+					.filter(task -> !knownIds.contains(task.getTaskId()))
+					.collect(Collectors.toList());
+				workflow.getTasks().addAll(newTasks);
+
+				for (Task task : tasksToBeScheduled) {
+					if (SystemTaskType.is(task.getTaskType()) && !task.getStatus().isTerminal()) {
+						WorkflowSystemTask stt = WorkflowSystemTask.get(task.getTaskType());
+						if (!stt.isAsync() && stt.execute(workflow, task, this)) {
+							outcome.tasksToBeUpdated.add(task);
+							stateChanged = true;
+						}
+					}
+				}
+				for (Task task : outcome.tasksToBeDeleted) {
+					edao.removeTask(task);
+					workflow.getTasks().remove(task);
+					tasksToBeUpdated.remove(task.getTaskId());
+				}
+
+				List<Task> created = new LinkedList<>();
+				stateChanged = scheduleTask(workflow, tasksToBeScheduled, created) || stateChanged;
+
+				outcome.tasksToBeUpdated.forEach(task -> tasksToBeUpdated.put(task.getTaskId(), task));
+				workflowChanged = workflowChanged || !outcome.tasksToBeUpdated.isEmpty() || !tasksToBeScheduled.isEmpty();
+
+				// Somebody else has scheduled some of them meanwhile, the in-memory state is stale
+				newTasks.removeAll(created);
+				if (!newTasks.isEmpty()) {
+					workflow.getTasks().removeAll(newTasks);
+					reload = stateChanged;
+					break;
+				}
+			}
+
+			storing = true;
+			storeDecide(workflow, tasksToBeUpdated.values(), workflowChanged);
+			if (workflowChanged) {
+				queue.push(deciderQueue, workflow.getWorkflowId(), sweepFrequency);
+			}
+		} catch (TerminateWorkflow tw) {
+			String message = "Error in workflow execution: " + tw.getMessage()
+					+ ",workflowId=" + workflow.getWorkflowId() + ",correlationId=" + workflow.getCorrelationId()
+					+ ",traceId=" + workflow.getTraceId() + ",contextUser=" + workflow.getContextUser()
+					+ ",clientId=" + workflow.getClientId();
+			if (tw.task != null) {
+				message += ",taskId=" + tw.task.getTaskId() + ",taskRefName=" + tw.task.getReferenceTaskName();
+			}
+			if (WorkflowStatus.FAILED.equals(tw.workflowStatus) || WorkflowStatus.TERMINATED.equals(tw.workflowStatus)) {
+				logger.error(message, tw);
+			} else {
+				logger.debug(message, tw);
+			}
+			storeDecide(workflow, tasksToBeUpdated.values(), false);
+			terminate(def, workflow, tw);
+			return Pair.of(true, sweepFrequency);
+		} catch (Exception ex) {
+			// The tasks scheduled by the earlier iterations are stored already, their results must not get lost.
+			// Not when the store itself (or what followed it) failed - the writes must not be repeated
+			if (!storing && (workflowChanged || !tasksToBeUpdated.isEmpty())) {
+				try {
+					storeDecide(workflow, tasksToBeUpdated.values(), workflowChanged);
+					queue.push(deciderQueue, workflow.getWorkflowId(), sweepFrequency);
+				} catch (Exception storeEx) {
+					ex.addSuppressed(storeEx);
+				}
+			}
+			throw ex;
+		} finally {
+			// Each extra iteration is one reload/store round trip the recursive decide would have done
+			if (iterations > 1) {
+				MetricService.getInstance().workflowDecideIterationsSaved(workflow.getWorkflowType(), iterations - 1);
+			}
+		}
+
+		if (reload) {
+			return decide(workflow.getWorkflowId());
+		}
+		return Pair.of(false, sweepFrequency);
+	}
+
+	private void storeDecide(Workflow workflow, Collection<Task> tasks, boolean workflowChanged) {
+		if (workflowChanged) {
+			edao.updateWorkflowAndTasks(workflow, new ArrayList<>(tasks));
+		} else if (!tasks.isEmpty()) {
+			edao.updateTasks(new ArrayList<>(tasks));
+		}
+		tasks.clear();
+	}
+
 	public void pauseWorkflow(String workflowId,String correlationId) throws Exception {
 		WorkflowStatus status = WorkflowStatus.PAUSED;
 		Workflow workflow = edao.getWorkflow(workflowId, false);
@@ -1434,16 +1671,19 @@ public class WorkflowExecutor {
 
 			if (task.getStatus().equals(Status.SCHEDULED)) {
 
-				if (edao.exceedsInProgressLimit(task)) {
+				// The in progress check leases the permit, so it goes last - a task rejected by the frequency limit must not hold it
+				if (edao.exceedsRateLimitPerFrequency(task)) {
 					MetricService.getInstance().taskRateLimited(task.getTaskType(), task.getReferenceTaskName());
-					logger.debug("Concurrent Execution limited for {}:{}", taskId, task.getTaskDefName());
+					logger.debug("RateLimit Execution limited for {}:{}", taskId, task.getTaskDefName());
 					queue.setUnackTimeout(QueueUtils.getQueueName(task), task.getTaskId(), systemTask.getRetryTimeInSecond() * 1000L);
 					return;
 				}
 
-				if (edao.exceedsRateLimitPerFrequency(task)) {
+				if (edao.exceedsInProgressLimit(task)) {
+					// The task does not run now, the frequency token it took goes back
+					edao.releaseRateLimitPerFrequency(task);
 					MetricService.getInstance().taskRateLimited(task.getTaskType(), task.getReferenceTaskName());
-					logger.debug("RateLimit Execution limited for {}:{}", taskId, task.getTaskDefName());
+					logger.debug("Concurrent Execution limited for {}:{}", taskId, task.getTaskDefName());
 					queue.setUnackTimeout(QueueUtils.getQueueName(task), task.getTaskId(), systemTask.getRetryTimeInSecond() * 1000L);
 					return;
 				}
@@ -1474,9 +1714,11 @@ public class WorkflowExecutor {
 
 			edao.updateTask(task);
 
+			boolean started = false;
 			switch (task.getStatus()) {
 
 				case SCHEDULED:
+					started = true;
 					try {
 						taskStatusListener.onTaskStarted(task);
 						systemTask.start(workflow, task, this);
@@ -1499,6 +1741,9 @@ public class WorkflowExecutor {
 			}
 
 			updateTask(new TaskResult(task));
+			if (started) {
+				systemTask.onStarted(workflow, task, this);
+			}
 			logger.debug("Done Executing {}/{}-{} for workflowId={},correlationId={},traceId={},contextUser={},clientId={}",
 				task.getTaskType(), task.getTaskId(), task.getStatus(), workflow.getWorkflowId(), workflow.getCorrelationId(),
 				workflow.getTraceId(), workflow.getContextUser(), workflow.getClientId());
@@ -1570,6 +1815,10 @@ public class WorkflowExecutor {
 
 	@VisibleForTesting
 	boolean scheduleTask(Workflow workflow, List<Task> tasks) throws Exception {
+		return scheduleTask(workflow, tasks, new LinkedList<>());
+	}
+
+	private boolean scheduleTask(Workflow workflow, List<Task> tasks, List<Task> created) throws Exception {
 
 		if (tasks == null || tasks.isEmpty()) {
 			return false;
@@ -1580,7 +1829,7 @@ public class WorkflowExecutor {
 			task.setSeq(++count);
 		}
 
-		List<Task> created = edao.createTasks(tasks);
+		created.addAll(edao.createTasks(tasks));
 		List<Task> createdSystemTasks = created.stream().filter(task -> SystemTaskType.is(task.getTaskType())).collect(Collectors.toList());
 		List<Task> toBeQueued = created.stream().filter(task -> !SystemTaskType.is(task.getTaskType())).collect(Collectors.toList());
 
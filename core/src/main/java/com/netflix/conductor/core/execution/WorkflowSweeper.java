@@ -18,18 +18,22 @@
  */
 package com.netflix.conductor.core.execution;
 
+import com.netflix.conductor.common.run.Workflow;
 import com.netflix.conductor.core.WorkflowContext;
 import com.netflix.conductor.core.config.Configuration;
 import com.netflix.conductor.core.execution.ApplicationException.Code;
 import com.netflix.conductor.dao.QueueDAO;
+import com.netflix.conductor.service.MetricService;
 import org.apache.log4j.NDC;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.*;
 import org.apache.commons.lang3.tuple.Pair;
@@ -50,6 +54,7 @@ public class WorkflowSweeper {
     private int executorThreadPoolSize;
     private long sweeperFrequency;
     private int poolTimeout;
+    private boolean batchEnabled;
 
     private static final String className = WorkflowSweeper.class.getSimpleName();
 
@@ -60,6 +65,7 @@ public class WorkflowSweeper {
         this.executorThreadPoolSize = config.getIntProperty("workflow.sweeper.thread.count", 5);
         this.sweeperFrequency = config.getIntProperty("workflow.sweeper.frequency", 500);
         this.poolTimeout = config.getIntProperty("workflow.sweeper.pool.timeout", 2000);
+        this.batchEnabled = Boolean.parseBoolean(config.getProperty("workflow.sweeper.batch.enabled", "false"));
         if (this.executorThreadPoolSize > 0) {
             this.es = Executors.newFixedThreadPool(executorThreadPoolSize);
             init(executor);
@@ -80,7 +86,11 @@ public class WorkflowSweeper {
         deciderPool.scheduleWithFixedDelay(() -> {
             try {
                 List<String> workflowIds = queues.pop(WorkflowExecutor.deciderQueue, 2 * executorThreadPoolSize, poolTimeout);
-                sweep(workflowIds, executor);
+                if (batchEnabled) {
+                    sweepBatch(workflowIds, executor);
+                } else {
+                    sweep(workflowIds, executor);
+                }
             } catch (Throwable e) {
                 logger.debug("Workflow sweep failed " + e.getMessage(), e);
             }
@@ -157,4 +167,91 @@ public class WorkflowSweeper {
 
     }
 
+    /**
+     * Same as {@link #sweep} but the popped workflows are marked in the sweeper queue by one bulk operation.
+     * <p>
+     * Every worker loads its workflow right before the decide, so an update stored while the batch waits for
+     * the pool is decided on. Its sweeper queue entry is removed and its unack timeout applied right after
+     * the decide, a wakeup skipped while the entry exists would otherwise be missed until the next sweep.
+     */
+    public void sweepBatch(List<String> workflowIds, WorkflowExecutor executor) throws Exception {
+        if (workflowIds.isEmpty()) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        queues.pushAll(WorkflowExecutor.sweeperQueue, workflowIds, 0);
+        Set<String> marked = ConcurrentHashMap.newKeySet();
+        marked.addAll(workflowIds);
+        try {
+            long pushed = System.currentTimeMillis();
+
+            List<Future<?>> futures = new LinkedList<>();
+            for (String workflowId : workflowIds) {
+                Future<?> future = es.submit(() -> {
+
+                    NDC.push("sweep-" + UUID.randomUUID().toString());
+                    try {
+
+                        WorkflowContext ctx = new WorkflowContext(config.getAppId());
+                        WorkflowContext.set(ctx);
+                        if (logger.isDebugEnabled()) {
+                            logger.debug("Running batch sweeper for workflow {}", workflowId);
+                        }
+                        Pair<Boolean, Integer> result = decide(workflowId, executor);
+                        queues.remove(WorkflowExecutor.sweeperQueue, workflowId);
+                        marked.remove(workflowId);
+
+                        if (!result.getLeft()) {
+                            if (logger.isDebugEnabled()) {
+                                logger.debug("Setting unack timeout {} secs for workflow {}", result.getRight(), workflowId);
+                            }
+                            queues.setUnackTimeout(WorkflowExecutor.deciderQueue, workflowId, result.getRight() * 1000);
+                        } else {
+                            if (logger.isDebugEnabled()) {
+                                logger.debug("Marking workflow as completed {}", workflowId);
+                            }
+                            queues.remove(WorkflowExecutor.deciderQueue, workflowId);
+                        }
+
+                    } catch (ApplicationException e) {
+                        if (e.getCode().equals(Code.NOT_FOUND)) {
+                            logger.debug("Workflow NOT found for id: " + workflowId, e);
+                            queues.remove(WorkflowExecutor.deciderQueue, workflowId);
+                        }
+                    } catch (Exception e) {
+                        logger.debug("Error running sweep for " + workflowId, e);
+                    } finally {
+                        if (marked.remove(workflowId)) {
+                            queues.remove(WorkflowExecutor.sweeperQueue, workflowId);
+                        }
+                        NDC.remove();
+                    }
+                });
+                futures.add(future);
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            long decided = System.currentTimeMillis();
+
+            MetricService.getInstance().sweepBatch(workflowIds.size(), pushed - start, decided - pushed);
+        } finally {
+            // The workers which did not get to run
+            if (!marked.isEmpty()) {
+                queues.removeAll(WorkflowExecutor.sweeperQueue, new ArrayList<>(marked));
+            }
+        }
+    }
+
+    private Pair<Boolean, Integer> decide(String workflowId, WorkflowExecutor executor) throws Exception {
+        Workflow workflow = executor.getWorkflow(workflowId, true);
+        if (workflow == null) {
+            logger.error("ONECOND-1106: getWorkflow() returned no workflow for: " + workflowId);
+            return Pair.of(false, config.getSweepFrequency());
+        }
+        return executor.decide(workflow);
+    }
+
 }
\ No newline at end of file
@@ -53,6 +53,16 @@ public class WorkflowSystemTask {
 		//Do nothing unless overridden by the task implementation
 	}
 	
+	/**
+	 * Called once the task state left by {@link #start} has been stored
+	 * @param workflow Workflow for which the task is being started
+	 * @param task Instance of the Task
+	 * @param executor Workflow Executor
+	 */
+	public void onStarted(Workflow workflow, Task task, WorkflowExecutor executor) {
+		//Do nothing unless overridden by the task implementation
+	}
+
 	/**
 	 * 
 	 * @param workflow Workflow for which the task is being started
@@ -0,0 +1,23 @@
+package com.netflix.conductor.core.utils;
+
+import com.netflix.conductor.common.metadata.tasks.TaskDef;
+
+/**
+ * Admission control for the tasks having {@link TaskDef#getRateLimitPerFrequency()} configured
+ */
+public interface RateLimiter {
+
+	/**
+	 * @param taskDef Task definition with rateLimitPerFrequency and rateLimitFrequencyInSeconds set
+	 * @return true if one more execution is allowed within the current frequency window. false otherwise
+	 */
+	boolean tryAcquire(TaskDef taskDef);
+
+	/**
+	 * Gives back a token taken by {@link #tryAcquire(TaskDef)} when the execution did not happen after all
+	 * (e.g. it was rejected by the concurrency limit afterwards)
+	 * @param taskDef Task definition the token was acquired for
+	 */
+	default void release(TaskDef taskDef) {
+	}
+}
@@ -0,0 +1,101 @@
+package com.netflix.conductor.core.utils;
+
+import com.netflix.conductor.common.metadata.tasks.TaskDef;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * In-process token bucket per task definition.
+ * The bucket holds up to rateLimitPerFrequency tokens and refills them evenly over rateLimitFrequencyInSeconds.
+ * Tokens are taken with a CAS on the immutable bucket state, so no locks are involved.
+ * <p>
+ * The limit applies per node. Use the cluster limiter of the persistence module to share it across nodes.
+ */
+public class TokenBucketRateLimiter implements RateLimiter {
+	private final Map<String, AtomicReference<Bucket>> buckets = new ConcurrentHashMap<>();
+	private final LongSupplier clock;
+
+	public TokenBucketRateLimiter() {
+		this(System::nanoTime);
+	}
+
+	TokenBucketRateLimiter(LongSupplier clock) {
+		this.clock = clock;
+	}
+
+	@Override
+	public boolean tryAcquire(TaskDef taskDef) {
+		int capacity = taskDef.getRateLimitPerFrequency();
+		long periodNanos = TimeUnit.SECONDS.toNanos(taskDef.getRateLimitFrequencyInSeconds());
+
+		AtomicReference<Bucket> ref = buckets.computeIfAbsent(taskDef.getName(),
+			name -> new AtomicReference<>(new Bucket(capacity, periodNanos, capacity, clock.getAsLong())));
+
+		while (true) {
+			Bucket current = ref.get();
+			long now = clock.getAsLong();
+
+			Bucket refilled;
+			if (current.capacity != capacity || current.periodNanos != periodNanos) {
+				// The task definition has been changed, start over with the new limits
+				refilled = new Bucket(capacity, periodNanos, capacity, now);
+			} else {
+				refilled = current.refill(now);
+			}
+
+			if (refilled.tokens < 1) {
+				return false;
+			}
+
+			Bucket taken = new Bucket(capacity, periodNanos, refilled.tokens - 1, refilled.refilledAt);
+			if (ref.compareAndSet(current, taken)) {
+				return true;
+			}
+		}
+	}
+
+	@Override
+	public void release(TaskDef taskDef) {
+		AtomicReference<Bucket> ref = buckets.get(taskDef.getName());
+		if (ref == null) {
+			return;
+		}
+
+		while (true) {
+			Bucket current = ref.get();
+			Bucket refilled = current.refill(clock.getAsLong());
+			Bucket released = new Bucket(current.capacity, current.periodNanos,
+				Math.min(current.capacity, refilled.tokens + 1), refilled.refilledAt);
+			if (ref.compareAndSet(current, released)) {
+				return;
+			}
+		}
+	}
+
+	private static class Bucket {
+		final int capacity;
+		final long periodNanos;
+		final double tokens;
+		final long refilledAt;
+
+		Bucket(int capacity, long periodNanos, double tokens, long refilledAt) {
+			this.capacity = capacity;
+			this.periodNanos = periodNanos;
+			this.tokens = tokens;
+			this.refilledAt = refilledAt;
+		}
+
+		Bucket refill(long now) {
+			long elapsed = now - refilledAt;
+			if (elapsed <= 0 || tokens >= capacity) {
+				return new Bucket(capacity, periodNanos, tokens, now);
+			}
+			double added = (double) elapsed * capacity / periodNanos;
+			return new Bucket(capacity, periodNanos, Math.min(capacity, tokens + added), now);
+		}
+	}
+}
@@ -29,6 +29,7 @@ import com.netflix.conductor.core.events.queue.Message;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -93,6 +94,14 @@ public interface ExecutionDAO {
 	default boolean exceedsRateLimitPerFrequency(Task task) {
 		return false;
 	}
+
+	/**
+	 * Gives back the rate limit taken by {@link #exceedsRateLimitPerFrequency(Task)} when the task did not run after all
+	 * @param task which passed the rate limit check but was not executed
+	 */
+	default void releaseRateLimitPerFrequency(Task task) {
+	}
+
 	/**
 	 * 
 	 * @param tasks Multiple tasks to be updated
@@ -148,6 +157,17 @@ public interface ExecutionDAO {
 		return Collections.emptyList();
 	}
 
+	/**
+	 *
+	 * @param taskType System task type name for which to retrieve the list of pending tasks
+	 * @param input Key/values the task input must contain
+	 * @return List of pending tasks which may match the input. The caller still has to compare the inputs
+	 *
+	 */
+	public default List<Task> getPendingTasksByInput(String taskType, Map<String, Object> input) {
+		return getPendingSystemTasks(taskType);
+	}
+
 	/**
 	 * 
 	 * @param workflowId Workflow instance id
@@ -172,6 +192,19 @@ public interface ExecutionDAO {
 	 */
 	public abstract String updateWorkflow(Workflow workflow);
 
+	/**
+	 *
+	 * @param workflow Workflow to be updated
+	 * @param tasks Tasks of the workflow to be updated together with it
+	 *
+	 */
+	public default void updateWorkflowAndTasks(Workflow workflow, List<Task> tasks) {
+		if (!tasks.isEmpty()) {
+			updateTasks(tasks);
+		}
+		updateWorkflow(workflow);
+	}
+
 	/**
 	 * 
 	 * @param workflowId workflow instance id
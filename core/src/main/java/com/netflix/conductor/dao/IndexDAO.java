@@ -21,6 +21,8 @@ import com.netflix.conductor.common.metadata.tasks.TaskExecLog;
 import com.netflix.conductor.common.run.SearchResult;
 import com.netflix.conductor.common.run.Workflow;
 import com.netflix.conductor.core.events.queue.Message;
+import com.netflix.conductor.core.execution.ApplicationException;
+import com.netflix.conductor.core.execution.ApplicationException.Code;
 
 import java.util.List;
 
@@ -54,6 +56,21 @@ public interface IndexDAO {
 	 */
 	public SearchResult<String> searchWorkflows(String query, String freeText, int start, int count, List<String> sort, String from, String end);
 
+	/**
+	 *
+	 * @param query SQL like query for workflow search parameters.
+	 * @param freeText	Additional query in free text.  Lucene syntax
+	 * @param searchAfter	id of the last workflow of the previous page, keyset pagination.
+	 *                     An id which does not exist (e.g. the workflow was removed) gives an empty page
+	 * @param count	count # of workflow ids to be returned
+	 * @param sort sort options
+	 * @return List of workflow ids for the matching query
+	 * @throws ApplicationException INVALID_INPUT if the index does not support keyset pagination
+	 */
+	public default SearchResult<String> searchWorkflowsAfter(String query, String freeText, String searchAfter, int count, List<String> sort, String from, String end) {
+		throw new ApplicationException(Code.INVALID_INPUT, "searchAfter is not supported by the index, use start instead");
+	}
+
 	/**
 	 * Remove the workflow index
 	 * @param workflowId workflow to be removed
@@ -32,4 +32,11 @@ public interface MetricsDAO {
 
 	default List<String> getStuckChecksums(Long startTime, Long endTime) {return new ArrayList<>();}
 
+	/**
+	 * @param count Number of the statements to return
+	 * @param orderBy Time to order by: total, mean, p50, p99 or max
+	 * @return The slowest statements of the persistence with their latency and row counts, if it tracks them
+	 */
+	default List<Map<String, Object>> getSlowStatements(int count, String orderBy) {return new ArrayList<>();}
+
 }
@@ -42,6 +42,16 @@ public interface QueueDAO {
 	 */
 	public void push(String queueName, List<Message> messages);
 
+	/**
+	 *
+	 * @param queueName Name of the queue
+	 * @param ids message ids
+	 * @param offsetTimeInSecond time in seconds, after which the messages should be marked visible.  (for timed queues)
+	 */
+	public default void pushAll(String queueName, List<String> ids, long offsetTimeInSecond) {
+		ids.forEach(id -> push(queueName, id, offsetTimeInSecond));
+	}
+
 	/**
 	 *
 	 * @param queueName Name of the queue
@@ -77,6 +87,15 @@ public interface QueueDAO {
 	 */
 	public void remove(String queueName, String messageId);
 
+	/**
+	 *
+	 * @param queueName Name of the queue
+	 * @param messageIds Message ids
+	 */
+	public default void removeAll(String queueName, List<String> messageIds) {
+		messageIds.forEach(messageId -> remove(queueName, messageId));
+	}
+
 	/**
 	 *
 	 * @param queueName Name of the queue
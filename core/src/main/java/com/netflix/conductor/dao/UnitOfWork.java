@@ -0,0 +1,32 @@
+package com.netflix.conductor.dao;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Scope of the DAO calls made by the current thread for one decide or task update.
+ * <p>
+ * A persistence supporting it registers its {@link Scope} and then stores the writes of the whole unit together
+ * (e.g. in one transaction). Without a registered scope the work just runs. Nested units join the outer one.
+ */
+public final class UnitOfWork {
+	private static volatile Scope scope;
+
+	private UnitOfWork() {
+	}
+
+	public interface Scope {
+		<T> T run(String name, Callable<T> work) throws Exception;
+	}
+
+	public static void register(Scope scope) {
+		UnitOfWork.scope = scope;
+	}
+
+	public static <T> T run(String name, Callable<T> work) throws Exception {
+		Scope current = scope;
+		if (current == null) {
+			return work.call();
+		}
+		return current.run(name, work);
+	}
+}
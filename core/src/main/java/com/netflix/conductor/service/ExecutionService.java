@@ -179,6 +179,13 @@ public class ExecutionService {
 		executor.updateTask(task);
 	}
 
+	/**
+	 * @return Task id to the error of the results which could not be applied
+	 */
+	public Map<String, String> updateTasks(List<TaskResult> results) throws Exception {
+		return executor.updateTasks(results);
+	}
+
 	public List<Task> getTasks(String taskType, String startKey, int count) throws Exception {
 		return executor.getTasks(taskType, startKey, count);
 	}
@@ -196,17 +203,35 @@ public class ExecutionService {
 		String queueName = QueueUtils.getQueueName(task);
 
 		if (task != null) {
-			if (task.getResponseTimeoutSeconds() > 0) {
-				logger.debug("Adding task " + queueName + "/" + taskId + " to be requeued if no response received " + task.getResponseTimeoutSeconds());
-				return queue.setUnackTimeout(queueName, task.getTaskId(), 1000 * task.getResponseTimeoutSeconds());        //Value is in millisecond
-			} else {
-				return queue.ack(queueName, taskId);
-			}
+			return ack(queueName, task);
 		}
 		return false;
 
 	}
 
+	/**
+	 * Acks several tasks with one task lookup
+	 *
+	 * @return Task id to the ack result, false for the tasks not found
+	 */
+	public Map<String, Boolean> ackTasksReceived(List<String> taskIds, String consumerId) throws Exception {
+		Map<String, Boolean> result = new HashMap<>();
+		taskIds.forEach(taskId -> result.put(taskId, false));
+		for (Task task : edao.getTasks(taskIds)) {
+			result.put(task.getTaskId(), ack(QueueUtils.getQueueName(task), task));
+		}
+		return result;
+	}
+
+	private boolean ack(String queueName, Task task) {
+		if (task.getResponseTimeoutSeconds() > 0) {
+			logger.debug("Adding task " + queueName + "/" + task.getTaskId() + " to be requeued if no response received " + task.getResponseTimeoutSeconds());
+			return queue.setUnackTimeout(queueName, task.getTaskId(), 1000 * task.getResponseTimeoutSeconds());        //Value is in millisecond
+		} else {
+			return queue.ack(queueName, task.getTaskId());
+		}
+	}
+
 	public Map<String, Integer> getTaskQueueSizes(List<String> taskDefNames) {
 		Map<String, Integer> sizes = new HashMap<String, Integer>();
 		for (String taskDefName : taskDefNames) {
@@ -330,6 +355,15 @@ public class ExecutionService {
 	public SearchResult<WorkflowSummary> search(String query, String freeText, int start, int size, List<String> sortOptions, String from, String end) {
 
 		SearchResult<String> result = indexer.searchWorkflows(query, freeText, start, size, sortOptions, from, end);
+		return toSummaries(result);
+	}
+
+	public SearchResult<WorkflowSummary> searchAfter(String query, String freeText, String searchAfter, int size, List<String> sortOptions, String from, String end) {
+		SearchResult<String> result = indexer.searchWorkflowsAfter(query, freeText, searchAfter, size, sortOptions, from, end);
+		return toSummaries(result);
+	}
+
+	private SearchResult<WorkflowSummary> toSummaries(SearchResult<String> result) {
 		List<WorkflowSummary> workflows = result.getResults().stream().parallel().map(workflowId -> {
 			try {
 				Workflow workflow = edao.getWorkflow(workflowId, false);
@@ -117,6 +117,20 @@ public class MetricService {
 		statsd.incrementCounter(aspect, toArray(tags));
 	}
 
+	public void taskRateLimitThrottled(String taskDefName) {
+		Set<String> tags = new HashSet<>();
+		tags.add("metric:deluxe.conductor.task.rate.limit.throttled");
+		tags.add("task_def:" + taskDefName);
+		statsd.incrementCounter(aspect, toArray(tags));
+	}
+
+	public void taskRateLimitAllowed(String taskDefName) {
+		Set<String> tags = new HashSet<>();
+		tags.add("metric:deluxe.conductor.task.rate.limit.allowed");
+		tags.add("task_def:" + taskDefName);
+		statsd.incrementCounter(aspect, toArray(tags));
+	}
+
 	public void taskComplete(String taskType, String refName, String status, long startTime) {
 		Set<String> tagsCounter = new HashSet<>();
 		tagsCounter.add("metric:deluxe.conductor.task.complete");
@@ -325,6 +339,174 @@ public class MetricService {
 		statsd.recordExecutionTime(aspect, execTime, toArray(tagsTime));
 	}
 
+	public void workflowDecideIterationsSaved(String name, int count) {
+		Set<String> tags = new HashSet<>();
+		tags.add("metric:deluxe.conductor.workflow.decide.iterations.saved");
+		tags.add("workflow:" + name);
+		statsd.count(aspect, count, toArray(tags));
+	}
+
+	public void workflowDefCacheHit(String name) {
+		Set<String> tags = new HashSet<>();
+		tags.add("metric:deluxe.conductor.workflowdef.cache.hit");
+		tags.add("workflow:" + name);
+		statsd.incrementCounter(aspect, toArray(tags));
+	}
+
+	public void workflowDefCacheMiss(String name) {
+		Set<String> tags = new HashSet<>();
+		tags.add("metric:deluxe.conductor.workflowdef.cache.miss");
+		tags.add("workflow:" + name);
+		statsd.incrementCounter(aspect, toArray(tags));
+	}
+
+	public void sweepBatch(int size, long markTime, long decideTime) {
+		Set<String> tagsCounter = new HashSet<>();
+		tagsCounter.add("metric:deluxe.conductor.sweep.batch.size");
+		statsd.count(aspect, size, toArray(tagsCounter));
+
+		sweepPhase("mark", markTime);
+		sweepPhase("decide", decideTime);
+	}
+
+	private void sweepPhase(String phase, long execTime) {
+		Set<String> tagsTime = new HashSet<>();
+		tagsTime.add("metric:deluxe.conductor.sweep.batch.time");
+		tagsTime.add("phase:" + phase);
+		statsd.recordExecutionTime(aspect, execTime, toArray(tagsTime));
+	}
+
+	public void unitOfWork(String name, int statements, int roundTrips, long time) {
+		Set<String> tagsStatements = new HashSet<>();
+		tagsStatements.add("metric:deluxe.conductor.unit.of.work.statements");
+		tagsStatements.add("unit:" + name);
+		statsd.count(aspect, statements, toArray(tagsStatements));
+
+		Set<String> tagsRoundTrips = new HashSet<>();
+		tagsRoundTrips.add("metric:deluxe.conductor.unit.of.work.round.trips");
+		tagsRoundTrips.add("unit:" + name);
+		statsd.count(aspect, roundTrips, toArray(tagsRoundTrips));
+
+		Set<String> tagsTime = new HashSet<>();
+		tagsTime.add("metric:deluxe.conductor.unit.of.work.time");
+		tagsTime.add("unit:" + name);
+		statsd.recordExecutionTime(aspect, time, toArray(tagsTime));
+	}
+
+	public void auroraStatement(String statement, long count, long rows, long meanTime, long p99Time) {
+		Set<String> tagsCounter = new HashSet<>();
+		tagsCounter.add("metric:deluxe.conductor.aurora.statement.count");
+		tagsCounter.add("statement:" + statement);
+		statsd.count(aspect, count, toArray(tagsCounter));
+
+		Set<String> tagsRows = new HashSet<>();
+		tagsRows.add("metric:deluxe.conductor.aurora.statement.rows");
+		tagsRows.add("statement:" + statement);
+		statsd.count(aspect, rows, toArray(tagsRows));
+
+		Set<String> tagsMean = new HashSet<>();
+		tagsMean.add("metric:deluxe.conductor.aurora.statement.time.mean");
+		tagsMean.add("statement:" + statement);
+		statsd.recordExecutionTime(aspect, meanTime, toArray(tagsMean));
+
+		Set<String> tagsP99 = new HashSet<>();
+		tagsP99.add("metric:deluxe.conductor.aurora.statement.time.p99");
+		tagsP99.add("statement:" + statement);
+		statsd.recordExecutionTime(aspect, p99Time, toArray(tagsP99));
+	}
+
+	public void auroraConnectionAcquire(long count, long meanTime, long maxTime) {
+		Set<String> tagsCounter = new HashSet<>();
+		tagsCounter.add("metric:deluxe.conductor.aurora.connection.acquire.count");
+		statsd.count(aspect, count, toArray(tagsCounter));
+
+		Set<String> tagsMean = new HashSet<>();
+		tagsMean.add("metric:deluxe.conductor.aurora.connection.acquire.time.mean");
+		statsd.recordExecutionTime(aspect, meanTime, toArray(tagsMean));
+
+		Set<String> tagsMax = new HashSet<>();
+		tagsMax.add("metric:deluxe.conductor.aurora.connection.acquire.time.max");
+		statsd.recordExecutionTime(aspect, maxTime, toArray(tagsMax));
+	}
+
+	public void logAppender(long dropped, int depth, int rows, long flushTime) {
+		Set<String> tagsDropped = new HashSet<>();
+		tagsDropped.add("metric:deluxe.conductor.log.appender.dropped");
+		statsd.count(aspect, dropped, toArray(tagsDropped));
+
+		Set<String> tagsDepth = new HashSet<>();
+		tagsDepth.add("metric:deluxe.conductor.log.appender.depth");
+		statsd.recordGaugeValue(aspect, depth, toArray(tagsDepth));
+
+		Set<String> tagsRows = new HashSet<>();
+		tagsRows.add("metric:deluxe.conductor.log.appender.rows");
+		statsd.count(aspect, rows, toArray(tagsRows));
+
+		Set<String> tagsTime = new HashSet<>();
+		tagsTime.add("metric:deluxe.conductor.log.appender.flush.time");
+		statsd.recordExecutionTime(aspect, flushTime, toArray(tagsTime));
+	}
+
+	public void authTokenHit() {
+		Set<String> tags = new HashSet<>();
+		tags.add("metric:deluxe.conductor.auth.token.hit");
+		statsd.incrementCounter(aspect, toArray(tags));
+	}
+
+	public void authTokenFetch(boolean refresh, long time) {
+		Set<String> tagsCounter = new HashSet<>();
+		tagsCounter.add("metric:deluxe.conductor.auth.token.fetch");
+		tagsCounter.add("refresh:" + refresh);
+		statsd.incrementCounter(aspect, toArray(tagsCounter));
+
+		Set<String> tagsTime = new HashSet<>();
+		tagsTime.add("metric:deluxe.conductor.auth.token.fetch.time");
+		tagsTime.add("refresh:" + refresh);
+		statsd.recordExecutionTime(aspect, time, toArray(tagsTime));
+	}
+
+	public void httpPoolLease(String host, long waitTime) {
+		Set<String> tagsTime = new HashSet<>();
+		tagsTime.add("metric:deluxe.conductor.http.pool.lease.time");
+		tagsTime.add("host:" + host);
+		statsd.recordExecutionTime(aspect, waitTime, toArray(tagsTime));
+	}
+
+	public void httpPoolGauge(int leased, int pending, int available) {
+		Set<String> tagsLeased = new HashSet<>();
+		tagsLeased.add("metric:deluxe.conductor.http.pool.leased");
+		statsd.recordGaugeValue(aspect, leased, toArray(tagsLeased));
+
+		Set<String> tagsPending = new HashSet<>();
+		tagsPending.add("metric:deluxe.conductor.http.pool.pending");
+		statsd.recordGaugeValue(aspect, pending, toArray(tagsPending));
+
+		Set<String> tagsAvailable = new HashSet<>();
+		tagsAvailable.add("metric:deluxe.conductor.http.pool.available");
+		statsd.recordGaugeValue(aspect, available, toArray(tagsAvailable));
+	}
+
+	public void httpAsyncInFlight(String taskDefName, int inFlight) {
+		Set<String> tagsGauge = new HashSet<>();
+		tagsGauge.add("metric:deluxe.conductor.http.async.inflight");
+		tagsGauge.add("task_def:" + taskDefName);
+		statsd.recordGaugeValue(aspect, inFlight, toArray(tagsGauge));
+	}
+
+	public void httpAsyncLatency(String taskDefName, long time) {
+		Set<String> tagsTime = new HashSet<>();
+		tagsTime.add("metric:deluxe.conductor.http.async.time");
+		tagsTime.add("task_def:" + taskDefName);
+		statsd.recordExecutionTime(aspect, time, toArray(tagsTime));
+	}
+
+	public void httpAsyncOverflow(String taskDefName) {
+		Set<String> tagsCounter = new HashSet<>();
+		tagsCounter.add("metric:deluxe.conductor.http.async.overflow");
+		tagsCounter.add("task_def:" + taskDefName);
+		statsd.incrementCounter(aspect, toArray(tagsCounter));
+	}
+
 	public void queueGauge(String queue, Long count) {
 		Set<String> tagsCounter = new HashSet<>();
 		tagsCounter.add("metric:deluxe.conductor.queue.count");
@@ -20,9 +20,18 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.mock;
@@ -30,6 +39,8 @@ import static org.mockito.Mockito.when;
 
 public class TestAuthManager {
 	private static Server server;
+	// The token requests received per uri
+	private static final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
 	private Configuration config = mock(Configuration.class);
 	private Workflow workflow = mock(Workflow.class);
 	private ObjectMapper om = new ObjectMapper();
@@ -47,6 +58,8 @@ public class TestAuthManager {
 		when(config.getProperty("conductor.auth.url", null)).thenReturn("http://localhost:7010/auth/success");
 		when(config.getProperty("conductor.auth.clientId", null)).thenReturn("clientId");
 		when(config.getProperty("conductor.auth.clientSecret", null)).thenReturn("clientSecret");
+		when(config.getIntProperty("conductor.auth.token.refresh.seconds", 60)).thenReturn(60);
+		requests.clear();
 	}
 
 	@Test
@@ -157,6 +170,83 @@ public class TestAuthManager {
 		}
 	}
 
+	@Test
+	public void reuse_until_exp() throws Exception {
+		when(config.getProperty("conductor.auth.url", null)).thenReturn("http://localhost:7010/auth/valid");
+		AuthManager manager = new AuthManager(config);
+
+		AuthResponse first = manager.authorize(workflow);
+		AuthResponse second = manager.authorize(workflow);
+		assertEquals(first.getAccessToken(), second.getAccessToken());
+		assertEquals(1, requests("/auth/valid"));
+	}
+
+	@Test
+	public void background_refresh() throws Exception {
+		// Expires within the refresh seconds, so every hit refreshes it in the background
+		when(config.getProperty("conductor.auth.url", null)).thenReturn("http://localhost:7010/auth/expiring");
+		AuthManager manager = new AuthManager(config);
+
+		AuthResponse first = manager.authorize(workflow);
+		assertEquals(1, requests("/auth/expiring"));
+
+		// Still valid, returned right away while the new one is fetched
+		assertEquals(first.getAccessToken(), manager.authorize(workflow).getAccessToken());
+
+		String refreshed = first.getAccessToken();
+		long until = System.currentTimeMillis() + 5000;
+		while (refreshed.equals(first.getAccessToken()) && System.currentTimeMillis() < until) {
+			Thread.sleep(10);
+			refreshed = manager.authorize(workflow).getAccessToken();
+		}
+		assertFalse(first.getAccessToken().equals(refreshed));
+		assertEquals(2, manager.decode(refreshed).get("n"));
+	}
+
+	@Test
+	public void no_error_caching() throws Exception {
+		when(config.getProperty("conductor.auth.url", null)).thenReturn("http://localhost:7010/auth/error");
+		AuthManager manager = new AuthManager(config);
+
+		assertEquals("invalid_request", manager.authorize(workflow).getError());
+		assertEquals("invalid_request", manager.authorize(workflow).getError());
+		assertEquals(2, requests("/auth/error"));
+	}
+
+	@Test
+	public void concurrent_single_fetch() throws Exception {
+		when(config.getProperty("conductor.auth.url", null)).thenReturn("http://localhost:7010/auth/slow");
+		AuthManager manager = new AuthManager(config);
+
+		int callers = 8;
+		ExecutorService executor = Executors.newFixedThreadPool(callers);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<AuthResponse>> responses = new ArrayList<>();
+			for (int i = 0; i < callers; i++) {
+				responses.add(executor.submit(() -> {
+					start.await();
+					return manager.authorize(workflow);
+				}));
+			}
+			start.countDown();
+
+			String accessToken = responses.get(0).get(5, TimeUnit.SECONDS).getAccessToken();
+			assertNotNull(accessToken);
+			for (Future<AuthResponse> response : responses) {
+				assertEquals(accessToken, response.get(5, TimeUnit.SECONDS).getAccessToken());
+			}
+			assertEquals(1, requests("/auth/slow"));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static int requests(String uri) {
+		AtomicInteger count = requests.get(uri);
+		return count == null ? 0 : count.get();
+	}
+
 	private static class EchoHandler extends AbstractHandler {
 		private ObjectMapper om = new ObjectMapper();
 
@@ -167,7 +257,18 @@ public class TestAuthManager {
 				throws IOException {
 
 			if(request.getMethod().equals("POST")) {
-				if (request.getRequestURI().equals("/auth/success")) {
+				int n = requests.computeIfAbsent(request.getRequestURI(), uri -> new AtomicInteger()).incrementAndGet();
+				if (request.getRequestURI().equals("/auth/valid")) {
+					writeToken(response, TimeUnit.HOURS.toMillis(1), n);
+				} else if (request.getRequestURI().equals("/auth/expiring")) {
+					writeToken(response, TimeUnit.SECONDS.toMillis(30), n);
+				} else if (request.getRequestURI().equals("/auth/slow")) {
+					try {
+						Thread.sleep(200);
+					} catch (InterruptedException ignore) {
+					}
+					writeToken(response, TimeUnit.HOURS.toMillis(1), n);
+				} else if (request.getRequestURI().equals("/auth/success")) {
 					String accessToken = JWT.create()
 							.withClaim("access", "foo")
 							.sign(Algorithm.none());
@@ -211,5 +312,23 @@ public class TestAuthManager {
 				}
 			}
 		}
+
+		private void writeToken(HttpServletResponse response, long expiresIn, int n) throws IOException {
+			String accessToken = JWT.create()
+					.withClaim("exp", new Date(System.currentTimeMillis() + expiresIn))
+					.withClaim("n", n)
+					.sign(Algorithm.none());
+
+			AuthResponse auth = new AuthResponse();
+			auth.setAccessToken(accessToken);
+			String data = om.writeValueAsString(auth);
+
+			response.addHeader("Content-Type", "application/json; charset=utf-8");
+			response.addHeader("Content-Length", "" + data.length());
+			PrintWriter writer = response.getWriter();
+			writer.print(data);
+			writer.flush();
+			writer.close();
+		}
 	}
 }
@@ -327,7 +327,7 @@ public class TestActionProcessor {
 		workflow.getTasks().add(task);
 
 		WorkflowExecutor executor = mock(WorkflowExecutor.class);
-		when(executor.getPendingSystemTasks("WAIT")).thenReturn(Collections.singletonList(task));
+		when(executor.getPendingTasksByInput(eq("WAIT"), any())).thenReturn(Collections.singletonList(task));
 		when(executor.getWorkflow("1", false)).thenReturn(workflow);
 
 		MetadataService metadata = mock(MetadataService.class);
@@ -373,7 +373,7 @@ public class TestActionProcessor {
 		workflow.getTasks().add(task);
 
 		WorkflowExecutor executor = mock(WorkflowExecutor.class);
-		when(executor.getPendingSystemTasks("WAIT")).thenReturn(Collections.singletonList(task));
+		when(executor.getPendingTasksByInput(eq("WAIT"), any())).thenReturn(Collections.singletonList(task));
 		when(executor.getWorkflow("1", false)).thenReturn(workflow);
 
 		MetadataService metadata = mock(MetadataService.class);
@@ -0,0 +1,71 @@
+package com.netflix.conductor.core.events;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class TestParsedMessage {
+	private ObjectMapper om = new ObjectMapper();
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testParse() throws Exception {
+		ParsedMessage message = ParsedMessage.parse(om, "{\"data\":{\"id\":\"1\",\"tags\":[\"a\",\"b\"]}}");
+		assertTrue(message.isJson());
+		assertTrue(message.getDocument() instanceof Map);
+		assertSame(message.getTree(), ParsedMessage.treeOf(message.getDocument()));
+
+		assertEquals("1", ScriptEvaluator.evalJq(".data.id", message.getDocument()));
+		List<Object> tags = ScriptEvaluator.evalJqAsList(".data.tags[]", message.getDocument());
+		assertEquals(2, tags.size());
+
+		// The copy is detached from the shared document
+		Map<String, Object> copy = (Map<String, Object>) message.copyDocument(om);
+		assertNotSame(message.getDocument(), copy);
+		assertEquals(message.getDocument(), copy);
+		assertNull(ParsedMessage.treeOf(copy));
+		copy.put("other", 1);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testDocumentIsReadOnly() throws Exception {
+		ParsedMessage message = ParsedMessage.parse(om, "{\"data\":{\"id\":\"1\",\"tags\":[\"a\"]}}");
+		Map<String, Object> document = (Map<String, Object>) message.getDocument();
+		Map<String, Object> data = (Map<String, Object>) document.get("data");
+
+		try {
+			data.put("id", "2");
+			fail("Nested map must not be modifiable");
+		} catch (UnsupportedOperationException expected) {
+		}
+		try {
+			((List<Object>) data.get("tags")).add("b");
+			fail("Nested list must not be modifiable");
+		} catch (UnsupportedOperationException expected) {
+		}
+		try {
+			((Map<String, Object>) document.entrySet().iterator().next().getValue()).remove("id");
+			fail("Map reached through the entries must not be modifiable");
+		} catch (UnsupportedOperationException expected) {
+		}
+		assertEquals("1", ScriptEvaluator.evalJq(".data.id", document));
+		assertEquals(om.readValue("{\"data\":{\"id\":\"1\",\"tags\":[\"a\"]}}", Map.class), document);
+	}
+
+	@Test
+	public void testNotJson() throws Exception {
+		ParsedMessage message = ParsedMessage.parse(om, "not a json");
+		assertFalse(message.isJson());
+		assertEquals("not a json", message.getDocument());
+		assertNull(ParsedMessage.treeOf(message.getDocument()));
+
+		message = ParsedMessage.parse(om, null);
+		assertFalse(message.isJson());
+		assertNull(message.getDocument());
+	}
+}
@@ -20,8 +20,15 @@ package com.netflix.conductor.core.events;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.script.ScriptException;
 
 import org.junit.Test;
 
@@ -60,4 +67,41 @@ public class TestScriptEval {
 		assertTrue(ScriptEvaluator.evalBool("$.defaults.workflowStatus != undefined && $.defaults.workflowStatus == 'TERMINATED'", payload));
 
 	}
+
+	@Test
+	public void testConcurrentEval() throws Exception {
+		String script = "$.id % 2 == 0";
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Boolean>> futures = new ArrayList<>();
+			for (int i = 0; i < 1000; i++) {
+				Map<String, Object> payload = new HashMap<>();
+				payload.put("id", i);
+				futures.add(executor.submit(() -> ScriptEvaluator.evalBool(script, payload)));
+			}
+			for (int i = 0; i < futures.size(); i++) {
+				assertEquals(i % 2 == 0, futures.get(i).get());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testScriptsDoNotShareVariables() throws Exception {
+		Map<String, Object> payload = new HashMap<>();
+		payload.put("id", 1);
+
+		assertEquals(1, ((Number) ScriptEvaluator.eval("var leaked = $.id; leaked", payload)).intValue());
+		assertEquals(1, ((Number) ScriptEvaluator.eval("shared = $.id; shared", payload)).intValue());
+
+		// Same thread, the globals of the previous scripts must not be visible
+		assertEquals("undefined", ScriptEvaluator.eval("typeof leaked", payload));
+		assertEquals("undefined", ScriptEvaluator.eval("typeof shared", payload));
+	}
+
+	@Test(expected = ScriptException.class)
+	public void testSyntaxError() throws Exception {
+		ScriptEvaluator.evalBool("$.app.name ==", new HashMap<>());
+	}
 }
@@ -0,0 +1,65 @@
+package com.netflix.conductor.core.execution;
+
+import com.netflix.conductor.common.metadata.tasks.Task;
+import com.netflix.conductor.common.run.Workflow;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class TestInputContext {
+
+	private Task task(String taskId, String refName, Task.Status status) {
+		Task task = new Task();
+		task.setTaskId(taskId);
+		task.setReferenceTaskName(refName);
+		task.setStatus(status);
+		return task;
+	}
+
+	@Test
+	public void testInputMap() {
+		Task first = task("t1", "task1", Task.Status.FAILED);
+		Task retried = task("t2", "task1", Task.Status.IN_PROGRESS);
+		Task other = task("t3", "task2", Task.Status.COMPLETED);
+
+		Workflow workflow = new Workflow();
+		workflow.setWorkflowId("w1");
+		workflow.setCorrelationId("{\"orderId\":\"o1\"}");
+		workflow.setTasks(Arrays.asList(first, retried, other));
+
+		Map<String, Object> values = new HashMap<>();
+		values.put("key", "value");
+		Map<String, Map<String, Object>> defaults = Collections.singletonMap("defaults", values);
+
+		InputContext previous = InputContext.open(workflow);
+		try {
+			InputContext context = InputContext.of(workflow);
+			assertSame(context, InputContext.of(workflow));
+			assertNotSame(context, InputContext.of(new Workflow()));
+
+			Map<String, Map<String, Object>> inputMap = context.getInputMap(defaults, "T3", null);
+			assertEquals("w1", inputMap.get("workflow").get("workflowId"));
+			assertEquals(Collections.singletonMap("orderId", "o1"), inputMap.get("workflow").get("correlationMap"));
+			assertEquals(values, inputMap.get("defaults"));
+			assertEquals("t3", inputMap.get("task").get("taskId"));
+
+			// The last task with the reference name wins
+			assertEquals("t2", inputMap.get("task1").get("taskId"));
+			assertTrue(inputMap.containsKey("task2"));
+			assertFalse(inputMap.containsKey("task3"));
+			assertNull(inputMap.get("task3"));
+			assertEquals(5, inputMap.size());
+
+			// The task sections reflect the current task state
+			retried.setStatus(Task.Status.COMPLETED);
+			assertEquals("COMPLETED", context.getInputMap(null, null, null).get("task1").get("status"));
+		} finally {
+			InputContext.close(previous);
+		}
+	}
+}
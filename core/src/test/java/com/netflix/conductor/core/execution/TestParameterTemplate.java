@@ -0,0 +1,65 @@
+package com.netflix.conductor.core.execution;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class TestParameterTemplate {
+
+	private Map<String, Object> document() {
+		Map<String, Object> input = new HashMap<>();
+		input.put("requestId", "request id 001");
+		input.put("count", 5);
+
+		Map<String, Object> workflow = new HashMap<>();
+		workflow.put("input", input);
+
+		Map<String, Object> document = new HashMap<>();
+		document.put("workflow", workflow);
+		return document;
+	}
+
+	@Test
+	public void testExpressions() {
+		Map<String, Object> document = document();
+
+		assertEquals("plain", ParameterTemplate.evaluate("plain", document, null));
+		assertEquals(5, ParameterTemplate.evaluate("${workflow.input.count}", document, null));
+		assertNull(ParameterTemplate.evaluate("${workflow.input.missing}", document, null));
+		assertEquals("id=request id 001, count=5", ParameterTemplate.evaluate("id=${workflow.input.requestId}, count=${workflow.input.count}", document, null));
+		assertEquals("missing=", ParameterTemplate.evaluate("missing=${workflow.input.missing}", document, null));
+		assertEquals("a}b", ParameterTemplate.evaluate("a}b", document, null));
+		assertEquals("task-1", ParameterTemplate.evaluate("task-${CPEWF_TASK_ID}", document, "1"));
+		assertEquals("request id 001", ParameterTemplate.evaluate("$jq{.workflow.input.requestId}", document, null));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testTemplate() {
+		Map<String, Object> nested = new HashMap<>();
+		nested.put("id", "${workflow.input.requestId}");
+		nested.put("list", Arrays.asList("${workflow.input.count}", 1, true));
+
+		Map<String, Object> input = new HashMap<>();
+		input.put("const", 10);
+		input.put("nested", nested);
+		input.put("overridden", "${workflow.input.count}");
+
+		ParameterTemplate template = ParameterTemplate.compile(input);
+		Map<String, Object> result = new HashMap<>();
+		template.evaluate(result, document(), null, Collections.singleton("overridden"));
+
+		assertEquals(10, result.get("const"));
+		assertFalse(result.containsKey("overridden"));
+		Map<String, Object> resultNested = (Map<String, Object>) result.get("nested");
+		assertEquals("request id 001", resultNested.get("id"));
+		assertEquals(Arrays.asList(5, 1, true), resultNested.get("list"));
+
+		// The evaluation results are not shared
+		Map<String, Object> again = new HashMap<>();
+		template.evaluate(again, document(), null, Collections.emptySet());
+		assertNotSame(resultNested, again.get("nested"));
+	}
+}
@@ -23,12 +23,14 @@ import com.auth0.jwt.algorithms.Algorithm;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.netflix.conductor.auth.AuthManager;
 import com.netflix.conductor.common.metadata.tasks.Task;
+import com.netflix.conductor.common.metadata.tasks.TaskDef;
 import com.netflix.conductor.common.metadata.tasks.Task.Status;
 import com.netflix.conductor.common.metadata.workflow.WorkflowDef;
 import com.netflix.conductor.common.metadata.workflow.WorkflowTask;
 import com.netflix.conductor.common.metadata.workflow.WorkflowTask.Type;
 import com.netflix.conductor.common.run.Workflow;
 import com.netflix.conductor.core.config.Configuration;
+import com.netflix.conductor.core.execution.tasks.Decision;
 import com.netflix.conductor.core.execution.tasks.Wait;
 import com.netflix.conductor.core.execution.tasks.WorkflowSystemTask;
 import com.netflix.conductor.core.utils.IDGenerator;
@@ -36,6 +38,7 @@ import com.netflix.conductor.dao.ExecutionDAO;
 import com.netflix.conductor.dao.MetadataDAO;
 import com.netflix.conductor.dao.QueueDAO;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
@@ -43,10 +46,14 @@ import javax.ws.rs.core.HttpHeaders;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.*;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -363,4 +370,123 @@ public class TestWorkflowExecutor {
 			assertEquals("Invalid " + HttpHeaders.AUTHORIZATION + " header format", ex.getMessage());
 		}
 	}
+
+	@Test
+	public void decideInMemory() throws Exception {
+		WorkflowExecutor executor = inMemoryDecideExecutor();
+		when(edao.createTasks(anyListOf(Task.class))).thenAnswer(invocation -> invocation.getArgumentAt(0, List.class));
+
+		Workflow workflow = inMemoryDecideWorkflow();
+		executor.decide(workflow);
+
+		// DECISION and the sync task in the first iteration, the worker task in the second one
+		assertEquals(Arrays.asList("decision", "sync", "worker"),
+			workflow.getTasks().stream().map(Task::getReferenceTaskName).collect(Collectors.toList()));
+		assertEquals(Status.COMPLETED, workflow.getTaskByRefName("decision").getStatus());
+		assertEquals(Status.COMPLETED, workflow.getTaskByRefName("sync").getStatus());
+		assertEquals(Status.SCHEDULED, workflow.getTaskByRefName("worker").getStatus());
+
+		verify(edao, times(2)).createTasks(anyListOf(Task.class));
+		verify(queue).push(eq("worker"), eq(workflow.getTaskByRefName("worker").getTaskId()), anyInt());
+		verify(edao, times(1)).updateWorkflowAndTasks(eq(workflow), anyListOf(Task.class));
+	}
+
+	@Test
+	public void decideInMemoryFailureStoresEarlierIterations() throws Exception {
+		WorkflowExecutor executor = inMemoryDecideExecutor();
+		AtomicInteger createCalls = new AtomicInteger(0);
+		when(edao.createTasks(anyListOf(Task.class))).thenAnswer(invocation -> {
+			if (createCalls.incrementAndGet() > 1) {
+				throw new RuntimeException("backend failure");
+			}
+			return invocation.getArgumentAt(0, List.class);
+		});
+
+		Workflow workflow = inMemoryDecideWorkflow();
+		try {
+			executor.decide(workflow);
+			fail("Should not be here");
+		} catch (RuntimeException ex) {
+			assertEquals("backend failure", ex.getMessage());
+		}
+
+		// The completed DECISION of the first iteration is stored before the failure propagates
+		@SuppressWarnings("unchecked")
+		ArgumentCaptor<List<Task>> stored = ArgumentCaptor.forClass((Class) List.class);
+		verify(edao).updateWorkflowAndTasks(eq(workflow), stored.capture());
+		assertEquals(Collections.singletonList("decision"),
+			stored.getValue().stream().map(Task::getReferenceTaskName).collect(Collectors.toList()));
+		verify(queue).push(eq(WorkflowExecutor.deciderQueue), eq(workflow.getWorkflowId()), anyInt());
+	}
+
+	@Test
+	public void decideInMemoryFailedStoreIsNotRepeated() throws Exception {
+		WorkflowExecutor executor = inMemoryDecideExecutor();
+		when(edao.createTasks(anyListOf(Task.class))).thenAnswer(invocation -> invocation.getArgumentAt(0, List.class));
+		doThrow(new RuntimeException("store failure")).when(edao).updateWorkflowAndTasks(any(Workflow.class), anyListOf(Task.class));
+
+		Workflow workflow = inMemoryDecideWorkflow();
+		try {
+			executor.decide(workflow);
+			fail("Should not be here");
+		} catch (RuntimeException ex) {
+			assertEquals("store failure", ex.getMessage());
+		}
+
+		// The final store failed, the failure path must not write the same state again
+		verify(edao, times(1)).updateWorkflowAndTasks(any(Workflow.class), anyListOf(Task.class));
+		verify(queue, never()).push(eq(WorkflowExecutor.deciderQueue), anyString(), anyInt());
+	}
+
+	private WorkflowExecutor inMemoryDecideExecutor() {
+		new Decision();
+		new WorkflowSystemTask("SYNC_TEST") {
+			@Override
+			public void start(Workflow workflow, Task task, WorkflowExecutor executor) throws Exception {
+				task.setStatus(Status.COMPLETED);
+			}
+		};
+
+		WorkflowTask sync = new WorkflowTask();
+		sync.setName("SYNC_TEST");
+		sync.setType("SYNC_TEST");
+		sync.setTaskReferenceName("sync");
+
+		WorkflowTask decision = new WorkflowTask();
+		decision.setName("decision");
+		decision.setType(Type.DECISION.name());
+		decision.setTaskReferenceName("decision");
+		decision.setCaseValueParam("case");
+		decision.getInputParameters().put("case", "workflow.input.case");
+		decision.getDecisionCases().put("a", Collections.singletonList(sync));
+
+		WorkflowTask worker = new WorkflowTask();
+		worker.setName("worker");
+		worker.setType(Type.SIMPLE.name());
+		worker.setTaskReferenceName("worker");
+
+		WorkflowDef def = new WorkflowDef();
+		def.setName("inMemory");
+		def.setVersion(1);
+		def.getTasks().add(decision);
+		def.getTasks().add(worker);
+
+		when(metadata.get("inMemory", 1)).thenReturn(def);
+		when(metadata.getTaskDef("SYNC_TEST")).thenReturn(new TaskDef("SYNC_TEST"));
+		when(metadata.getTaskDef("worker")).thenReturn(new TaskDef("worker"));
+
+		Configuration cfg = mock(Configuration.class);
+		when(cfg.getProperty("workflow.decider.inmemory", "false")).thenReturn("true");
+		return new WorkflowExecutor(metadata, edao, queue, om, auth, cfg, taskListener, workflowListener);
+	}
+
+	private Workflow inMemoryDecideWorkflow() {
+		Workflow workflow = new Workflow();
+		workflow.setWorkflowId(IDGenerator.generate());
+		workflow.setWorkflowType("inMemory");
+		workflow.setVersion(1);
+		workflow.setStatus(Workflow.WorkflowStatus.RUNNING);
+		workflow.getInput().put("case", "a");
+		return workflow;
+	}
 }
@@ -0,0 +1,100 @@
+/**
+ * Copyright 2017 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.conductor.core.execution;
+
+import com.netflix.conductor.common.run.Workflow;
+import com.netflix.conductor.core.config.Configuration;
+import com.netflix.conductor.dao.QueueDAO;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+public class TestWorkflowSweeper {
+
+    @Test
+    public void sweepBatchDecidesUpdateStoredDuringBatch() throws Exception {
+        Configuration config = mock(Configuration.class);
+        when(config.getIntProperty("workflow.sweeper.thread.count", 5)).thenReturn(1);
+        when(config.getIntProperty("workflow.sweeper.frequency", 500)).thenReturn(500);
+        when(config.getIntProperty("workflow.sweeper.pool.timeout", 2000)).thenReturn(2000);
+        when(config.getProperty("workflow.sweeper.batch.enabled", "false")).thenReturn("true");
+        when(config.disableSweep()).thenReturn(true);
+        when(config.getAppId()).thenReturn("test");
+
+        Map<String, Workflow> store = new ConcurrentHashMap<>();
+        store.put("wf1", workflow("wf1", 1));
+        store.put("wf2", workflow("wf2", 1));
+
+        WorkflowExecutor executor = mock(WorkflowExecutor.class);
+        when(executor.getWorkflow(anyString(), eq(true))).thenAnswer(invocation -> store.get((String) invocation.getArguments()[0]));
+
+        // The decide of wf1 stores an update of wf2, e.g. wf1 is its sub workflow
+        List<Workflow> decided = new CopyOnWriteArrayList<>();
+        when(executor.decide(any(Workflow.class))).thenAnswer(invocation -> {
+            Workflow workflow = (Workflow) invocation.getArguments()[0];
+            decided.add(workflow);
+            if (workflow.getWorkflowId().equals("wf1")) {
+                store.put("wf2", workflow("wf2", 2));
+            }
+            return Pair.of(false, 30);
+        });
+
+        QueueDAO queues = mock(QueueDAO.class);
+        WorkflowSweeper sweeper = new WorkflowSweeper(executor, config, queues);
+        try {
+            sweeper.sweepBatch(Arrays.asList("wf1", "wf2"), executor);
+        } finally {
+            sweeper.shutdown();
+        }
+
+        // The single worker decides wf2 after wf1, on the version stored meanwhile
+        assertEquals(2, decided.size());
+        assertEquals("wf1", decided.get(0).getWorkflowId());
+        assertEquals("wf2", decided.get(1).getWorkflowId());
+        assertEquals(2, decided.get(1).getVersion());
+
+        // The sweeper queue entry of wf1 is released and its unack applied before the next decide
+        InOrder inOrder = inOrder(queues, executor);
+        inOrder.verify(queues).pushAll(WorkflowExecutor.sweeperQueue, Arrays.asList("wf1", "wf2"), 0);
+        inOrder.verify(executor).decide(decided.get(0));
+        inOrder.verify(queues).remove(WorkflowExecutor.sweeperQueue, "wf1");
+        inOrder.verify(queues).setUnackTimeout(WorkflowExecutor.deciderQueue, "wf1", 30000);
+        inOrder.verify(executor).decide(decided.get(1));
+        inOrder.verify(queues).remove(WorkflowExecutor.sweeperQueue, "wf2");
+        inOrder.verify(queues).setUnackTimeout(WorkflowExecutor.deciderQueue, "wf2", 30000);
+
+        verify(queues, never()).removeAll(anyString(), any());
+    }
+
+    private Workflow workflow(String workflowId, int version) {
+        Workflow workflow = new Workflow();
+        workflow.setWorkflowId(workflowId);
+        workflow.setVersion(version);
+        return workflow;
+    }
+}
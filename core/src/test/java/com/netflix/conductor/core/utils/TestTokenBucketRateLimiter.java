@@ -0,0 +1,82 @@
+package com.netflix.conductor.core.utils;
+
+import com.netflix.conductor.common.metadata.tasks.TaskDef;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestTokenBucketRateLimiter {
+
+	@Test
+	public void testLimitWithinWindow() {
+		AtomicLong clock = new AtomicLong(0);
+		TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(clock::get);
+		TaskDef taskDef = taskDef(3, 10);
+
+		assertTrue(limiter.tryAcquire(taskDef));
+		assertTrue(limiter.tryAcquire(taskDef));
+		assertTrue(limiter.tryAcquire(taskDef));
+		assertFalse(limiter.tryAcquire(taskDef));
+
+		// 3 tokens per 10 seconds gives one token back after ~3.4 seconds
+		clock.addAndGet(TimeUnit.SECONDS.toNanos(3));
+		assertFalse(limiter.tryAcquire(taskDef));
+
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(400));
+		assertTrue(limiter.tryAcquire(taskDef));
+		assertFalse(limiter.tryAcquire(taskDef));
+	}
+
+	@Test
+	public void testRefillIsCappedByCapacity() {
+		AtomicLong clock = new AtomicLong(0);
+		TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(clock::get);
+		TaskDef taskDef = taskDef(2, 1);
+
+		clock.addAndGet(TimeUnit.MINUTES.toNanos(5));
+		assertTrue(limiter.tryAcquire(taskDef));
+		assertTrue(limiter.tryAcquire(taskDef));
+		assertFalse(limiter.tryAcquire(taskDef));
+	}
+
+	@Test
+	public void testTaskDefChangeResetsBucket() {
+		AtomicLong clock = new AtomicLong(0);
+		TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(clock::get);
+
+		assertTrue(limiter.tryAcquire(taskDef(1, 60)));
+		assertFalse(limiter.tryAcquire(taskDef(1, 60)));
+		assertTrue(limiter.tryAcquire(taskDef(5, 60)));
+	}
+
+	@Test
+	public void testReleaseGivesTokenBack() {
+		AtomicLong clock = new AtomicLong(0);
+		TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(clock::get);
+		TaskDef taskDef = taskDef(1, 60);
+
+		assertTrue(limiter.tryAcquire(taskDef));
+		assertFalse(limiter.tryAcquire(taskDef));
+
+		limiter.release(taskDef);
+		assertTrue(limiter.tryAcquire(taskDef));
+		assertFalse(limiter.tryAcquire(taskDef));
+
+		// Never above the capacity
+		limiter.release(taskDef);
+		limiter.release(taskDef);
+		assertTrue(limiter.tryAcquire(taskDef));
+		assertFalse(limiter.tryAcquire(taskDef));
+	}
+
+	private TaskDef taskDef(int perFrequency, int frequencySeconds) {
+		TaskDef taskDef = new TaskDef("rate_limited");
+		taskDef.setRateLimitPerFrequency(perFrequency);
+		taskDef.setRateLimitFrequencyInSeconds(frequencySeconds);
+		return taskDef;
+	}
+}
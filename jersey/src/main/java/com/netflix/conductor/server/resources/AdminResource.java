@@ -22,6 +22,7 @@ import com.netflix.conductor.common.metadata.tasks.Task;
 import com.netflix.conductor.core.config.Configuration;
 import com.netflix.conductor.core.execution.WorkflowExecutor;
 import com.netflix.conductor.dao.MetadataDAO;
+import com.netflix.conductor.dao.MetricsDAO;
 import com.netflix.conductor.dao.QueueDAO;
 import com.netflix.conductor.service.ExecutionService;
 import io.swagger.annotations.Api;
@@ -34,6 +35,7 @@ import javax.inject.Singleton;
 import javax.ws.rs.*;
 import javax.ws.rs.core.MediaType;
 import java.io.InputStream;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -69,9 +71,10 @@ public class AdminResource {
     private boolean auth_referer_bypass;
     private MetadataService metaservice;
     private WorkflowExecutor executor;
+    private MetricsDAO metrics;
 
     @Inject
-    public AdminResource(Configuration config, ExecutionService service, MetadataService metaservice,QueueDAO queue, MetadataDAO metadata,WorkflowExecutor executor) {
+    public AdminResource(Configuration config, ExecutionService service, MetadataService metaservice,QueueDAO queue, MetadataDAO metadata,WorkflowExecutor executor, MetricsDAO metrics) {
         this.config = config;
         this.service = service;
         this.metaservice = metaservice;
@@ -80,6 +83,7 @@ public class AdminResource {
         this.version = "UNKNOWN";
         this.buildDate = "UNKNOWN";
         this.executor = executor;
+        this.metrics = metrics;
         this.auth_referer_bypass = Boolean.parseBoolean(config.getProperty("workflow.auth.referer.bypass", "false"));
 
         try {
@@ -184,6 +188,18 @@ public class AdminResource {
         }
     }
 
+    @GET
+    @Path("/statements/slow")
+    @ApiOperation("Get the slowest persistence statements since start with their latency and row counts")
+    @Consumes({MediaType.WILDCARD})
+    public List<Map<String, Object>> slowStatements(@DefaultValue("20") @QueryParam("count") Integer count,
+                                                    @DefaultValue("total") @QueryParam("orderBy") String orderBy) {
+        if (!Arrays.asList("total", "mean", "p50", "p99", "max").contains(orderBy)) {
+            throw new ApplicationException(Code.INVALID_INPUT, "orderBy must be one of total, mean, p50, p99, max");
+        }
+        return metrics.getSlowStatements(count, orderBy);
+    }
+
     @GET
     @Path("/task/{tasktype}")
     @ApiOperation("Get the list of pending tasks for a given task type")
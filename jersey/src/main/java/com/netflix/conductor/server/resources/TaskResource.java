@@ -159,6 +159,41 @@ public class TaskResource {
         }
     }
 
+    @POST
+    @Path("/batch")
+    @ApiOperation("Update several tasks. Returns the task ids with the error of the updates which failed")
+    @ApiImplicitParams({
+            @ApiImplicitParam(name = "Authorization", dataType = "string", paramType = "header")})
+    public Map<String, String> updateTasks(List<TaskResult> tasks, @Context HttpHeaders headers) throws Exception {
+        if (!bypassAuth(headers)) {
+            String primarRole = executor.checkUserRoles(headers);
+            if (!primarRole.endsWith("admin")) {
+                throw new ApplicationException(Code.UNAUTHORIZED, "User does not have access privileges");
+            }
+        }
+        NDC.push("rest-update-tasks-" + UUID.randomUUID().toString());
+        try {
+            return taskService.updateTasks(tasks);
+        } finally {
+            NDC.remove();
+        }
+    }
+
+    @POST
+    @Path("/ack/batch")
+    @ApiOperation("Ack several tasks are recieved. Returns the ack result by task id")
+    @ApiImplicitParams({
+            @ApiImplicitParam(name = "Authorization", dataType = "string", paramType = "header")})
+    public Map<String, Boolean> ack(List<String> taskIds, @QueryParam("workerid") String workerId, @Context HttpHeaders headers) throws Exception {
+        if (!bypassAuth(headers)) {
+            String primarRole = executor.checkUserRoles(headers);
+            if (!primarRole.endsWith("admin")) {
+                throw new ApplicationException(Code.UNAUTHORIZED, "User does not have access privileges");
+            }
+        }
+        return taskService.ackTasksReceived(taskIds, workerId);
+    }
+
     @POST
     @Path("/{taskId}/log")
     @ApiOperation("Log Task Execution Details")
@@ -834,7 +834,7 @@ public class WorkflowResource {
 		return builder.build();
 	}
 
-	@ApiOperation(value = "Search for workflows based in payload and other parameters", notes = "use sort options as sort=<field>:ASC|DESC e.g. sort=name&sort=workflowId:DESC.  If order is not specified, defaults to ASC")
+	@ApiOperation(value = "Search for workflows based in payload and other parameters", notes = "use sort options as sort=<field>:ASC|DESC e.g. sort=name&sort=workflowId:DESC.  If order is not specified, defaults to ASC.  searchAfter=<workflowId> returns the page after that workflow (keyset pagination, not supported by every index), an unknown workflowId returns an empty page")
 	@ApiResponses(value = {
 		@ApiResponse(code = 404, message = "NOT_FOUND", response = Error.class),
 		@ApiResponse(code = 400, message = "INVALID_INPUT", response = Error.class),
@@ -856,12 +856,18 @@ public class WorkflowResource {
 		@QueryParam("freeText") @DefaultValue("*") String freeText,
 		@QueryParam("query") String query,
 		@QueryParam("from") String from,
-		@QueryParam("end") String end
+		@QueryParam("end") String end,
+		@QueryParam("searchAfter") String searchAfter
 	) {
 
 		if (size > maxSearchSize) {
 			throw new ApplicationException(Code.INVALID_INPUT, "Cannot return more than " + maxSearchSize + " workflows.  Please use pagination");
 		}
+		// Keyset pagination - the id of the last workflow of the previous page instead of the start offset.
+		// An unknown id gives an empty page, an index without keyset support rejects it as INVALID_INPUT
+		if (StringUtils.isNotEmpty(searchAfter)) {
+			return service.searchAfter(query, freeText, searchAfter, size, convert(sort), from, end);
+		}
 		return service.search(query, freeText, start, size, convert(sort), from, end);
 	}
 
@@ -43,12 +43,25 @@ public abstract class AuroraBaseDAO {
 	}
 
 	<R> R getWithTransaction(TransactionalFunction<R> function) {
+		AuroraUnitOfWork.Unit unit = AuroraUnitOfWork.current(dataSource);
+		if (unit != null) {
+			return joinUnit(unit, function);
+		}
+		return getWithOwnTransaction(function);
+	}
+
+	/**
+	 * Runs the function in its own short transaction even within a unit of work. For the statements locking the
+	 * rows shared by all the nodes (concurrency permits, rate buckets), the locks must not be held until the unit ends.
+	 * The function does not see the uncommitted writes of the unit
+	 */
+	<R> R getWithOwnTransaction(TransactionalFunction<R> function) {
 		Instant start = Instant.now();
 		LazyToString callingMethod = getCallingMethod();
 		if (logger.isTraceEnabled())
 			logger.trace("{} : starting transaction", callingMethod.toString());
 
-		try (Connection tx = dataSource.getConnection()) {
+		try (Connection tx = StatementStats.acquire(dataSource)) {
 			tx.setAutoCommit(false);
 			try {
 				R result = function.apply(tx);
@@ -67,6 +80,51 @@ public abstract class AuroraBaseDAO {
 		}
 	}
 
+	/**
+	 * Fast path of the single statement reads: runs in autocommit mode, so there is no commit round trip.
+	 * Within a unit of work the unit's connection is used to see its writes
+	 */
+	<R> R getReadOnly(TransactionalFunction<R> function) {
+		AuroraUnitOfWork.Unit unit = AuroraUnitOfWork.current(dataSource);
+		if (unit != null) {
+			return joinUnit(unit, function);
+		}
+
+		try (Connection tx = StatementStats.acquire(dataSource)) {
+			tx.setAutoCommit(true);
+			return function.apply(tx);
+		} catch (ApplicationException ex) {
+			throw ex;
+		} catch (Throwable th) {
+			throw new ApplicationException(ApplicationException.Code.BACKEND_ERROR, th.getMessage(), th);
+		}
+	}
+
+	private <R> R joinUnit(AuroraUnitOfWork.Unit unit, TransactionalFunction<R> function) {
+		unit.calls++;
+		try {
+			return function.apply(unit.tx);
+		} catch (Throwable th) {
+			// The transaction is aborted, the unit gets rolled back
+			unit.failed = true;
+			logger.debug("Unit of work failed due to " + th.getMessage(), th);
+			if (th instanceof ApplicationException) {
+				throw (ApplicationException) th;
+			}
+			throw new ApplicationException(ApplicationException.Code.BACKEND_ERROR, th.getMessage(), th);
+		}
+	}
+
+	private void executed(Connection tx, String query, Query q, long start) {
+		StatementStats.record(query, System.nanoTime() - start, q.getRows());
+
+		AuroraUnitOfWork.Unit unit = AuroraUnitOfWork.current(dataSource);
+		if (unit != null && unit.tx == tx) {
+			unit.statements += Math.max(1, q.getBatchSize());
+			unit.roundTrips++;
+		}
+	}
+
 	private LazyToString getCallingMethod() {
 		return new LazyToString(() -> Arrays.stream(Thread.currentThread().getStackTrace())
 			.filter(ste -> !EXCLUDED_STACKTRACE_CLASS.contains(ste.getClassName()))
@@ -81,8 +139,11 @@ public abstract class AuroraBaseDAO {
 			LazyToString callingMethod = getCallingMethod();
 			logger.trace("{} : executing {}", callingMethod, query);
 		}
+		long start = System.nanoTime();
 		try (Query q = new Query(mapper, tx, query)) {
-			return function.apply(q);
+			R result = function.apply(q);
+			executed(tx, query, q, start);
+			return result;
 		} catch (SQLException ex) {
 			logger.debug("query " + query + " failed " + ex.getMessage(), ex);
 			throw new ApplicationException(ApplicationException.Code.BACKEND_ERROR, ex.getMessage(), ex);
@@ -94,8 +155,10 @@ public abstract class AuroraBaseDAO {
 			LazyToString callingMethod = getCallingMethod();
 			logger.trace("{} : executing {}", callingMethod, query);
 		}
+		long start = System.nanoTime();
 		try (Query q = new Query(mapper, tx, query)) {
 			function.apply(q);
+			executed(tx, query, q, start);
 		} catch (SQLException ex) {
 			logger.debug("execute " + query + " failed " + ex.getMessage(), ex);
 			throw new ApplicationException(ApplicationException.Code.BACKEND_ERROR, ex.getMessage(), ex);
@@ -110,6 +173,10 @@ public abstract class AuroraBaseDAO {
 		withTransaction(tx -> execute(tx, query, function));
 	}
 
+	public <R> R queryReadOnly(String query, QueryFunction<R> function) {
+		return getReadOnly(tx -> query(tx, query, function));
+	}
+
 	public <T> T readValue(String json, Class<T> tClass) {
 		try {
 			return mapper.readValue(json, tClass);
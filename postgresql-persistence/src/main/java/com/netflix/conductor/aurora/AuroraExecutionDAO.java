@@ -3,6 +3,7 @@ package com.netflix.conductor.aurora;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
+import com.netflix.conductor.aurora.sql.Query;
 import com.netflix.conductor.common.metadata.events.EventExecution;
 import com.netflix.conductor.common.metadata.events.EventPublished;
 import com.netflix.conductor.common.metadata.tasks.PollData;
@@ -10,27 +11,72 @@ import com.netflix.conductor.common.metadata.tasks.Task;
 import com.netflix.conductor.common.metadata.tasks.TaskDef;
 import com.netflix.conductor.common.metadata.tasks.TaskExecLog;
 import com.netflix.conductor.common.run.Workflow;
+import com.netflix.conductor.core.config.Configuration;
 import com.netflix.conductor.core.events.queue.Message;
+import com.netflix.conductor.core.execution.tasks.Wait;
+import com.netflix.conductor.core.utils.RateLimiter;
 import com.netflix.conductor.dao.ExecutionDAO;
 import com.netflix.conductor.dao.IndexDAO;
 import com.netflix.conductor.dao.MetadataDAO;
+import com.netflix.conductor.dao.UnitOfWork;
+import com.netflix.conductor.service.MetricService;
 
 import javax.inject.Inject;
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 public class AuroraExecutionDAO extends AuroraBaseDAO implements ExecutionDAO {
+	private static final Set<String> concurrencyCounters = ConcurrentHashMap.newKeySet();
+	private static final String UPDATE_TASK = "UPDATE task SET modified_on = now(), task_status = ?, json_data = ?, " +
+		"input = ?, output = ?, start_time = ?, end_time = ? WHERE task_id = ?";
 	private final MetadataDAO metadata;
 	private final IndexDAO indexer;
+	private final RateLimiter rateLimiter;
+	private final boolean partitioned;
+	private final RunningTagsCache runningTags;
+	private volatile boolean matchIndexReady = false;
 
 	@Inject
-	public AuroraExecutionDAO(DataSource dataSource, ObjectMapper mapper, MetadataDAO metadata, IndexDAO indexer) {
+	public AuroraExecutionDAO(DataSource dataSource, ObjectMapper mapper, MetadataDAO metadata, IndexDAO indexer,
+							  RateLimiter rateLimiter, Configuration config) {
 		super(dataSource, mapper);
 		this.metadata = metadata;
 		this.indexer = indexer;
+		this.rateLimiter = rateLimiter;
+		this.partitioned = Boolean.parseBoolean(config.getProperty("workflow.aurora.partitioned", "false"));
+		if (Boolean.parseBoolean(config.getProperty("workflow.aurora.unit.of.work.enabled", "false"))) {
+			UnitOfWork.register(new AuroraUnitOfWork(dataSource));
+		}
+
+		int reconcileSeconds = config.getIntProperty("workflow.concurrency.reconcile.seconds", 300);
+		ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor();
+		executorService.submit(this::indexPendingWaitTasks);
+		executorService.scheduleWithFixedDelay(this::reconcileConcurrencyCounters, reconcileSeconds, reconcileSeconds, TimeUnit.SECONDS);
+
+		if (Boolean.parseBoolean(config.getProperty("workflow.aurora.tags.cache.enabled", "false"))) {
+			runningTags = new RunningTagsCache();
+			int refreshSeconds = config.getIntProperty("workflow.aurora.tags.cache.refresh.seconds", 10);
+			executorService.scheduleWithFixedDelay(this::reloadRunningTags, 0, refreshSeconds, TimeUnit.SECONDS);
+		} else {
+			runningTags = null;
+		}
+
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			try {
+				logger.info("Closing reconcileConcurrencyCounters pool");
+				executorService.shutdown();
+				executorService.awaitTermination(5, TimeUnit.SECONDS);
+			} catch (Exception e) {
+				logger.debug("Closing reconcileConcurrencyCounters pool failed " + e.getMessage(), e);
+			}
+		}));
 	}
 
 	@Override
@@ -65,6 +111,30 @@ public class AuroraExecutionDAO extends AuroraBaseDAO implements ExecutionDAO {
 				.executeAndFetch(Task.class));
 	}
 
+	/**
+	 * Looks the WAIT tasks up in the task_match index: a task is returned when every (key, value) of the
+	 * input is present in its input. The values are compared by their jsonb text, so the caller still has
+	 * to compare the inputs. Other task types and the lookups made before the index got built at the
+	 * startup fall back to {@link #getPendingSystemTasks}
+	 */
+	@Override
+	public List<Task> getPendingTasksByInput(String taskType, Map<String, Object> input) {
+		if (!Wait.NAME.equals(taskType) || !matchIndexReady || input == null || input.isEmpty()) {
+			return getPendingSystemTasks(taskType);
+		}
+
+		String SQL = "SELECT json_data FROM task WHERE task_type = ? AND task_status = ? AND task_id IN (" +
+			"SELECT task_id FROM task_match WHERE match_key IN (" +
+			"SELECT md5(e.key || '=' || e.value::text) FROM jsonb_each(?::jsonb) e) " +
+			"GROUP BY task_id HAVING COUNT(*) = ?)";
+
+		return queryWithTransaction(SQL, q -> q.addParameter(taskType)
+			.addParameter("IN_PROGRESS")
+			.addJsonParameter(input)
+			.addParameter(input.size())
+			.executeAndFetch(Task.class));
+	}
+
 	@Override
 	public List<Task> getTasks(String taskType, String startKey, int count) {
 		List<Task> tasks = Lists.newLinkedList();
@@ -136,20 +206,49 @@ public class AuroraExecutionDAO extends AuroraBaseDAO implements ExecutionDAO {
 			return false;
 		}
 
-		long current = getInProgressTaskCount(task.getTaskDefName());
-		if (current >= limit) {
-			return true;
-		}
+		createConcurrencyCounterIfNotExists(task.getTaskDefName());
+
+		// The in_progress flag is the permit of the task. It is leased here and released by
+		// removeTaskInProgress only, the counter follows it in the same transaction.
+		// Leased in its own transaction, a unit of work would hold the counter row lock until its end
+		final String PERMIT = "SELECT in_progress FROM task_in_progress WHERE task_def_name = ? AND task_id = ? FOR UPDATE";
+
+		final String LEASE = "UPDATE task_concurrency SET leased = leased + 1, modified_on = now() " +
+			"WHERE task_def_name = ? AND leased < ?";
 
-		logger.debug("Task execution count for {}: limit={}, current={}", task.getTaskDefName(), limit, current);
+		final String MARK = "UPDATE task_in_progress SET in_progress = true, modified_on = now() " +
+			"WHERE task_def_name = ? AND task_id = ?";
 
-		String SQL = "SELECT task_id FROM task_in_progress WHERE task_def_name = ? ORDER BY id LIMIT ?";
-		List<String> taskIds = queryWithTransaction(SQL,
-			q -> q.addParameter(task.getTaskDefName()).addParameter(limit).executeScalarList(String.class));
+		boolean rateLimited = getWithOwnTransaction(tx -> {
+			Boolean permit = query(tx, PERMIT, q -> q.addParameter(task.getTaskDefName())
+				.addParameter(task.getTaskId())
+				.executeAndFetch(rs -> rs.next() ? rs.getBoolean(1) : null));
+
+			// The task is not tracked anymore
+			if (permit == null) {
+				return true;
+			}
+
+			// Already holds the permit (e.g. re-polled after the node died)
+			if (permit) {
+				return false;
+			}
+
+			int leased = query(tx, LEASE, q -> q.addParameter(task.getTaskDefName())
+				.addParameter(limit)
+				.executeUpdate());
+			if (leased == 0) {
+				return true;
+			}
+
+			execute(tx, MARK, q -> q.addParameter(task.getTaskDefName())
+				.addParameter(task.getTaskId())
+				.executeUpdate());
+			return false;
+		});
 
-		boolean rateLimited = !taskIds.contains(task.getTaskId());
 		if (rateLimited) {
-			logger.debug("Task execution count limited. {}, limit {}, current {}", task.getTaskDefName(), limit, current);
+			logger.debug("Task execution count limited. {}, limit {}", task.getTaskDefName(), limit);
 		}
 
 		return rateLimited;
@@ -169,52 +268,46 @@ public class AuroraExecutionDAO extends AuroraBaseDAO implements ExecutionDAO {
 			return false;
 		}
 
-		logger.debug("Evaluating rate limiting for Task: {} with rateLimitPerFrequency: {} and rateLimitFrequencyInSeconds: {}",
-			task, rateLimitPerFrequency, rateLimitFrequencyInSeconds);
-
-		long currentTimeEpochMillis = System.currentTimeMillis();
-		long currentTimeEpochMinusRateLimitBucket = currentTimeEpochMillis - (rateLimitFrequencyInSeconds * 1000);
-
-		// Delete the expired records first
-		String SQL = "DELETE FROM task_rate_limit WHERE task_def_name = ? AND created_on < ?";
-		executeWithTransaction(SQL, q -> q
-			.addParameter(taskDef.getName())
-			.addTimestampParameter(currentTimeEpochMinusRateLimitBucket)
-			.executeDelete());
-
-		// Count how many left between currentTimeEpochMinusRateLimitBucket and currentTimeEpochMillis
-		SQL = "SELECT COUNT(*) FROM task_rate_limit WHERE task_def_name = ? AND created_on BETWEEN ? AND ?";
-		long currentBucketCount = queryWithTransaction(SQL, q -> q
-			.addParameter(taskDef.getName())
-			.addTimestampParameter(currentTimeEpochMinusRateLimitBucket)
-			.addTimestampParameter(currentTimeEpochMillis)
-			.executeScalar(Long.class));
-
-		// Within the rate limit
-		if (currentBucketCount < rateLimitPerFrequency) {
-			SQL = "INSERT INTO task_rate_limit(created_on,expires_on,task_def_name) VALUES (?,?,?)";
-			executeWithTransaction(SQL, q -> q
-				.addTimestampParameter(currentTimeEpochMillis)
-				.addTimestampParameter(System.currentTimeMillis() + (rateLimitFrequencyInSeconds * 1000))
-				.addParameter(taskDef.getName())
-				.executeUpdate());
-
-			logger.debug("Task: {} with rateLimitPerFrequency: {} and rateLimitFrequencyInSeconds: {} within the rate limit with current count {}",
-				task, rateLimitPerFrequency, rateLimitFrequencyInSeconds, ++currentBucketCount);
+		boolean acquired = rateLimiter.tryAcquire(taskDef);
+		if (acquired) {
+			MetricService.getInstance().taskRateLimitAllowed(taskDef.getName());
+			logger.debug("Task: {} with rateLimitPerFrequency: {} and rateLimitFrequencyInSeconds: {} within the rate limit",
+				task, rateLimitPerFrequency, rateLimitFrequencyInSeconds);
 			return false;
 		}
 
-		logger.debug("Task: {} with rateLimitPerFrequency: {} and rateLimitFrequencyInSeconds: {} is out of bounds of rate limit with current count {}",
-			task, rateLimitPerFrequency, rateLimitFrequencyInSeconds, currentBucketCount);
+		MetricService.getInstance().taskRateLimitThrottled(taskDef.getName());
+		logger.debug("Task: {} with rateLimitPerFrequency: {} and rateLimitFrequencyInSeconds: {} is out of bounds of rate limit",
+			task, rateLimitPerFrequency, rateLimitFrequencyInSeconds);
 		return true;
 	}
 
+	@Override
+	public void releaseRateLimitPerFrequency(Task task) {
+		TaskDef taskDef = metadata.getTaskDef(task.getTaskDefName());
+		if (taskDef == null || taskDef.getRateLimitPerFrequency() == null || taskDef.getRateLimitPerFrequency() <= 0) {
+			return;
+		}
+		rateLimiter.release(taskDef);
+	}
+
 	@Override
 	public void updateTasks(List<Task> tasks) {
+		if (tasks.isEmpty()) {
+			return;
+		}
 		withTransaction(tx -> {
-			for (Task task : tasks) {
-				insertOrUpdateTask(tx, task, true);
-			}
+			tasks.forEach(task -> beforeTaskUpdate(tx, task));
+
+			// All the task rows in one round trip
+			execute(tx, UPDATE_TASK, q -> {
+				for (Task task : tasks) {
+					bindTaskUpdate(q, task).addBatch();
+				}
+				q.executeBatch();
+			});
+
+			tasks.forEach(task -> afterTaskUpdate(tx, task));
 		});
 	}
 
@@ -242,13 +335,13 @@ public class AuroraExecutionDAO extends AuroraBaseDAO implements ExecutionDAO {
 
 	@Override
 	public Task getTask(String taskId) {
-		return getWithTransaction(tx -> getTask(tx, taskId));
+		return getReadOnly(tx -> getTask(tx, taskId));
 	}
 
 	@Override
 	public Task getTask(String workflowId, String taskRefName) {
 		String GET_TASK = "SELECT json_data FROM task WHERE workflow_id = ? and task_refname = ? ORDER BY id DESC";
-		return queryWithTransaction(GET_TASK, q -> q
+		return queryReadOnly(GET_TASK, q -> q
 			.addParameter(workflowId)
 			.addParameter(taskRefName)
 			.executeAndFetchFirst(Task.class));
@@ -261,7 +354,7 @@ public class AuroraExecutionDAO extends AuroraBaseDAO implements ExecutionDAO {
 		}
 
 		String GET_TASKS = "SELECT json_data FROM task WHERE task_id = ANY(?)";
-		return queryWithTransaction(GET_TASKS, q -> q
+		return queryReadOnly(GET_TASKS, q -> q
 			.addParameter(taskIds)
 			.executeAndFetch(Task.class));
 	}
@@ -269,7 +362,7 @@ public class AuroraExecutionDAO extends AuroraBaseDAO implements ExecutionDAO {
 	@Override
 	public List<Task> getTasksForWorkflow(String workflowId) {
 		String SQL = "SELECT json_data FROM task WHERE workflow_id = ?";
-		return queryWithTransaction(SQL, q -> q.addParameter(workflowId).executeAndFetch(Task.class));
+		return queryReadOnly(SQL, q -> q.addParameter(workflowId).executeAndFetch(Task.class));
 	}
 
 	@Override
@@ -282,6 +375,29 @@ public class AuroraExecutionDAO extends AuroraBaseDAO implements ExecutionDAO {
 		return insertOrUpdateWorkflow(workflow, true);
 	}
 
+	@Override
+	public void updateWorkflowAndTasks(Workflow workflow, List<Task> tasks) {
+		Preconditions.checkNotNull(workflow, "workflow object cannot be null");
+
+		if (workflow.getStatus().isTerminal()) {
+			workflow.setEndTime(System.currentTimeMillis());
+		}
+		List<Task> workflowTasks = workflow.getTasks();
+		workflow.setTasks(Lists.newLinkedList());
+
+		try {
+			withTransaction(tx -> {
+				for (Task task : tasks) {
+					insertOrUpdateTask(tx, task, true);
+				}
+				updateWorkflow(tx, workflow);
+			});
+		} finally {
+			workflow.setTasks(workflowTasks);
+		}
+		cacheRunningTags(workflow);
+	}
+
 	@Override
 	public void removeWorkflow(String workflowId) {
 		Workflow workflow = getWorkflow(workflowId, true);
@@ -309,7 +425,7 @@ public class AuroraExecutionDAO extends AuroraBaseDAO implements ExecutionDAO {
 
 	@Override
 	public Workflow getWorkflow(String workflowId, boolean includeTasks) {
-		Workflow workflow = getWithTransaction(tx -> readWorkflow(tx, workflowId));
+		Workflow workflow = getReadOnly(tx -> readWorkflow(tx, workflowId));
 		if (workflow != null && includeTasks) {
 			List<Task> tasks = getTasksForWorkflow(workflowId);
 			tasks.sort(Comparator.comparingLong(Task::getScheduledTime).thenComparingInt(Task::getSeq));
@@ -321,13 +437,13 @@ public class AuroraExecutionDAO extends AuroraBaseDAO implements ExecutionDAO {
 	@Override
 	public List<String> getRunningWorkflowIds(String workflowName) {
 		Preconditions.checkNotNull(workflowName, "workflowName cannot be null");
-		return getWithTransaction(tx -> getRunningWorkflowIds(tx, workflowName));
+		return getReadOnly(tx -> getRunningWorkflowIds(tx, workflowName));
 	}
 
 	@Override
 	public List<Workflow> getPendingWorkflowsByType(String workflowName) {
 		Preconditions.checkNotNull(workflowName, "workflowName cannot be null");
-		List<String> workflowIds = getWithTransaction(tx -> getRunningWorkflowIds(tx, workflowName));
+		List<String> workflowIds = getReadOnly(tx -> getRunningWorkflowIds(tx, workflowName));
 		return workflowIds.stream()
 			.map(id -> getWorkflow(id, true))
 			.filter(Objects::nonNull)
@@ -338,13 +454,13 @@ public class AuroraExecutionDAO extends AuroraBaseDAO implements ExecutionDAO {
 	public long getPendingWorkflowCount(String workflowName) {
 		Preconditions.checkNotNull(workflowName, "workflowName cannot be null");
 		String SQL = "SELECT COUNT(*) FROM workflow WHERE workflow_type = ? AND workflow_status IN ('RUNNING','PAUSED')";
-		return queryWithTransaction(SQL, q -> q.addParameter(workflowName).executeCount());
+		return queryReadOnly(SQL, q -> q.addParameter(workflowName).executeCount());
 	}
 
 	@Override
 	public long getInProgressTaskCount(String taskDefName) {
 		String SQL = "SELECT COUNT(*) FROM task_in_progress WHERE task_def_name = ? AND in_progress = true";
-		return queryWithTransaction(SQL, q -> q.addParameter(taskDefName).executeCount());
+		return queryReadOnly(SQL, q -> q.addParameter(taskDefName).executeCount());
 	}
 
 	@Override
@@ -415,7 +531,7 @@ public class AuroraExecutionDAO extends AuroraBaseDAO implements ExecutionDAO {
 	public PollData getPollData(String taskDefName, String domain) {
 		Preconditions.checkNotNull(taskDefName, "taskDefName name cannot be null");
 		String effectiveDomain = (domain == null) ? "DEFAULT" : domain;
-		return getWithTransaction(tx -> readPollData(tx, taskDefName, effectiveDomain));
+		return getReadOnly(tx -> readPollData(tx, taskDefName, effectiveDomain));
 	}
 
 	@Override
@@ -433,7 +549,7 @@ public class AuroraExecutionDAO extends AuroraBaseDAO implements ExecutionDAO {
 	 * Function to find tasks in the workflows which associated with given tags
 	 * <p>
 	 * Includes task into result if:
-	 * workflow.tags contains ALL values from the tags parameter
+	 * workflow.tags contains ANY value from the tags parameter (workflow_tags index)
 	 * and task type matches the given task type
 	 * and the task status is IN_PROGRESS
 	 *
@@ -446,7 +562,7 @@ public class AuroraExecutionDAO extends AuroraBaseDAO implements ExecutionDAO {
 			"WHERE task_type = ? AND task_status = ? " +
 			"AND workflow_id IN (SELECT workflow_id FROM workflow WHERE tags && ?)";
 
-		return queryWithTransaction(SQL, q -> q.addParameter(taskType)
+		return queryReadOnly(SQL, q -> q.addParameter(taskType)
 			.addParameter("IN_PROGRESS")
 			.addParameter(tags)
 			.executeAndFetch(Task.class));
@@ -454,16 +570,33 @@ public class AuroraExecutionDAO extends AuroraBaseDAO implements ExecutionDAO {
 
 	/**
 	 * Function to check is there any workflows associated with given tags
-	 * Returns true if workflow.tags contains ALL values from the tags parameter
-	 * Otherwise returns false
+	 * Returns true if workflow.tags of a running workflow contains ANY value from the tags parameter
+	 * Otherwise returns false. A tag known to be running by the {@link RunningTagsCache} (when enabled) is answered
+	 * without the query, everything else is checked by the query
 	 *
 	 * @param tags A set of tags
 	 * @return Either true or false
 	 */
 	@Override
 	public boolean anyRunningWorkflowsByTags(Set<String> tags) {
-		String SQL = "SELECT COUNT(*) FROM workflow WHERE workflow_status = 'RUNNING' AND tags && ?";
-		return queryWithTransaction(SQL, q -> q.addParameter(tags).executeScalar(Long.class) > 0);
+		if (runningTags != null && runningTags.knownRunning(tags)) {
+			return true;
+		}
+
+		String SQL = "SELECT EXISTS (SELECT 1 FROM workflow WHERE workflow_status = 'RUNNING' AND tags && ?)";
+		return queryReadOnly(SQL, q -> q.addParameter(tags).exists());
+	}
+
+	private void reloadRunningTags() {
+		try {
+			long start = System.currentTimeMillis();
+			// Uses the workflow_tagged_status partial index
+			String SQL = "SELECT DISTINCT unnest(tags) FROM workflow WHERE workflow_status = 'RUNNING' AND tags <> '{}'";
+			List<String> tags = queryReadOnly(SQL, q -> q.executeScalarList(String.class));
+			runningTags.reload(new HashSet<>(tags), start);
+		} catch (Throwable th) {
+			logger.error("reloadRunningTags: failed with {}", th.getMessage(), th);
+		}
 	}
 
 	@Override
@@ -544,31 +677,17 @@ public class AuroraExecutionDAO extends AuroraBaseDAO implements ExecutionDAO {
 
 		removeScheduledTask(tx, task, taskKey);
 		removeTaskInProgress(tx, task);
+		if (Wait.NAME.equals(task.getTaskType())) {
+			removeTaskMatch(tx, task);
+		}
 		removeTaskData(tx, task);
 	}
 
 	private void insertOrUpdateTask(Connection tx, Task task, boolean update) {
-		task.setUpdateTime(System.currentTimeMillis());
-		if (task.getStatus() != null && task.getStatus().isTerminal()) {
-			task.setEndTime(System.currentTimeMillis());
-		}
-
-		TaskDef taskDef = metadata.getTaskDef(task.getTaskDefName());
-		if (taskDef != null && taskDef.concurrencyLimit() > 0) {
-			updateInProgressStatus(tx, task);
-		}
+		beforeTaskUpdate(tx, task);
 
 		if (update) {
-			String SQL = "UPDATE task SET modified_on = now(), task_status = ?, json_data = ?, input = ?, output = ?, start_time = ?, end_time = ? WHERE task_id = ?";
-			execute(tx, SQL, q -> q
-				.addParameter(task.getStatus().name())
-				.addJsonParameter(task)
-				.addJsonParameter(task.getInputData())
-				.addJsonParameter(task.getOutputData())
-				.addTimestampParameter(task.getStartTime())
-				.addTimestampParameter(task.getEndTime())
-				.addParameter(task.getTaskId())
-				.executeUpdate());
+			execute(tx, UPDATE_TASK, q -> bindTaskUpdate(q, task).executeUpdate());
 		} else {
 			String SQL = "INSERT INTO task (task_id, task_type, task_refname, task_status, json_data, workflow_id, " +
 				"start_time, end_time, input, output) " +
@@ -585,10 +704,83 @@ public class AuroraExecutionDAO extends AuroraBaseDAO implements ExecutionDAO {
 				.addJsonParameter(task.getInputData())
 				.addJsonParameter(task.getOutputData())
 				.executeUpdate());
+
+			if (Wait.NAME.equals(task.getTaskType()) && !task.getStatus().isTerminal()) {
+				addTaskMatch(tx, task);
+			}
+		}
+
+		afterTaskUpdate(tx, task);
+	}
+
+	private void beforeTaskUpdate(Connection tx, Task task) {
+		task.setUpdateTime(System.currentTimeMillis());
+		if (task.getStatus() != null && task.getStatus().isTerminal()) {
+			task.setEndTime(System.currentTimeMillis());
+		}
+
+		TaskDef taskDef = metadata.getTaskDef(task.getTaskDefName());
+		if (taskDef != null && taskDef.concurrencyLimit() > 0) {
+			updateInProgressStatus(tx, task);
 		}
+	}
+
+	private Query bindTaskUpdate(Query q, Task task) {
+		return q.addParameter(task.getStatus().name())
+			.addJsonParameter(task)
+			.addJsonParameter(task.getInputData())
+			.addJsonParameter(task.getOutputData())
+			.addTimestampParameter(task.getStartTime())
+			.addTimestampParameter(task.getEndTime())
+			.addParameter(task.getTaskId());
+	}
 
+	private void afterTaskUpdate(Connection tx, Task task) {
 		if (task.getStatus() != null && task.getStatus().isTerminal()) {
 			removeTaskInProgress(tx, task);
+			if (Wait.NAME.equals(task.getTaskType())) {
+				removeTaskMatch(tx, task);
+			}
+		}
+	}
+
+	private void addTaskMatch(Connection tx, Task task) {
+		if (task.getInputData() == null || task.getInputData().isEmpty()) {
+			return;
+		}
+
+		// Warning! Constraint name is also unique index name
+		String SQL = "INSERT INTO task_match (task_id, match_key) " +
+			"SELECT ?, md5(e.key || '=' || e.value::text) FROM jsonb_each(?::jsonb) e " +
+			"ON CONFLICT ON CONSTRAINT task_match_fields DO NOTHING";
+
+		execute(tx, SQL, q -> q.addParameter(task.getTaskId())
+			.addJsonParameter(task.getInputData())
+			.executeUpdate());
+	}
+
+	private void removeTaskMatch(Connection tx, Task task) {
+		String SQL = "DELETE FROM task_match WHERE task_id = ?";
+
+		execute(tx, SQL, q -> q.addParameter(task.getTaskId()).executeDelete());
+	}
+
+	/**
+	 * Adds the WAIT tasks created before the task_match index existed (or by an older version)
+	 */
+	private void indexPendingWaitTasks() {
+		try {
+			String SQL = "INSERT INTO task_match (task_id, match_key) " +
+				"SELECT t.task_id, md5(e.key || '=' || e.value::text) FROM task t, " +
+				"jsonb_each(CASE WHEN jsonb_typeof(t.input::jsonb) = 'object' THEN t.input::jsonb ELSE '{}'::jsonb END) e " +
+				"WHERE t.task_type = ? AND t.task_status IN ('SCHEDULED', 'IN_PROGRESS') " +
+				"ON CONFLICT ON CONSTRAINT task_match_fields DO NOTHING";
+
+			int added = queryWithTransaction(SQL, q -> q.addParameter(Wait.NAME).executeUpdate());
+			logger.info("Pending wait tasks indexed, {} new entries", added);
+			matchIndexReady = true;
+		} catch (Exception ex) {
+			logger.error("indexPendingWaitTasks: failed with {}", ex.getMessage(), ex);
 		}
 	}
 
@@ -611,9 +803,16 @@ public class AuroraExecutionDAO extends AuroraBaseDAO implements ExecutionDAO {
 
 		workflow.setTasks(tasks);
 
+		cacheRunningTags(workflow);
 		return workflow.getWorkflowId();
 	}
 
+	private void cacheRunningTags(Workflow workflow) {
+		if (runningTags != null && workflow.getStatus() == Workflow.WorkflowStatus.RUNNING && workflow.getTags() != null) {
+			runningTags.running(workflow.getTags());
+		}
+	}
+
 	private void addWorkflow(Connection tx, Workflow workflow) {
 		String SQL = "INSERT INTO workflow (workflow_id, parent_workflow_id, workflow_type, workflow_status, " +
 			"correlation_id, tags, input, json_data, date_str, start_time) " +
@@ -677,20 +876,102 @@ public class AuroraExecutionDAO extends AuroraBaseDAO implements ExecutionDAO {
 	}
 
 	private void removeTaskInProgress(Connection tx, Task task) {
-		String SQL = "DELETE FROM task_in_progress WHERE task_def_name = ? AND task_id = ?";
+		String SQL = "DELETE FROM task_in_progress WHERE task_def_name = ? AND task_id = ? RETURNING in_progress";
 
-		execute(tx, SQL,
-			q -> q.addParameter(task.getTaskDefName()).addParameter(task.getTaskId()).executeUpdate());
+		List<Boolean> removed = query(tx, SQL,
+			q -> q.addParameter(task.getTaskDefName()).addParameter(task.getTaskId()).executeScalarList(Boolean.class));
+
+		// Release the permit held by the task
+		if (removed.contains(true) && hasConcurrencyLimit(task.getTaskDefName())) {
+			updateConcurrencyCounter(tx, task.getTaskDefName(), -1);
+		}
 	}
 
 	private void updateInProgressStatus(Connection tx, Task task) {
-		boolean inProgress = Task.Status.IN_PROGRESS.equals(task.getStatus());
+		// Only the IN_PROGRESS write takes the permit (if the task did not lease it already).
+		// Any other non-terminal write (e.g. the SCHEDULED one right after the lease) must keep it,
+		// the permit is released by removeTaskInProgress on a terminal status or the task removal
+		if (!Task.Status.IN_PROGRESS.equals(task.getStatus())) {
+			return;
+		}
+
+		String SQL = "UPDATE task_in_progress SET in_progress = true, modified_on = now() "
+			+ "WHERE task_def_name = ? AND task_id = ? AND in_progress = false";
+
+		int updated = query(tx, SQL, q -> q.addParameter(task.getTaskDefName())
+			.addParameter(task.getTaskId())
+			.executeUpdate());
+
+		if (updated > 0 && hasConcurrencyLimit(task.getTaskDefName())) {
+			updateConcurrencyCounter(tx, task.getTaskDefName(), 1);
+		}
+	}
+
+	private void updateConcurrencyCounter(Connection tx, String taskDefName, int delta) {
+		String SQL = "UPDATE task_concurrency SET leased = GREATEST(leased + ?, 0), modified_on = now() WHERE task_def_name = ?";
+
+		// The counter row is shared by all the nodes. Within a unit of work it is updated once the unit committed
+		// instead of being locked until the unit ends. A crash in between is repaired by the reconciler
+		AuroraUnitOfWork.Unit unit = AuroraUnitOfWork.current(dataSource);
+		if (unit != null && unit.tx == tx) {
+			unit.afterCommit(() -> getWithOwnTransaction(own -> query(own, SQL,
+				q -> q.addParameter(delta).addParameter(taskDefName).executeUpdate())));
+			return;
+		}
+
+		execute(tx, SQL, q -> q.addParameter(delta).addParameter(taskDefName).executeUpdate());
+	}
+
+	/**
+	 * Only the defs with a concurrency limit keep a counter. A counter left behind when the limit was removed
+	 * (or missed the flips while there was none) is repaired by {@link #reconcileConcurrencyCounters()}
+	 */
+	private boolean hasConcurrencyLimit(String taskDefName) {
+		TaskDef taskDef = metadata.getTaskDef(taskDefName);
+		return taskDef != null && taskDef.concurrencyLimit() > 0;
+	}
+
+	private void createConcurrencyCounterIfNotExists(String taskDefName) {
+		if (concurrencyCounters.contains(taskDefName)) {
+			return;
+		}
+
+		// Warning! Constraint name is also unique index name
+		String SQL = "INSERT INTO task_concurrency (task_def_name, leased) " +
+			"SELECT ?, COUNT(*) FROM task_in_progress WHERE task_def_name = ? AND in_progress = true " +
+			"ON CONFLICT ON CONSTRAINT task_concurrency_name DO NOTHING";
 
-		String SQL = "UPDATE task_in_progress SET in_progress = ?, modified_on = now() "
-			+ "WHERE task_def_name = ? AND task_id = ?";
+		getWithOwnTransaction(tx -> query(tx, SQL, q -> q.addParameter(taskDefName).addParameter(taskDefName).executeUpdate()));
+		concurrencyCounters.add(taskDefName);
+	}
 
-		execute(tx, SQL, q -> q.addParameter(inProgress)
-			.addParameter(task.getTaskDefName()).addParameter(task.getTaskId()).executeUpdate());
+	/**
+	 * Repairs the counters which drifted away from the in_progress flags,
+	 * e.g. when the task_in_progress records were deleted outside of this DAO
+	 */
+	private void reconcileConcurrencyCounters() {
+		try {
+			String NAMES = "SELECT task_def_name FROM task_concurrency";
+			List<String> names = queryWithTransaction(NAMES, q -> q.executeScalarList(String.class));
+
+			// Row lock on the counter serializes the recount with the lease/release of the permits
+			String LOCK = "SELECT leased FROM task_concurrency WHERE task_def_name = ? FOR UPDATE";
+			String COUNT = "SELECT COUNT(*) FROM task_in_progress WHERE task_def_name = ? AND in_progress = true";
+			String UPDATE = "UPDATE task_concurrency SET leased = ?, modified_on = now() WHERE task_def_name = ?";
+
+			for (String name : names) {
+				withTransaction(tx -> {
+					long leased = query(tx, LOCK, q -> q.addParameter(name).executeScalar(Long.class));
+					long actual = query(tx, COUNT, q -> q.addParameter(name).executeCount());
+					if (leased != actual) {
+						logger.warn("Concurrency counter for {} repaired: leased={}, actual={}", name, leased, actual);
+						execute(tx, UPDATE, q -> q.addParameter(actual).addParameter(name).executeUpdate());
+					}
+				});
+			}
+		} catch (Exception ex) {
+			logger.error("reconcileConcurrencyCounters: failed with {}", ex.getMessage(), ex);
+		}
 	}
 
 	private void removeScheduledTask(Connection tx, Task task, String taskKey) {
@@ -707,6 +988,10 @@ public class AuroraExecutionDAO extends AuroraBaseDAO implements ExecutionDAO {
 	}
 
 	private boolean insertEventExecution(Connection tx, EventExecution ee) {
+		if (partitioned) {
+			return insertPartitionedEventExecution(tx, ee);
+		}
+
 		String SQL = "INSERT INTO event_execution" +
 			"(handler_name, event_name, message_id, execution_id, status, subject, received_on, accepted_on) " +
 			"VALUES (?, ?, ?, ?, ?, ?, ?, ?) " +
@@ -723,6 +1008,34 @@ public class AuroraExecutionDAO extends AuroraBaseDAO implements ExecutionDAO {
 		return count > 0;
 	}
 
+	/**
+	 * The unique constraint of the partitioned table contains partition_on and does not catch the duplicates,
+	 * so the check is done under a transaction lock of the execution key
+	 */
+	private boolean insertPartitionedEventExecution(Connection tx, EventExecution ee) {
+		String key = ee.getName() + ":" + ee.getEvent() + ":" + ee.getMessageId() + ":" + ee.getId();
+		query(tx, "SELECT pg_advisory_xact_lock(hashtext(?))", q -> q.addParameter(key).executeScalar());
+
+		String SQL = "INSERT INTO event_execution" +
+			"(handler_name, event_name, message_id, execution_id, status, subject, received_on, accepted_on) " +
+			"SELECT ?, ?, ?, ?, ?, ?, ?, ? WHERE NOT EXISTS (SELECT 1 FROM event_execution " +
+			"WHERE handler_name = ? AND event_name = ? AND message_id = ? AND execution_id = ?)";
+		int count = query(tx, SQL, q -> q.addParameter(ee.getName())
+			.addParameter(ee.getEvent())
+			.addParameter(ee.getMessageId())
+			.addParameter(ee.getId())
+			.addParameter(ee.getStatus().name())
+			.addParameter(ee.getSubject())
+			.addTimestampParameter(ee.getReceived())
+			.addTimestampParameter(ee.getAccepted())
+			.addParameter(ee.getName())
+			.addParameter(ee.getEvent())
+			.addParameter(ee.getMessageId())
+			.addParameter(ee.getId())
+			.executeUpdate());
+		return count > 0;
+	}
+
 	private void updateEventExecution(Connection tx, EventExecution ee) {
 		String SQL = "UPDATE event_execution SET " +
 			"modified_on = now(), status = ?, started_on = ?, processed_on = ?" +
@@ -776,6 +1089,6 @@ public class AuroraExecutionDAO extends AuroraBaseDAO implements ExecutionDAO {
 
 	private List<PollData> readAllPollData(String queueName) {
 		String SQL = "SELECT json_data FROM poll_data WHERE queue_name = ?";
-		return queryWithTransaction(SQL, q -> q.addParameter(queueName).executeAndFetch(PollData.class));
+		return queryReadOnly(SQL, q -> q.addParameter(queueName).executeAndFetch(PollData.class));
 	}
 }
@@ -1,11 +1,13 @@
 package com.netflix.conductor.aurora;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.netflix.conductor.aurora.sql.Query;
 import com.netflix.conductor.common.metadata.events.EventExecution;
 import com.netflix.conductor.common.metadata.tasks.Task;
 import com.netflix.conductor.common.metadata.tasks.TaskExecLog;
 import com.netflix.conductor.common.run.SearchResult;
 import com.netflix.conductor.common.run.Workflow;
+import com.netflix.conductor.core.config.Configuration;
 import com.netflix.conductor.core.events.queue.Message;
 import com.netflix.conductor.dao.IndexDAO;
 import org.apache.commons.lang3.ArrayUtils;
@@ -15,6 +17,7 @@ import org.joda.time.format.ISODateTimeFormat;
 
 import javax.inject.Inject;
 import javax.sql.DataSource;
+import java.io.IOException;
 import java.sql.Timestamp;
 import java.util.Arrays;
 import java.util.Collection;
@@ -22,10 +25,18 @@ import java.util.LinkedList;
 import java.util.List;
 
 public class AuroraIndexDAO extends AuroraBaseDAO implements IndexDAO {
+	// Must be the same expression as the one of the workflow_search_text index
+	private static final String SEARCH_TEXT = "(workflow_id || ' ' || coalesce(correlation_id, '') || ' ' || coalesce(input, ''))";
+	private final ObjectMapper mapper;
+	private final boolean indexedSearch;
+	private final boolean estimatedCount;
 
 	@Inject
-	public AuroraIndexDAO(DataSource dataSource, ObjectMapper mapper) {
+	public AuroraIndexDAO(DataSource dataSource, ObjectMapper mapper, Configuration config) {
 		super(dataSource, mapper);
+		this.mapper = mapper;
+		this.indexedSearch = Boolean.parseBoolean(config.getProperty("workflow.aurora.search.indexed", "false"));
+		this.estimatedCount = Boolean.parseBoolean(config.getProperty("workflow.aurora.search.count.estimated", "false"));
 	}
 
 	@Override
@@ -108,45 +119,90 @@ public class AuroraIndexDAO extends AuroraBaseDAO implements IndexDAO {
 	}
 
 	@Override
-	@SuppressWarnings("unchecked")
 	public SearchResult<String> searchWorkflows(String query, String freeText, int start, int count, List<String> sort, String from, String end) {
 		logger.debug("searchWorkflows with query=" + query + ", freeText=" + freeText + ", start=" + start +
 			", count=" + count + ", sort=" + sort + ", from=" + from + ", end=" + end);
 
+		return search(query, freeText, null, start, count);
+	}
+
+	@Override
+	public SearchResult<String> searchWorkflowsAfter(String query, String freeText, String searchAfter, int count, List<String> sort, String from, String end) {
+		logger.debug("searchWorkflowsAfter with query=" + query + ", freeText=" + freeText + ", searchAfter=" + searchAfter +
+			", count=" + count + ", sort=" + sort + ", from=" + from + ", end=" + end);
+
+		return search(query, freeText, searchAfter, 0, count);
+	}
+
+	private SearchResult<String> search(String query, String freeText, String searchAfter, int start, int count) {
 		// Where statement here only to make simple the parseQuery/parseFreeText so they always can use AND ... AND ...
-		StringBuilder SQL = new StringBuilder("SELECT count(*) OVER() AS total_count, workflow_id FROM workflow WHERE 1=1 ");
+		StringBuilder WHERE = new StringBuilder("WHERE 1=1 ");
 
 		LinkedList<Object> params = new LinkedList<>();
-		parseQuery(query, SQL, params);
-		parseFreeText(freeText, SQL, params);
-
-		SQL.append("ORDER BY start_time DESC LIMIT ? OFFSET ?");
-
-		return queryWithTransaction(SQL.toString(), q -> {
-			params.forEach(p -> {
-				if (p instanceof Timestamp) {
-					q.addParameter((Timestamp) p);
-				} else if (p instanceof List) {
-					q.addParameter((Collection<String>) p);
-				} else if (p instanceof String) {
-					q.addParameter((String) p);
-				}
-			});
-
-			q.addParameter(count); // limit
-			q.addParameter(start); // offset
-
-			return q.executeAndFetch(rs -> {
-				long totalHits = 0;
-				List<String> ids = new LinkedList<>();
-				while (rs.next()) {
-					if (totalHits == 0) {
-						totalHits = rs.getLong("total_count");
-					}
-					ids.add(rs.getString("workflow_id"));
-				}
-				return new SearchResult<>(totalHits, ids);
-			});
+		parseQuery(query, WHERE, params);
+		parseFreeText(freeText, WHERE, params);
+
+		// Keyset pagination - the page starts right after the given workflow in the (start_time, workflow_id) order
+		StringBuilder SQL = new StringBuilder("SELECT workflow_id FROM workflow ").append(WHERE);
+		LinkedList<Object> pageParams = new LinkedList<>(params);
+		if (StringUtils.isNotEmpty(searchAfter)) {
+			SQL.append("AND (start_time, workflow_id) < (SELECT start_time, workflow_id FROM workflow WHERE workflow_id = ?) ");
+			pageParams.add(searchAfter);
+		}
+		SQL.append("ORDER BY start_time DESC, workflow_id DESC LIMIT ? OFFSET ?");
+		pageParams.add(count); // limit
+		pageParams.add(start); // offset
+
+		List<String> ids = queryWithTransaction(SQL.toString(), q -> {
+			addParameters(q, pageParams);
+			return q.executeScalarList(String.class);
+		});
+
+		// The total is the one of the whole search, not of the rest after the page
+		long totalHits = estimatedCount ? estimateCount(WHERE.toString(), params) : count(WHERE.toString(), params);
+
+		return new SearchResult<>(totalHits, ids);
+	}
+
+	private long count(String WHERE, List<Object> params) {
+		String SQL = "SELECT count(*) FROM workflow " + WHERE;
+
+		return queryWithTransaction(SQL, q -> {
+			addParameters(q, params);
+			return q.executeCount();
+		});
+	}
+
+	/**
+	 * @return Number of rows the planner expects the search to return
+	 */
+	private long estimateCount(String WHERE, List<Object> params) {
+		String SQL = "EXPLAIN (FORMAT JSON) SELECT workflow_id FROM workflow " + WHERE;
+
+		String plan = queryWithTransaction(SQL, q -> {
+			addParameters(q, params);
+			return q.executeScalar(String.class);
+		});
+		try {
+			return mapper.readTree(plan).path(0).path("Plan").path("Plan Rows").asLong();
+		} catch (IOException ex) {
+			logger.error("Unable to parse the search plan " + plan, ex);
+			return 0;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void addParameters(Query q, List<Object> params) {
+		params.forEach(p -> {
+			if (p instanceof Timestamp) {
+				q.addParameter((Timestamp) p);
+			} else if (p instanceof List) {
+				q.addParameter((Collection<String>) p);
+			} else if (p instanceof String) {
+				q.addParameter((String) p);
+			} else if (p instanceof Integer) {
+				q.addParameter((int) p);
+			}
 		});
 	}
 
@@ -204,8 +260,8 @@ public class AuroraIndexDAO extends AuroraBaseDAO implements IndexDAO {
 				params.add(new Timestamp(from.getMillis()));
 				params.add(new Timestamp(to.getMillis()));
 			} else if (!s.equals("*")) { // Do none filtering "*", just to match UI expectation to fetch all data
-				// Otherwise apply filter by data
-				SQL.append("AND json_data LIKE ? ");
+				// Otherwise apply filter by data, the indexed mode searches the trigram indexed fields only
+				SQL.append(indexedSearch ? "AND " + SEARCH_TEXT + " LIKE ? " : "AND json_data LIKE ? ");
 				params.add("%" + s.replaceAll("\"", "") + "%");
 			}
 		});
@@ -2,12 +2,15 @@ package com.netflix.conductor.aurora;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.netflix.conductor.common.metadata.events.EventHandler;
 import com.netflix.conductor.common.metadata.tasks.TaskDef;
 import com.netflix.conductor.common.metadata.workflow.WorkflowDef;
 import com.netflix.conductor.core.config.Configuration;
 import com.netflix.conductor.core.execution.ApplicationException;
 import com.netflix.conductor.dao.MetadataDAO;
+import com.netflix.conductor.service.MetricService;
 import org.apache.commons.lang3.tuple.Pair;
 
 import javax.inject.Inject;
@@ -23,12 +26,22 @@ import java.util.stream.Collectors;
 public class AuroraMetadataDAO extends AuroraBaseDAO implements MetadataDAO {
 	private static final String PROP_TASKDEF_CACHE_REFRESH = "conductor.taskdef.cache.refresh.time.seconds";
 	private static final int DEFAULT_TASKDEF_CACHE_REFRESH_SECONDS = 60;
+	private static final String PROP_WORKFLOWDEF_CACHE_TTL = "conductor.workflowdef.cache.ttl.seconds";
+	private static final int DEFAULT_WORKFLOWDEF_CACHE_TTL_SECONDS = 60;
 	private final ConcurrentHashMap<String, TaskDef> taskDefCache = new ConcurrentHashMap<>();
+	private final Cache<String, WorkflowDef> workflowDefCache;
 
 	@Inject
 	public AuroraMetadataDAO(DataSource dataSource, ObjectMapper mapper, Configuration config) {
 		super(dataSource, mapper);
 
+		// Other nodes do not invalidate our cache, so the definitions expire like the task defs get refreshed
+		int workflowDefTtl = config.getIntProperty(PROP_WORKFLOWDEF_CACHE_TTL, DEFAULT_WORKFLOWDEF_CACHE_TTL_SECONDS);
+		workflowDefCache = CacheBuilder.newBuilder()
+			.expireAfterWrite(workflowDefTtl, TimeUnit.SECONDS)
+			.maximumSize(1000)
+			.build();
+
 		int cacheRefreshTime = config.getIntProperty(PROP_TASKDEF_CACHE_REFRESH, DEFAULT_TASKDEF_CACHE_REFRESH_SECONDS);
 		ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor();
 		executorService.scheduleWithFixedDelay(this::refreshTaskDefs, cacheRefreshTime, cacheRefreshTime, TimeUnit.SECONDS);
@@ -108,6 +121,7 @@ public class AuroraMetadataDAO extends AuroraBaseDAO implements MetadataDAO {
 
 			insertOrUpdateWorkflowDef(tx, def);
 		});
+		workflowDefCache.invalidate(def.key());
 	}
 
 	@Override
@@ -115,6 +129,7 @@ public class AuroraMetadataDAO extends AuroraBaseDAO implements MetadataDAO {
 		validate(def);
 		def.setUpdateTime(System.currentTimeMillis());
 		withTransaction(tx -> insertOrUpdateWorkflowDef(tx, def));
+		workflowDefCache.invalidate(def.key());
 	}
 
 	@Override
@@ -130,6 +145,7 @@ public class AuroraMetadataDAO extends AuroraBaseDAO implements MetadataDAO {
 					String.format("No such workflow definition: %s version: %d", name, version));
 			}
 		});
+		workflowDefCache.invalidate(def.key());
 	}
 
 	@Override
@@ -137,16 +153,32 @@ public class AuroraMetadataDAO extends AuroraBaseDAO implements MetadataDAO {
 		final String SQL = "SELECT json_data FROM meta_workflow_def WHERE NAME = ? AND " +
 			"version = latest_version";
 
-		return queryWithTransaction(SQL,
+		return queryReadOnly(SQL,
 			q -> q.addParameter(name).executeAndFetchFirst(WorkflowDef.class));
 	}
 
+	/**
+	 * The definition is a shared indexed instance from the cache. Callers must not modify it
+	 */
 	@Override
 	public WorkflowDef get(String name, int version) {
+		String key = WorkflowDef.getKey(name, version);
+		WorkflowDef def = workflowDefCache.getIfPresent(key);
+		if (def != null) {
+			MetricService.getInstance().workflowDefCacheHit(name);
+			return def;
+		}
+		MetricService.getInstance().workflowDefCacheMiss(name);
+
 		final String SQL = "SELECT json_data FROM meta_workflow_def WHERE NAME = ? AND version = ?";
-		return queryWithTransaction(SQL, q -> q.addParameter(name)
+		def = queryReadOnly(SQL, q -> q.addParameter(name)
 			.addParameter(version)
 			.executeAndFetchFirst(WorkflowDef.class));
+		if (def != null) {
+			def.index();
+			workflowDefCache.put(key, def);
+		}
+		return def;
 	}
 
 	@Override
@@ -364,7 +396,7 @@ public class AuroraMetadataDAO extends AuroraBaseDAO implements MetadataDAO {
 	private TaskDef getTaskDefFromDB(String name) {
 		final String SQL = "SELECT json_data FROM meta_task_def WHERE name = ?";
 
-		return queryWithTransaction(SQL,
+		return queryReadOnly(SQL,
 			q -> q.addParameter(name).executeAndFetchFirst(TaskDef.class));
 	}
 
@@ -3,6 +3,7 @@ package com.netflix.conductor.aurora;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.netflix.conductor.aurora.sql.ResultSetHandler;
 
+import com.netflix.conductor.core.config.Configuration;
 import com.netflix.conductor.dao.MetricsDAO;
 import com.netflix.conductor.service.MetricService;
 
@@ -12,12 +13,32 @@ import java.util.*;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class AuroraMetricsDAO extends AuroraBaseDAO implements MetricsDAO {
 
 	@Inject
-	public AuroraMetricsDAO(DataSource dataSource, ObjectMapper mapper) {
+	public AuroraMetricsDAO(DataSource dataSource, ObjectMapper mapper, Configuration config) {
 		super(dataSource, mapper);
+
+		int publishSeconds = config.getIntProperty("workflow.aurora.statement.stats.publish.seconds", 60);
+		// Daemon, so the publisher never keeps the JVM from exiting
+		ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "aurora-statement-stats");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executorService.scheduleWithFixedDelay(this::publishStatementStats, publishSeconds, publishSeconds, TimeUnit.SECONDS);
+	}
+
+	private void publishStatementStats() {
+		try {
+			StatementStats.publish();
+		} catch (Throwable th) {
+			// Keeps the scheduled publish alive
+			logger.error("Unable to publish the statement stats " + th.getMessage(), th);
+		}
 	}
 
 	@Override
@@ -115,4 +136,9 @@ public class AuroraMetricsDAO extends AuroraBaseDAO implements MetricsDAO {
 			}));
 	}
 
+	@Override
+	public List<Map<String, Object>> getSlowStatements(int count, String orderBy) {
+		return StatementStats.slowest(count, orderBy);
+	}
+
 }
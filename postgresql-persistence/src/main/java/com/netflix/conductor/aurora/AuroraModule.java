@@ -20,6 +20,7 @@ package com.netflix.conductor.aurora;
 
 import com.google.inject.AbstractModule;
 import com.google.inject.Scopes;
+import com.netflix.conductor.core.utils.RateLimiter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -35,6 +36,7 @@ public class AuroraModule extends AbstractModule {
 	@Override
 	protected void configure() {
         bind(DataSource.class).toProvider(AuroraDataSourceProvider.class).in(Scopes.SINGLETON);
+		bind(RateLimiter.class).toProvider(AuroraRateLimiterProvider.class).in(Scopes.SINGLETON);
 		logger.debug("Aurora Module configured ...");
 	}
 }
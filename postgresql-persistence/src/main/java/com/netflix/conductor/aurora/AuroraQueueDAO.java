@@ -26,7 +26,9 @@ public class AuroraQueueDAO extends AuroraBaseDAO implements QueueDAO {
 	private static final Set<String> queues = ConcurrentHashMap.newKeySet();
 	private static final Long UNACK_SCHEDULE_MS = 300_000L;
 	private static final Long UNACK_TIME_MS = 60_000L;
+	private static final Long POLL_INTERVAL_MS = 50L;
 	private final Configuration config;
+	private final AuroraQueueListener listener;
 
 	@Inject
 	public AuroraQueueDAO(DataSource dataSource, ObjectMapper mapper, Configuration config) {
@@ -34,6 +36,15 @@ public class AuroraQueueDAO extends AuroraBaseDAO implements QueueDAO {
 		this.config = config;
 		loadQueues();
 
+		// Push-based wakeups for the pop instead of polling every 50 ms
+		boolean notifyEnabled = Boolean.parseBoolean(config.getProperty("aurora.queue.notify.enabled", "false"));
+		if (notifyEnabled) {
+			int receiveTimeout = config.getIntProperty("aurora.queue.notify.receive.timeout", 500);
+			this.listener = new AuroraQueueListener(dataSource, receiveTimeout);
+		} else {
+			this.listener = null;
+		}
+
 		ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor();
 		executorService.scheduleWithFixedDelay(this::processAllUnacks, UNACK_SCHEDULE_MS, UNACK_SCHEDULE_MS, TimeUnit.MILLISECONDS);
 
@@ -51,20 +62,59 @@ public class AuroraQueueDAO extends AuroraBaseDAO implements QueueDAO {
 	@Override
 	public void push(String queueName, String id, long offsetSeconds) {
 		createQueueIfNotExists(queueName);
-		withTransaction(tx -> pushMessage(tx, queueName, id, null, offsetSeconds));
+		withTransaction(tx -> {
+			if (pushMessage(tx, queueName, id, null, offsetSeconds)) {
+				notifyQueue(tx, queueName);
+			}
+		});
 	}
 
 	@Override
 	public void push(String queueName, List<Message> messages) {
 		createQueueIfNotExists(queueName);
-		withTransaction(tx -> messages
-			.forEach(message -> pushMessage(tx, queueName, message.getId(), message.getPayload(), 0)));
+		withTransaction(tx -> {
+			boolean pushed = false;
+			for (Message message : messages) {
+				pushed |= pushMessage(tx, queueName, message.getId(), message.getPayload(), 0);
+			}
+			if (pushed) {
+				notifyQueue(tx, queueName);
+			}
+		});
+	}
+
+	@Override
+	public void pushAll(String queueName, List<String> ids, long offsetSeconds) {
+		if (ids.isEmpty()) {
+			return;
+		}
+		final String SQL = "INSERT INTO queue_message (queue_name, message_id, popped, deliver_on) " +
+			"SELECT ?, unnest(?), false, ? ON CONFLICT ON CONSTRAINT queue_name_msg DO NOTHING";
+
+		long deliverOn = System.currentTimeMillis() + (offsetSeconds * 1000);
+
+		createQueueIfNotExists(queueName);
+		withTransaction(tx -> {
+			int pushed = query(tx, SQL, q -> q.addParameter(queueName.toLowerCase())
+				.addParameter(ids)
+				.addTimestampParameter(deliverOn)
+				.executeUpdate());
+			if (pushed > 0) {
+				notifyQueue(tx, queueName);
+			}
+		});
 	}
 
 	@Override
 	public boolean pushIfNotExists(String queueName, String id, long offsetSeconds) {
 		createQueueIfNotExists(queueName);
-		return getWithTransaction(tx -> pushMessage(tx, queueName, id, null, offsetSeconds));
+		return getWithTransaction(tx -> {
+			boolean pushed = pushMessage(tx, queueName, id, null, offsetSeconds);
+			if (pushed) {
+				notifyQueue(tx, queueName);
+			}
+			return pushed;
+		});
 	}
 
 	/**
@@ -75,6 +125,9 @@ public class AuroraQueueDAO extends AuroraBaseDAO implements QueueDAO {
 	 * 4) Otherwise some other node took it as we are dealing in the multi-threaded world
 	 * <p>
 	 * Steps 2+3 must be in separate session
+	 * <p>
+	 * When the notify mode is enabled the pop does not re-query every 50 ms. It waits until the queue
+	 * gets notified by push/wakeup/unpop (on any node) or until the earliest delayed message becomes due.
 	 *
 	 * @param queueName Name of the queue
 	 * @param count     number of messages to be read from the queue
@@ -91,6 +144,9 @@ public class AuroraQueueDAO extends AuroraBaseDAO implements QueueDAO {
 			"SET popped = true, unack_on = ?, version = version + 1 " +
 			"WHERE id = ANY(?) RETURNING message_id";
 
+		final String NEXT_DUE = "SELECT COALESCE(CAST(EXTRACT(EPOCH FROM (min(deliver_on) - now())) * 1000 AS BIGINT), ?) " +
+			"FROM queue_message WHERE queue_name = ? AND deliver_on >= now() AND popped = false";
+
 		MetricService.getInstance().queuePop(queueName);
 		try {
 			long start = System.currentTimeMillis();
@@ -105,6 +161,9 @@ public class AuroraQueueDAO extends AuroraBaseDAO implements QueueDAO {
 				try {
 					// Repeat until foundIds = count or time spent = timeout
 					while (keepPooling.get()) {
+						// Must be taken before the query so a notification in between is not missed
+						long sequence = listener != null ? listener.sequence(queueName) : 0;
+
 						// Limit how many left to pick up
 						int limit = count - foundIds.size();
 
@@ -138,7 +197,18 @@ public class AuroraQueueDAO extends AuroraBaseDAO implements QueueDAO {
 						}
 
 						// Wait a little bit before next iteration
-						TimeUnit.MILLISECONDS.sleep(50);
+						if (listener == null) {
+							TimeUnit.MILLISECONDS.sleep(POLL_INTERVAL_MS);
+						} else {
+							long timeLeft = timeout - (System.currentTimeMillis() - start);
+							long nextDue = query(tx, NEXT_DUE, q -> q
+								.addParameter(timeLeft)
+								.addParameter(queueName.toLowerCase())
+								.executeScalar(Long.class));
+							tx.commit();
+
+							listener.await(queueName, sequence, Math.min(timeLeft, nextDue + 1));
+						}
 					}
 				} catch (Exception ex) {
 					logger.debug("pop: rollback for {} with {}", queueName, ex.getMessage(), ex);
@@ -159,9 +229,14 @@ public class AuroraQueueDAO extends AuroraBaseDAO implements QueueDAO {
 				"SET popped = false, unack_on = null, unacked = false, version = version + 1 " +
 				"WHERE queue_name = ? AND message_id = ?";
 
-		executeWithTransaction(UPDATE, q -> q.addParameter(queueName.toLowerCase())
+		withTransaction(tx -> {
+			int updated = query(tx, UPDATE, q -> q.addParameter(queueName.toLowerCase())
 				.addParameter(messageId)
 				.executeUpdate());
+			if (updated > 0) {
+				notifyQueue(tx, queueName);
+			}
+		});
 	}
 
 	@Override
@@ -190,10 +265,15 @@ public class AuroraQueueDAO extends AuroraBaseDAO implements QueueDAO {
 				"SET popped = false, deliver_on = now(), unack_on = null, unacked = false, version = version + 1 " +
 				"WHERE id IN (SELECT id FROM queue_message WHERE queue_name = ? AND unack_on < ? AND popped = true FOR UPDATE SKIP LOCKED)";
 
-			executeWithTransaction(SQL, q -> q
-				.addParameter(queueName.toLowerCase())
-				.addTimestampParameter(unack_on)
-				.executeUpdate());
+			withTransaction(tx -> {
+				int updated = query(tx, SQL, q -> q
+					.addParameter(queueName.toLowerCase())
+					.addTimestampParameter(unack_on)
+					.executeUpdate());
+				if (updated > 0) {
+					notifyQueue(tx, queueName);
+				}
+			});
 		} catch (Exception ex) {
 			logger.error("processUnacks: failed for {} with {}", queueName, ex.getMessage(), ex);
 		}
@@ -230,10 +310,21 @@ public class AuroraQueueDAO extends AuroraBaseDAO implements QueueDAO {
 		withTransaction(tx -> removeMessage(tx, queueName, messageId));
 	}
 
+	@Override
+	public void removeAll(String queueName, List<String> messageIds) {
+		if (messageIds.isEmpty()) {
+			return;
+		}
+		final String SQL = "DELETE FROM queue_message WHERE queue_name = ? AND message_id = ANY(?)";
+		executeWithTransaction(SQL, q -> q.addParameter(queueName.toLowerCase())
+			.addParameter(messageIds)
+			.executeDelete());
+	}
+
 	@Override
 	public int getSize(String queueName) {
 		final String SQL = "SELECT COUNT(*) FROM queue_message WHERE queue_name = ?";
-		return queryWithTransaction(SQL, q -> ((Long) q.addParameter(queueName.toLowerCase()).executeCount()).intValue());
+		return queryReadOnly(SQL, q -> ((Long) q.addParameter(queueName.toLowerCase()).executeCount()).intValue());
 	}
 
 	@Override
@@ -250,7 +341,7 @@ public class AuroraQueueDAO extends AuroraBaseDAO implements QueueDAO {
 	@Override
 	public Map<String, Long> queuesDetail() {
 		final String SQL = "SELECT queue_name, (SELECT count(*) FROM queue_message WHERE popped = false AND queue_name = q.queue_name) AS size FROM queue q";
-		return queryWithTransaction(SQL, q -> q.executeAndFetch(rs -> {
+		return queryReadOnly(SQL, q -> q.executeAndFetch(rs -> {
 			Map<String, Long> detail = Maps.newHashMap();
 			while (rs.next()) {
 				String queueName = rs.getString("queue_name");
@@ -284,7 +375,7 @@ public class AuroraQueueDAO extends AuroraBaseDAO implements QueueDAO {
 
 	@Override
 	public boolean exists(String queueName, String id) {
-		return getWithTransaction(tx -> existsMessage(tx, queueName, id));
+		return getReadOnly(tx -> existsMessage(tx, queueName, id));
 	}
 
 	@Override
@@ -327,10 +418,16 @@ public class AuroraQueueDAO extends AuroraBaseDAO implements QueueDAO {
 			"SET popped = false, deliver_on = ?, unack_on = null, unacked = false, version = version + 1 " +
 			"WHERE id = ? AND version = ?";
 
-		return queryWithTransaction(UPDATE, q -> q.addTimestampParameter(1L)
-			.addParameter(record.id)
-			.addParameter(record.version)
-			.executeUpdate()) > 0;
+		return getWithTransaction(tx -> {
+			boolean updated = query(tx, UPDATE, q -> q.addTimestampParameter(1L)
+				.addParameter(record.id)
+				.addParameter(record.version)
+				.executeUpdate()) > 0;
+			if (updated) {
+				notifyQueue(tx, queueName);
+			}
+			return updated;
+		});
 	}
 
 	private boolean existsMessage(Connection connection, String queueName, String messageId) {
@@ -352,6 +449,19 @@ public class AuroraQueueDAO extends AuroraBaseDAO implements QueueDAO {
 			.executeUpdate() > 0);
 	}
 
+	/**
+	 * Sends the queue notification. Postgres delivers it on commit and folds duplicates within the transaction
+	 */
+	private void notifyQueue(Connection connection, String queueName) {
+		if (listener == null) {
+			return;
+		}
+		final String SQL = "SELECT pg_notify(?, ?)";
+		execute(connection, SQL, q -> q.addParameter(AuroraQueueListener.CHANNEL)
+			.addParameter(queueName.toLowerCase())
+			.executeScalar());
+	}
+
 	private Message peekMessage(Connection connection, String queueName, String messageId) {
 		final String SQL = "SELECT message_id, payload FROM queue_message WHERE queue_name = ? AND message_id = ?";
 
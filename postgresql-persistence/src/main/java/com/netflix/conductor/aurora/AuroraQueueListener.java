@@ -0,0 +1,149 @@
+package com.netflix.conductor.aurora;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds one shared LISTEN connection and wakes up the threads blocked in {@link AuroraQueueDAO#pop}
+ * once their queue gets notified. The notification payload is the (lower case) queue name.
+ * <p>
+ * While the listener connection is down the waiters fall back to the short polling interval.
+ */
+class AuroraQueueListener {
+	static final String CHANNEL = "queue_message";
+	private static final Logger logger = LoggerFactory.getLogger(AuroraQueueListener.class);
+	private static final long FALLBACK_WAIT_MS = 50;
+	private static final long RECONNECT_DELAY_MS = 1000;
+
+	private final Map<String, Signal> signals = new ConcurrentHashMap<>();
+	private final DataSource dataSource;
+	private final int receiveTimeout;
+	private volatile boolean listening = false;
+	private volatile boolean running = true;
+	private final Thread thread;
+
+	AuroraQueueListener(DataSource dataSource, int receiveTimeout) {
+		this.dataSource = dataSource;
+		this.receiveTimeout = receiveTimeout;
+
+		this.thread = new Thread(this::listen, "aurora-queue-listener");
+		this.thread.setDaemon(true);
+		this.thread.start();
+
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			logger.info("Closing queue listener");
+			running = false;
+			thread.interrupt();
+		}));
+	}
+
+	/**
+	 * @param queueName Name of the queue
+	 * @return Current notification sequence of the queue. Must be taken before querying the queue
+	 */
+	long sequence(String queueName) {
+		return signal(queueName).sequence();
+	}
+
+	/**
+	 * Blocks until the queue gets notified after the given sequence or the wait time elapses
+	 *
+	 * @param queueName Name of the queue
+	 * @param sequence  Sequence taken before the last query
+	 * @param waitMs    Max time to wait in milliseconds
+	 */
+	void await(String queueName, long sequence, long waitMs) throws InterruptedException {
+		if (waitMs <= 0) {
+			return;
+		}
+		if (!listening) {
+			TimeUnit.MILLISECONDS.sleep(Math.min(waitMs, FALLBACK_WAIT_MS));
+			return;
+		}
+		signal(queueName).await(sequence, waitMs);
+	}
+
+	private Signal signal(String queueName) {
+		return signals.computeIfAbsent(queueName.toLowerCase(), name -> new Signal());
+	}
+
+	private void signalAll() {
+		signals.values().forEach(Signal::fire);
+	}
+
+	private void listen() {
+		while (running) {
+			try (Connection connection = dataSource.getConnection()) {
+				connection.setAutoCommit(true);
+				try (Statement st = connection.createStatement()) {
+					st.execute("LISTEN " + CHANNEL);
+				}
+				PGConnection pgConnection = connection.unwrap(PGConnection.class);
+
+				logger.info("Listening for {} notifications", CHANNEL);
+				listening = true;
+
+				// Anything pushed while we were not listening is lost, so let everybody re-query
+				signalAll();
+
+				while (running) {
+					PGNotification[] notifications = pgConnection.getNotifications(receiveTimeout);
+					if (notifications == null) {
+						continue;
+					}
+					for (PGNotification notification : notifications) {
+						Signal signal = signals.get(notification.getParameter());
+						if (signal != null) {
+							signal.fire();
+						}
+					}
+				}
+			} catch (Exception ex) {
+				if (!running) {
+					break;
+				}
+				logger.error("Queue listener failed with {}", ex.getMessage(), ex);
+			} finally {
+				listening = false;
+				signalAll();
+			}
+
+			try {
+				TimeUnit.MILLISECONDS.sleep(RECONNECT_DELAY_MS);
+			} catch (InterruptedException ex) {
+				break;
+			}
+		}
+	}
+
+	private static class Signal {
+		private long sequence;
+
+		synchronized long sequence() {
+			return sequence;
+		}
+
+		synchronized void fire() {
+			sequence++;
+			notifyAll();
+		}
+
+		synchronized void await(long seen, long waitMs) throws InterruptedException {
+			long deadline = System.currentTimeMillis() + waitMs;
+			long left = waitMs;
+			while (sequence == seen && left > 0) {
+				wait(left);
+				left = deadline - System.currentTimeMillis();
+			}
+		}
+	}
+}
@@ -0,0 +1,127 @@
+package com.netflix.conductor.aurora;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.netflix.conductor.common.metadata.tasks.TaskDef;
+import com.netflix.conductor.core.utils.RateLimiter;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cluster wide token bucket per task definition.
+ * <p>
+ * The bucket is one row in task_rate_bucket which is refilled and drawn from by a single atomic UPDATE.
+ * Each node reserves the tokens in small batches and hands them out locally without going to the database,
+ * so the database is only touched once per batch instead of three times per check.
+ * Unused reserved tokens expire with the frequency window so a node cannot hoard them.
+ */
+public class AuroraRateLimiter extends AuroraBaseDAO implements RateLimiter {
+	private final Map<String, Reservation> reservations = new ConcurrentHashMap<>();
+	private final int batchSize;
+
+	public AuroraRateLimiter(DataSource dataSource, ObjectMapper mapper, int batchSize) {
+		super(dataSource, mapper);
+		this.batchSize = batchSize;
+	}
+
+	@Override
+	public boolean tryAcquire(TaskDef taskDef) {
+		Reservation reservation = reservations.computeIfAbsent(taskDef.getName(), name -> new Reservation());
+		if (reservation.take()) {
+			return true;
+		}
+
+		// Only one thread per task definition goes to the database, the rest take from what it reserved
+		synchronized (reservation) {
+			if (reservation.take()) {
+				return true;
+			}
+
+			int capacity = taskDef.getRateLimitPerFrequency();
+			long periodMs = TimeUnit.SECONDS.toMillis(taskDef.getRateLimitFrequencyInSeconds());
+
+			// Do not let a single node drain the whole bucket
+			int batch = Math.max(1, Math.min(batchSize, capacity / 10));
+
+			long granted = reserve(taskDef.getName(), capacity, periodMs, batch);
+			if (granted <= 0) {
+				return false;
+			}
+
+			reservation.refill(granted - 1, System.currentTimeMillis() + periodMs);
+			return true;
+		}
+	}
+
+	@Override
+	public void release(TaskDef taskDef) {
+		// Back to the local reservation only, an expired one lets the token go with its window
+		Reservation reservation = reservations.get(taskDef.getName());
+		if (reservation != null) {
+			reservation.giveBack();
+		}
+	}
+
+	private long reserve(String taskDefName, int capacity, long periodMs, int batch) {
+		final String CREATE = "INSERT INTO task_rate_bucket (task_def_name, tokens, refilled_on) VALUES (?, ?, now()) " +
+			"ON CONFLICT ON CONSTRAINT task_rate_bucket_name DO NOTHING";
+
+		final String RESERVE = "WITH cur AS (" +
+			"SELECT task_def_name, LEAST(?, tokens + EXTRACT(EPOCH FROM (now() - refilled_on)) * 1000 * ?) AS available " +
+			"FROM task_rate_bucket WHERE task_def_name = ? FOR UPDATE) " +
+			"UPDATE task_rate_bucket b SET tokens = cur.available - LEAST(FLOOR(cur.available), ?), refilled_on = now() " +
+			"FROM cur WHERE b.task_def_name = cur.task_def_name " +
+			"RETURNING CAST(LEAST(FLOOR(cur.available), ?) AS BIGINT)";
+
+		double tokensPerMs = (double) capacity / periodMs;
+
+		// The bucket row lock is shared by all the nodes, it must not wait for the end of a unit of work
+		return getWithOwnTransaction(tx -> {
+			// The very first check for the task definition creates the bucket full
+			execute(tx, CREATE, q -> q.addParameter(taskDefName)
+				.addParameter((double) capacity)
+				.executeUpdate());
+
+			return query(tx, RESERVE, q -> q
+				.addParameter((double) capacity)
+				.addParameter(tokensPerMs)
+				.addParameter(taskDefName)
+				.addParameter(batch)
+				.addParameter(batch)
+				.executeScalar(Long.class));
+		});
+	}
+
+	private static class Reservation {
+		private final AtomicLong tokens = new AtomicLong();
+		private volatile long expiresOn;
+
+		boolean take() {
+			if (System.currentTimeMillis() >= expiresOn) {
+				return false;
+			}
+			long current;
+			do {
+				current = tokens.get();
+				if (current <= 0) {
+					return false;
+				}
+			} while (!tokens.compareAndSet(current, current - 1));
+			return true;
+		}
+
+		void giveBack() {
+			if (System.currentTimeMillis() < expiresOn) {
+				tokens.incrementAndGet();
+			}
+		}
+
+		void refill(long granted, long expiresOn) {
+			this.tokens.set(granted);
+			this.expiresOn = expiresOn;
+		}
+	}
+}
@@ -0,0 +1,35 @@
+package com.netflix.conductor.aurora;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.netflix.conductor.core.config.Configuration;
+import com.netflix.conductor.core.utils.RateLimiter;
+import com.netflix.conductor.core.utils.TokenBucketRateLimiter;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.sql.DataSource;
+
+public class AuroraRateLimiterProvider implements Provider<RateLimiter> {
+	private final Configuration config;
+	private final DataSource dataSource;
+	private final ObjectMapper mapper;
+
+	@Inject
+	public AuroraRateLimiterProvider(Configuration config, DataSource dataSource, ObjectMapper mapper) {
+		this.config = config;
+		this.dataSource = dataSource;
+		this.mapper = mapper;
+	}
+
+	@Override
+	public RateLimiter get() {
+		// local - per node token bucket, cluster - token bucket shared via the database
+		String mode = config.getProperty("workflow.rate.limiter.mode", "cluster");
+		if ("local".equalsIgnoreCase(mode)) {
+			return new TokenBucketRateLimiter();
+		}
+
+		int batchSize = config.getIntProperty("workflow.rate.limiter.batch.size", 10);
+		return new AuroraRateLimiter(dataSource, mapper, batchSize);
+	}
+}
@@ -0,0 +1,113 @@
+package com.netflix.conductor.aurora;
+
+import com.netflix.conductor.core.execution.ApplicationException;
+import com.netflix.conductor.dao.UnitOfWork;
+import com.netflix.conductor.service.MetricService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Runs every Aurora DAO call of the thread within the unit on one connection and one transaction, committed once
+ * at the end. The reads of the unit see its own writes. Enabled by workflow.aurora.unit.of.work.enabled.
+ * <p>
+ * Any failed DAO call marks the unit failed and the whole unit is rolled back, even if the caller carried on.
+ * The transaction is open for the whole decide/update, so the row locks taken are held until its end. The rows
+ * shared by all the nodes are kept out of it: the concurrency permits and rate buckets are taken in their own
+ * short transactions, and the concurrency counters are updated by {@link Unit#afterCommit} actions.
+ * <p>
+ * Only the database writes are rolled back. The side effects made in memory during the unit stay, e.g. the
+ * tags added to {@link RunningTagsCache}, the definitions put into the metadata caches, and the notifications
+ * of the task/workflow status listeners.
+ */
+class AuroraUnitOfWork implements UnitOfWork.Scope {
+	private static final Logger logger = LoggerFactory.getLogger(AuroraUnitOfWork.class);
+	private static final ThreadLocal<Unit> units = new ThreadLocal<>();
+	private final DataSource dataSource;
+
+	AuroraUnitOfWork(DataSource dataSource) {
+		this.dataSource = dataSource;
+	}
+
+	/**
+	 * @return The unit of the current thread on the data source or null
+	 */
+	static Unit current(DataSource dataSource) {
+		Unit unit = units.get();
+		return unit != null && unit.dataSource == dataSource ? unit : null;
+	}
+
+	@Override
+	public <T> T run(String name, Callable<T> work) throws Exception {
+		if (units.get() != null) {
+			return work.call();
+		}
+
+		long start = System.currentTimeMillis();
+		try (Connection tx = StatementStats.acquire(dataSource)) {
+			tx.setAutoCommit(false);
+			Unit unit = new Unit(dataSource, tx);
+			units.set(unit);
+			try {
+				T result = work.call();
+				if (unit.failed) {
+					throw new ApplicationException(ApplicationException.Code.BACKEND_ERROR, "Unit of work " + name + " failed");
+				}
+				tx.commit();
+				unit.roundTrips++;
+				units.remove();
+				unit.runAfterCommit();
+				return result;
+			} catch (Throwable th) {
+				tx.rollback();
+				unit.roundTrips++;
+				throw th;
+			} finally {
+				units.remove();
+
+				long time = System.currentTimeMillis() - start;
+				// Each call would have been a transaction with its own commit otherwise
+				logger.debug("Unit of work {}: {} calls, {} statements, {} round trips in {} ms",
+					name, unit.calls, unit.statements, unit.roundTrips, time);
+				MetricService.getInstance().unitOfWork(name, unit.statements, unit.roundTrips, time);
+			}
+		}
+	}
+
+	static class Unit {
+		private final DataSource dataSource;
+		final Connection tx;
+		int calls;
+		int statements;
+		int roundTrips;
+		boolean failed;
+		private final List<Runnable> afterCommit = new LinkedList<>();
+
+		Unit(DataSource dataSource, Connection tx) {
+			this.dataSource = dataSource;
+			this.tx = tx;
+		}
+
+		/**
+		 * @param action Runs once the unit committed, not at all if it was rolled back. It must use its own transaction
+		 */
+		void afterCommit(Runnable action) {
+			afterCommit.add(action);
+		}
+
+		private void runAfterCommit() {
+			for (Runnable action : afterCommit) {
+				try {
+					action.run();
+				} catch (Exception ex) {
+					logger.error("Unit of work after commit action failed with " + ex.getMessage(), ex);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package com.netflix.conductor.aurora;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tags of the running workflows, answers {@link AuroraExecutionDAO#anyRunningWorkflowsByTags} without a query
+ * when a tag is known to be running. Enabled by workflow.aurora.tags.cache.enabled.
+ * <p>
+ * The tags are reloaded from the database periodically, the tags of the workflows this instance stores as running
+ * are added right away. A workflow started or resumed by another instance is not known until the next reload,
+ * so a miss is not an answer: the caller confirms it with the query. The tags of the finished workflows are
+ * dropped by the next reload, meanwhile the actions just find nothing to update.
+ */
+class RunningTagsCache {
+	private final Map<String, Long> started = new ConcurrentHashMap<>();
+	private volatile Set<String> loaded = Collections.emptySet();
+	private long previousLoad;
+
+	/**
+	 * Adds the tags of a workflow which is running now
+	 */
+	void running(Set<String> tags) {
+		long now = System.currentTimeMillis();
+		tags.forEach(tag -> started.put(tag, now));
+	}
+
+	/**
+	 * @return true if any of the tags is known to belong to a running workflow, false if unknown
+	 */
+	boolean knownRunning(Set<String> tags) {
+		Set<String> current = loaded;
+		for (String tag : tags) {
+			if (current.contains(tag) || started.containsKey(tag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param tags The tags of the running workflows read by the query started at loadStarted
+	 */
+	synchronized void reload(Set<String> tags, long loadStarted) {
+		loaded = tags;
+		// Only the tags added before the previous load surely were committed before this one read them
+		long committed = previousLoad;
+		started.values().removeIf(time -> time < committed);
+		previousLoad = loadStarted;
+	}
+}
@@ -0,0 +1,194 @@
+package com.netflix.conductor.aurora;
+
+import com.netflix.conductor.service.MetricService;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Latency histogram and rows of every statement run by the Aurora DAOs, keyed by the SQL text. The statement name
+ * (e.g. update.task) is derived once per SQL, so recording is a map lookup and a few adders.
+ * <p>
+ * The totals since start back the slowest statements list. {@link #publish()} sends what was recorded since the
+ * previous publish to statsd, it is called by a single scheduler thread.
+ */
+class StatementStats {
+	private static final Pattern TABLE = Pattern.compile("\\b(?:FROM|INTO|UPDATE)\\s+([a-z_]+)", Pattern.CASE_INSENSITIVE);
+	private static final long[] BUCKETS_MS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+	private static final Map<String, StatementStats> statements = new ConcurrentHashMap<>();
+	private static final StatementStats connection = new StatementStats("connection.acquire", null);
+
+	private final String name;
+	private final String sql;
+	private final LongAdder count = new LongAdder();
+	private final LongAdder nanos = new LongAdder();
+	private final LongAdder rows = new LongAdder();
+	private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+	private final LongAdder[] buckets = new LongAdder[BUCKETS_MS.length + 1];
+
+	// Totals at the previous publish
+	private long publishedCount;
+	private long publishedNanos;
+	private long publishedRows;
+	private final long[] publishedBuckets = new long[BUCKETS_MS.length + 1];
+
+	private StatementStats(String name, String sql) {
+		this.name = name;
+		this.sql = sql;
+		for (int i = 0; i < buckets.length; i++) {
+			buckets[i] = new LongAdder();
+		}
+	}
+
+	static void record(String sql, long nanos, int rows) {
+		StatementStats stats = statements.get(sql);
+		if (stats == null) {
+			stats = statements.computeIfAbsent(sql, k -> new StatementStats(name(k), k));
+		}
+		stats.add(nanos, rows);
+	}
+
+	/**
+	 * @return A connection of the pool, the time waited for it is recorded
+	 */
+	static Connection acquire(DataSource dataSource) throws SQLException {
+		long start = System.nanoTime();
+		Connection tx = dataSource.getConnection();
+		connection.add(System.nanoTime() - start, 0);
+		return tx;
+	}
+
+	/**
+	 * @param orderBy One of total, mean, max, p99
+	 * @return The statements with the highest orderBy time since start
+	 */
+	static List<Map<String, Object>> slowest(int limit, String orderBy) {
+		Comparator<Map<String, Object>> comparator = Comparator.comparing(m -> (Double) m.get(orderBy + "Ms"));
+		return statements.values().stream()
+			.map(StatementStats::toMap)
+			.sorted(comparator.reversed())
+			.limit(limit)
+			.collect(Collectors.toList());
+	}
+
+	static void publish() {
+		MetricService metrics = MetricService.getInstance();
+		for (StatementStats stats : statements.values()) {
+			Period period = stats.period();
+			if (period.count > 0) {
+				metrics.auroraStatement(stats.name, period.count, period.rows, period.meanMs(), period.percentileMs(0.99));
+			}
+		}
+
+		Period period = connection.period();
+		if (period.count > 0) {
+			metrics.auroraConnectionAcquire(period.count, period.meanMs(), TimeUnit.NANOSECONDS.toMillis(connection.maxNanos.getThenReset()));
+		}
+	}
+
+	/**
+	 * @return verb.table of the statement, e.g. select.workflow, or just the verb if no table found
+	 */
+	static String name(String sql) {
+		String trimmed = sql.trim();
+		int space = trimmed.indexOf(' ');
+		String verb = (space > 0 ? trimmed.substring(0, space) : trimmed).toLowerCase();
+		Matcher matcher = TABLE.matcher(trimmed);
+		return matcher.find() ? verb + "." + matcher.group(1).toLowerCase() : verb;
+	}
+
+	private void add(long elapsed, int rowCount) {
+		count.increment();
+		nanos.add(elapsed);
+		rows.add(rowCount);
+		maxNanos.accumulate(elapsed);
+
+		long ms = TimeUnit.NANOSECONDS.toMillis(elapsed);
+		int bucket = 0;
+		while (bucket < BUCKETS_MS.length && ms >= BUCKETS_MS[bucket]) {
+			bucket++;
+		}
+		buckets[bucket].increment();
+	}
+
+	private Period period() {
+		Period period = new Period();
+		long totalCount = count.sum();
+		long totalNanos = nanos.sum();
+		long totalRows = rows.sum();
+		period.count = totalCount - publishedCount;
+		period.nanos = totalNanos - publishedNanos;
+		period.rows = totalRows - publishedRows;
+		publishedCount = totalCount;
+		publishedNanos = totalNanos;
+		publishedRows = totalRows;
+
+		period.buckets = new long[buckets.length];
+		for (int i = 0; i < buckets.length; i++) {
+			long total = buckets[i].sum();
+			period.buckets[i] = total - publishedBuckets[i];
+			publishedBuckets[i] = total;
+		}
+		return period;
+	}
+
+	private Map<String, Object> toMap() {
+		long[] totals = new long[buckets.length];
+		for (int i = 0; i < buckets.length; i++) {
+			totals[i] = buckets[i].sum();
+		}
+		long total = count.sum();
+		long totalNanos = nanos.sum();
+
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("name", name);
+		map.put("sql", sql);
+		map.put("count", total);
+		map.put("rows", rows.sum());
+		map.put("totalMs", totalNanos / 1e6);
+		map.put("meanMs", total > 0 ? totalNanos / 1e6 / total : 0.0);
+		map.put("p50Ms", (double) percentileMs(totals, total, 0.5));
+		map.put("p99Ms", (double) percentileMs(totals, total, 0.99));
+		map.put("maxMs", maxNanos.get() / 1e6);
+		return map;
+	}
+
+	/**
+	 * @return The upper bound of the bucket holding the percentile, the last bucket is reported by its lower bound
+	 */
+	private static long percentileMs(long[] counts, long total, double percentile) {
+		long rank = (long) Math.ceil(total * percentile);
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= rank && seen > 0) {
+				return BUCKETS_MS[Math.min(i, BUCKETS_MS.length - 1)];
+			}
+		}
+		return 0;
+	}
+
+	private static class Period {
+		private long count;
+		private long nanos;
+		private long rows;
+		private long[] buckets;
+
+		long meanMs() {
+			return count > 0 ? TimeUnit.NANOSECONDS.toMillis(nanos / count) : 0;
+		}
+
+		long percentileMs(double percentile) {
+			return StatementStats.percentileMs(buckets, count, percentile);
+		}
+	}
+}
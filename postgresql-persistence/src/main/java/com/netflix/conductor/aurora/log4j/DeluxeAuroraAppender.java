@@ -18,37 +18,54 @@
  */
 package com.netflix.conductor.aurora.log4j;
 
+import com.netflix.conductor.service.MetricService;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import org.apache.commons.lang.StringUtils;
 import org.apache.log4j.AppenderSkeleton;
 import org.apache.log4j.spi.LoggingEvent;
+import org.postgresql.PGConnection;
 
 import javax.sql.DataSource;
 import java.io.PrintWriter;
+import java.io.StringReader;
 import java.io.StringWriter;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
+ * Writes the log lines into log4j_logs with COPY, in chunks of aurora_log4j_flush_size lines or once the oldest
+ * queued line is aurora_log4j_flush_delay ms old.
+ * <p>
+ * The lines are queued into a buffer of aurora_log4j_buffer_size. When it is full the new line is dropped, or with
+ * aurora_log4j_when_full=sample every aurora_log4j_sample_rate-th line replaces the oldest queued one. The dropped
+ * lines, buffer depth and flush time are sent to statsd after every flush.
+ *
  * @author Oleksiy Lysak
  */
 public class DeluxeAuroraAppender extends AppenderSkeleton {
-	private static final String INSERT_QUERY = "INSERT INTO log4j_logs " +
-		"(log_time, logger, level, owner, hostname, fromhost, message, stack, alloc_id, trace_id, span_id) " +
-		"VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+	private static final String COPY_QUERY = "COPY log4j_logs " +
+		"(log_time, logger, level, owner, hostname, fromhost, message, stack, alloc_id, trace_id, span_id) FROM STDIN";
 
-	private final LinkedBlockingDeque<LogEntry> buffer = new LinkedBlockingDeque<>();
+	private final ArrayBlockingQueue<LogEntry> buffer;
 	private final AtomicBoolean initialized = new AtomicBoolean(false);
+	private final AtomicLong dropped = new AtomicLong();
+	private final AtomicLong overflow = new AtomicLong();
 	private final ScheduledExecutorService execs;
+	private final int flushSize;
+	private final int flushDelay;
+	private final boolean sampleWhenFull;
+	private final int sampleRate;
 	private HikariDataSource dataSource;
 	private final String hostname;
 	private final String fromhost;
@@ -62,8 +79,13 @@ public class DeluxeAuroraAppender extends AppenderSkeleton {
 		hostname = getHostName();
 		fromhost = getHostIp();
 		allocId = System.getenv("NOMAD_ALLOC_ID");
+		buffer = new ArrayBlockingQueue<>(getIntEnv("aurora_log4j_buffer_size", 10000));
+		flushSize = getIntEnv("aurora_log4j_flush_size", 500);
+		flushDelay = getIntEnv("aurora_log4j_flush_delay", 1000);
+		sampleWhenFull = "sample".equalsIgnoreCase(System.getenv("aurora_log4j_when_full"));
+		sampleRate = getIntEnv("aurora_log4j_sample_rate", 10);
 		execs = Executors.newScheduledThreadPool(1);
-		execs.scheduleWithFixedDelay(this::flush, 500, 100, TimeUnit.MILLISECONDS);
+		execs.scheduleWithFixedDelay(() -> flush(false), 500, 100, TimeUnit.MILLISECONDS);
 	}
 
 	public void append(LoggingEvent event) {
@@ -80,7 +102,20 @@ public class DeluxeAuroraAppender extends AppenderSkeleton {
 		}
 		entry.traceId = (String)event.getMDC("dd.trace_id");
 		entry.spanId = (String)event.getMDC("dd.span_id");
-		buffer.add(entry);
+		if (!buffer.offer(entry)) {
+			overflow(entry);
+		}
+	}
+
+	private void overflow(LogEntry entry) {
+		if (sampleWhenFull && overflow.incrementAndGet() % sampleRate == 0 && buffer.poll() != null) {
+			// The oldest line makes room for the sampled one
+			dropped.incrementAndGet();
+			if (buffer.offer(entry)) {
+				return;
+			}
+		}
+		dropped.incrementAndGet();
 	}
 
 	public void init() {
@@ -114,36 +149,86 @@ public class DeluxeAuroraAppender extends AppenderSkeleton {
 		}
 	}
 
-	private void flush() {
-		if (buffer.isEmpty()) {
-			return;
+	private void flush(boolean all) {
+		try {
+			LogEntry oldest = buffer.peek();
+			if (oldest == null) {
+				return;
+			}
+			if (!all && buffer.size() < flushSize && System.currentTimeMillis() - oldest.timestamp.getTime() < flushDelay) {
+				return;
+			}
+			if (!initialized.get()) {
+				init();
+			}
+
+			// A full chunk goes right away, the rest waits for its age unless all are flushed
+			List<LogEntry> chunk = new ArrayList<>(flushSize);
+			do {
+				chunk.clear();
+				buffer.drainTo(chunk, flushSize);
+				write(chunk);
+			} while (buffer.size() >= flushSize || (all && !buffer.isEmpty()));
+		} catch (Throwable ex) {
+			// Keeps the scheduled flush alive
+			System.out.println("DeluxeAuroraAppender.flush failed " + ex.getMessage() + ", stack=" + throwable2String(ex));
 		}
-		if (!initialized.get()) {
-			init();
+	}
+
+	private void write(List<LogEntry> chunk) {
+		StringBuilder rows = new StringBuilder();
+		for (LogEntry entry : chunk) {
+			copyValue(rows, entry.timestamp.toString()).append('\t');
+			copyValue(rows, entry.logger).append('\t');
+			copyValue(rows, entry.level).append('\t');
+			copyValue(rows, entry.owner).append('\t');
+			copyValue(rows, hostname).append('\t');
+			copyValue(rows, fromhost).append('\t');
+			copyValue(rows, entry.message).append('\t');
+			copyValue(rows, entry.stack).append('\t');
+			copyValue(rows, allocId).append('\t');
+			copyValue(rows, entry.traceId).append('\t');
+			copyValue(rows, entry.spanId).append('\n');
 		}
-		try (Connection tx = dataSource.getConnection(); PreparedStatement st = tx.prepareStatement(INSERT_QUERY)) {
-
-			LogEntry entry = buffer.poll();
-			while (entry != null) {
-				st.setTimestamp(1, entry.timestamp);
-				st.setString(2, entry.logger);
-				st.setString(3, entry.level);
-				st.setString(4, entry.owner);
-				st.setString(5, hostname);
-				st.setString(6, fromhost);
-				st.setString(7, entry.message);
-				st.setString(8, entry.stack);
-				st.setString(9, allocId);
-				st.setString(10, entry.traceId);
-				st.setString(11, entry.spanId);
-				st.execute();
-
-				// Get the next
-				entry = buffer.take();
-			}
+
+		long start = System.currentTimeMillis();
+		int written = 0;
+		try (Connection tx = dataSource.getConnection()) {
+			written = (int) tx.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_QUERY, new StringReader(rows.toString()));
 		} catch (Exception ex) {
-			System.out.println("DeluxeAuroraAppender.flush failed " + ex.getMessage() + ", stack=" + throwable2String(ex));
+			dropped.addAndGet(chunk.size());
+			System.out.println("DeluxeAuroraAppender.write failed " + ex.getMessage() + ", stack=" + throwable2String(ex));
+		}
+		MetricService.getInstance().logAppender(dropped.getAndSet(0), buffer.size(), written, System.currentTimeMillis() - start);
+	}
+
+	/**
+	 * Appends the value in the COPY text format: \N for null, backslash escapes for the delimiters
+	 */
+	private static StringBuilder copyValue(StringBuilder sb, String value) {
+		if (value == null) {
+			return sb.append("\\N");
+		}
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+				case '\\':
+					sb.append("\\\\");
+					break;
+				case '\t':
+					sb.append("\\t");
+					break;
+				case '\n':
+					sb.append("\\n");
+					break;
+				case '\r':
+					sb.append("\\r");
+					break;
+				default:
+					sb.append(c);
+			}
 		}
+		return sb;
 	}
 
 	public void close() {
@@ -152,6 +237,7 @@ public class DeluxeAuroraAppender extends AppenderSkeleton {
 			execs.awaitTermination(5, TimeUnit.SECONDS);
 		} catch (InterruptedException ignore) {
 		}
+		flush(true);
 		try {
 			System.out.println("Closing log4j data source");
 			dataSource.close();
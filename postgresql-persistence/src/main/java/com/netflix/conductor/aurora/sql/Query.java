@@ -48,6 +48,16 @@ public class Query implements AutoCloseable {
      */
     private final PreparedStatement statement;
 
+    /**
+     * Number of the parameter sets added via {@link #addBatch()}.
+     */
+    private int batchSize;
+
+    /**
+     * Number of the rows returned or affected by the executions so far.
+     */
+    private int rows;
+
     public Query(ObjectMapper objectMapper, Connection connection, String query) {
         this.rawQuery = query;
         this.om = objectMapper;
@@ -288,6 +298,7 @@ public class Query implements AutoCloseable {
             }
 
             final int val = this.statement.executeUpdate();
+            rows += val;
 
             if (null != start && logger.isTraceEnabled()) {
                 long end = System.currentTimeMillis();
@@ -300,6 +311,66 @@ public class Query implements AutoCloseable {
         }
     }
 
+    /**
+     * Adds the parameters bound so far as one set of the batch and starts binding the next one.
+     *
+     * @see #executeBatch()
+     */
+    public Query addBatch() {
+        try {
+            this.statement.addBatch();
+            this.index.set(1);
+            this.batchSize++;
+            return this;
+        } catch (SQLException ex) {
+            throw new ApplicationException(Code.BACKEND_ERROR, ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Sends all the parameter sets added via {@link #addBatch()} in one round trip.
+     *
+     * @return The result of {@link PreparedStatement#executeBatch()}
+     */
+    public int[] executeBatch() {
+        try {
+
+            Long start = null;
+            if (logger.isTraceEnabled()) {
+                start = System.currentTimeMillis();
+            }
+
+            final int[] val = this.statement.executeBatch();
+            for (int count : val) {
+                rows += Math.max(0, count);
+            }
+
+            if (null != start && logger.isTraceEnabled()) {
+                long end = System.currentTimeMillis();
+                logger.trace("[{}ms] batch of {}: {}", (end - start), batchSize, rawQuery);
+            }
+
+            return val;
+        } catch (SQLException ex) {
+            throw new ApplicationException(Code.BACKEND_ERROR, ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * @return Number of the parameter sets added via {@link #addBatch()}
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * @return Number of the rows returned or affected by the executions so far. The rows read by a
+     * {@link ResultSetHandler} are not counted
+     */
+    public int getRows() {
+        return rows;
+    }
+
     /**
      * Execute a query from the PreparedStatement and return the ResultSet.
      * <p>
@@ -336,6 +407,7 @@ public class Query implements AutoCloseable {
             if (!rs.next()) {
                 return null;
             }
+            rows++;
             return rs.getObject(1);
         } catch (SQLException ex) {
             throw new ApplicationException(Code.BACKEND_ERROR, ex.getMessage(), ex);
@@ -365,6 +437,7 @@ public class Query implements AutoCloseable {
                 }
                 return returnType.cast(value);
             } else {
+                rows++;
                 return getScalarFromResultSet(rs, returnType);
             }
         } catch (SQLException ex) {
@@ -388,6 +461,7 @@ public class Query implements AutoCloseable {
             while (rs.next()) {
                 values.add(getScalarFromResultSet(rs, returnType));
             }
+            rows += values.size();
             return values;
         } catch (SQLException ex) {
             throw new ApplicationException(Code.BACKEND_ERROR, ex.getMessage(), ex);
@@ -425,6 +499,7 @@ public class Query implements AutoCloseable {
             while (rs.next()) {
                 list.add(convert(rs.getObject(1), returnType));
             }
+            rows += list.size();
             return list;
         } catch (SQLException ex) {
             throw new ApplicationException(Code.BACKEND_ERROR, ex.getMessage(), ex);
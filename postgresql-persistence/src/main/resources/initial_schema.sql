@@ -130,6 +130,7 @@ VALUES (9, 10, 'hybrik-transcode-server', 'transcode-hybrik-low');
 
 -- ----------------------------------------------------------------------------------------------------------------
 -- schema for execution dao
+-- See partitioned_schema.sql for the optional partitioned layout of workflow, task, task_log and event_* tables
 -- --------------------------------------------------------------------------------------------------------------
 create table workflow
 (
@@ -157,6 +158,14 @@ create index workflow_parent_workflow_id on workflow (parent_workflow_id);
 create index workflow_start_time on workflow (start_time);
 create index workflow_end_time on workflow (end_time);
 create index workflow_type_time on workflow (workflow_type, start_time);
+create index workflow_start_time_id on workflow (start_time, workflow_id);
+-- Tag lookups of the event handlers. The terminal workflows have their tags cleared, so both stay small
+create index workflow_tags on workflow using gin (tags);
+create index workflow_tagged_status on workflow (workflow_status) where tags <> '{}';
+-- Free text search of the indexed mode, the expression must match AuroraIndexDAO.SEARCH_TEXT
+create extension if not exists pg_trgm;
+create index workflow_search_text on workflow using gin
+    ((workflow_id || ' ' || coalesce(correlation_id, '') || ' ' || coalesce(input, '')) gin_trgm_ops);
 
 create table task_in_progress
 (
@@ -173,14 +182,27 @@ alter table task_in_progress
     add constraint task_in_progress_fields unique using index task_in_progress_fields;
 create index task_in_progress_wfid on task_in_progress (workflow_id);
 
-create table task_rate_limit
+create table task_concurrency
 (
     id            bigserial primary key,
-    created_on    timestamp    not null default now(),
-    expires_on    timestamp    not null,
-    task_def_name varchar(255) not null
+    modified_on   timestamp    not null default now(),
+    task_def_name varchar(255) not null,
+    leased        integer      not null default 0
+);
+create unique index task_concurrency_name on task_concurrency (task_def_name);
+alter table task_concurrency
+    add constraint task_concurrency_name unique using index task_concurrency_name;
+
+create table task_rate_bucket
+(
+    id            bigserial primary key,
+    task_def_name varchar(255)     not null,
+    tokens        double precision not null,
+    refilled_on   timestamp        not null default now()
 );
-create index task_rate_limit_name_created on task_rate_limit (task_def_name, created_on);
+create unique index task_rate_bucket_name on task_rate_bucket (task_def_name);
+alter table task_rate_bucket
+    add constraint task_rate_bucket_name unique using index task_rate_bucket_name;
 
 create table task
 (
@@ -218,6 +240,20 @@ create unique index task_scheduled_wf_task on task_scheduled (workflow_id, task_
 alter table task_scheduled
     add constraint task_scheduled_wf_task unique using index task_scheduled_wf_task;
 
+create table task_match
+(
+    id         bigserial primary key,
+    created_on timestamp    not null default now(),
+    task_id    varchar(255) not null,
+    match_key  varchar(32)  not null
+);
+create unique index task_match_fields on task_match (match_key, task_id);
+alter table task_match
+    add constraint task_match_fields unique using index task_match_fields;
+create index task_match_task_id on task_match (task_id);
+alter table task_match
+    add constraint task_match_task_id_fkey foreign key (task_id) references task (task_id) on delete cascade;
+
 create table task_log
 (
     id         bigserial primary key,
@@ -318,3 +354,4 @@ alter table queue_message
 create index queue_message_deliver_on on queue_message (deliver_on);
 create index queue_message_unack_on on queue_message (unack_on);
 create index queue_message_message_id on queue_message (message_id);
+create index queue_message_queue_deliver_on on queue_message (queue_name, deliver_on) where popped = false;
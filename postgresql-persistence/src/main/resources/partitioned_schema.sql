@@ -0,0 +1,151 @@
+-- --------------------------------------------------------------------------------------------------------------
+-- Optional partitioned layout (PostgreSQL 12+) for the tables growing with the executions.
+-- Use these definitions instead of the ones of initial_schema.sql and set workflow.aurora.partitioned=true
+-- for the server and partitioned=true for the archiver.
+--
+-- The tables are range partitioned by partition_on, the row creation time unless the archiver moved the row
+-- forward. The archiver creates the partitions ahead and drops the expired ones instead of deleting the rows.
+-- The unique constraints must contain the partition key, so:
+--   * task_task_id does not catch duplicates, the tasks are deduplicated by task_scheduled already
+--   * event_execution_fields does not either, the DAO checks for the duplicate under an advisory lock
+--   * task_log and task_match have no foreign key to task, the archiver drops them with the partitions
+-- Moving a row forward is a delete and insert across partitions. A server statement hitting a row the archiver
+-- moved meanwhile fails with SQLState 40001 ("tuple to be locked was already moved to another partition due to
+-- concurrent update"). It is not retried in place: the sweeper retries the decide, the worker client the task update.
+-- --------------------------------------------------------------------------------------------------------------
+create table workflow
+(
+    id                 bigserial,
+    partition_on       timestamp    not null default now(),
+    created_on         timestamp    not null default now(),
+    modified_on        timestamp    not null default now(),
+    start_time         timestamp,
+    end_time           timestamp,
+    parent_workflow_id varchar(255),
+    workflow_id        varchar(255) not null,
+    workflow_type      varchar(255) not null,
+    workflow_status    varchar(255) not null,
+    date_str           integer      not null,
+    json_data          text         not null,
+    input              text,
+    output             text,
+    correlation_id     text,
+    tags               text[],
+    primary key (id, partition_on),
+    constraint workflow_workflow_id unique (workflow_id, partition_on)
+) partition by range (partition_on);
+create index workflow_type_status_date on workflow (workflow_type, workflow_status, date_str);
+create index workflow_parent_workflow_id on workflow (parent_workflow_id);
+create index workflow_start_time on workflow (start_time);
+create index workflow_end_time on workflow (end_time);
+create index workflow_type_time on workflow (workflow_type, start_time);
+create index workflow_start_time_id on workflow (start_time, workflow_id);
+-- Tag lookups of the event handlers. The terminal workflows have their tags cleared, so both stay small
+create index workflow_tags on workflow using gin (tags);
+create index workflow_tagged_status on workflow (workflow_status) where tags <> '{}';
+create extension if not exists pg_trgm;
+create index workflow_search_text on workflow using gin
+    ((workflow_id || ' ' || coalesce(correlation_id, '') || ' ' || coalesce(input, '')) gin_trgm_ops);
+
+create table task
+(
+    id           bigserial,
+    partition_on timestamp    not null default now(),
+    created_on   timestamp    not null default now(),
+    modified_on  timestamp    not null default now(),
+    task_id      varchar(255) not null,
+    task_type    varchar(255) not null,
+    task_refname varchar(255) not null,
+    task_status  varchar(255) not null,
+    workflow_id  varchar(255) not null,
+    json_data    text         not null,
+    input        text,
+    output       text,
+    start_time   timestamp,
+    end_time     timestamp,
+    primary key (id, partition_on),
+    constraint task_task_id unique (task_id, partition_on)
+) partition by range (partition_on);
+create index task_type_status on task (task_type, task_status);
+create index task_workflow_id on task (workflow_id);
+create index task_type_time on task (task_type, start_time);
+
+create table task_match
+(
+    id         bigserial primary key,
+    created_on timestamp    not null default now(),
+    task_id    varchar(255) not null,
+    match_key  varchar(32)  not null
+);
+create unique index task_match_fields on task_match (match_key, task_id);
+alter table task_match
+    add constraint task_match_fields unique using index task_match_fields;
+create index task_match_task_id on task_match (task_id);
+
+create table task_log
+(
+    id           bigserial,
+    partition_on timestamp    not null default now(),
+    created_on   timestamp    not null default now(),
+    task_id      varchar(255) not null,
+    log          text         not null,
+    primary key (id, partition_on)
+) partition by range (partition_on);
+create index task_log_task_id on task_log (task_id);
+
+create table event_message
+(
+    id           bigserial,
+    partition_on timestamp    not null default now(),
+    created_on   timestamp    not null default now(),
+    queue_name   varchar(255) not null,
+    message_id   varchar(255) not null,
+    receipt      text,
+    json_data    text,
+    primary key (id, partition_on)
+) partition by range (partition_on);
+create index event_message_created_on on event_message (created_on);
+
+create table event_execution
+(
+    id           bigserial,
+    partition_on timestamp    not null default now(),
+    created_on   timestamp    not null default now(),
+    modified_on  timestamp    not null default now(),
+    handler_name varchar(255) not null,
+    event_name   varchar(255) not null,
+    message_id   varchar(255) not null,
+    execution_id varchar(255) not null,
+    status       varchar(255) not null,
+    subject      varchar(255) not null,
+    received_on  timestamp,
+    accepted_on  timestamp,
+    started_on   timestamp,
+    processed_on timestamp,
+    primary key (id, partition_on),
+    constraint event_execution_fields unique (handler_name, event_name, message_id, execution_id, partition_on)
+) partition by range (partition_on);
+create index event_execution_created_on on event_execution (created_on);
+create index event_execution_combo ON event_execution(subject, received_on);
+
+create table event_published
+(
+    id           bigserial,
+    partition_on timestamp    not null default now(),
+    created_on   timestamp    not null default now(),
+    json_data    text         not null,
+    message_id   varchar(255) not null,
+    subject      varchar(255) not null,
+    published_on timestamp    not null,
+    primary key (id, partition_on)
+) partition by range (partition_on);
+create index event_published_subject_date on event_published (subject, published_on);
+create index event_published_created_on on event_published (created_on);
+
+-- The first partitions, the archiver creates the next ones ahead of time
+create table workflow_p_initial partition of workflow for values from (minvalue) to (date_trunc('day', now() + interval '7 days'));
+create table task_p_initial partition of task for values from (minvalue) to (date_trunc('day', now() + interval '7 days'));
+create table task_log_p_initial partition of task_log for values from (minvalue) to (date_trunc('day', now() + interval '7 days'));
+create table event_message_p_initial partition of event_message for values from (minvalue) to (date_trunc('day', now() + interval '7 days'));
+create table event_execution_p_initial partition of event_execution for values from (minvalue) to (date_trunc('day', now() + interval '7 days'));
+create table event_published_p_initial partition of event_published for values from (minvalue) to (date_trunc('day', now() + interval '7 days'));
@@ -0,0 +1,188 @@
+package com.netflix.conductor.aurora;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.netflix.conductor.common.metadata.tasks.Task;
+import com.netflix.conductor.common.metadata.tasks.TaskDef;
+import com.netflix.conductor.core.config.Configuration;
+import com.netflix.conductor.core.utils.RateLimiter;
+import com.netflix.conductor.dao.IndexDAO;
+import com.netflix.conductor.dao.MetadataDAO;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the permit bookkeeping against an in-memory task_in_progress row and task_concurrency counter
+ */
+public class AuroraExecutionDAOTest {
+	private static final String TASK_DEF = "limited_task";
+
+	// task_in_progress.in_progress of the task, null when the row is gone
+	private volatile Boolean permit;
+	// task_concurrency.leased of the task definition
+	private volatile int leased;
+
+	private AuroraExecutionDAO dao;
+
+	@Before
+	public void setUp() throws Exception {
+		permit = false;
+		leased = 0;
+
+		TaskDef taskDef = new TaskDef(TASK_DEF);
+		taskDef.setConcurrentExecLimit(1);
+		MetadataDAO metadata = mock(MetadataDAO.class);
+		when(metadata.getTaskDef(TASK_DEF)).thenReturn(taskDef);
+
+		Configuration config = mock(Configuration.class);
+		when(config.getIntProperty(anyString(), anyInt())).thenAnswer(invocation -> invocation.getArguments()[1]);
+		when(config.getProperty(anyString(), anyString())).thenAnswer(invocation -> invocation.getArguments()[1]);
+
+		Connection connection = mock(Connection.class);
+		when(connection.prepareStatement(anyString())).thenAnswer(invocation -> statement((String) invocation.getArguments()[0]));
+		DataSource dataSource = mock(DataSource.class);
+		when(dataSource.getConnection()).thenReturn(connection);
+
+		dao = new AuroraExecutionDAO(dataSource, new ObjectMapper(), metadata, mock(IndexDAO.class),
+			mock(RateLimiter.class), config);
+	}
+
+	@Test
+	public void testScheduledUpdateKeepsLeasedPermit() {
+		Task task = task(Task.Status.SCHEDULED);
+
+		assertFalse(dao.exceedsInProgressLimit(task));
+		assertTrue(permit);
+		assertEquals(1, leased);
+
+		// executeSystemTask stores the task before it starts it, still SCHEDULED
+		dao.updateTask(task);
+		assertTrue(permit);
+		assertEquals(1, leased);
+
+		// So the limit still holds for another task
+		assertTrue(dao.exceedsInProgressLimit(other()));
+
+		task.setStatus(Task.Status.IN_PROGRESS);
+		dao.updateTask(task);
+		assertTrue(permit);
+		assertEquals(1, leased);
+
+		task.setStatus(Task.Status.COMPLETED);
+		dao.updateTask(task);
+		assertNull(permit);
+		assertEquals(0, leased);
+	}
+
+	@Test
+	public void testInProgressUpdateTakesPermitNotLeased() {
+		Task task = task(Task.Status.IN_PROGRESS);
+
+		dao.updateTask(task);
+		assertTrue(permit);
+		assertEquals(1, leased);
+
+		// A repeated write does not count it twice
+		dao.updateTask(task);
+		assertEquals(1, leased);
+	}
+
+	private Task task(Task.Status status) {
+		Task task = new Task();
+		task.setTaskId("task1");
+		task.setTaskType(TASK_DEF);
+		task.setTaskDefName(TASK_DEF);
+		task.setReferenceTaskName("ref");
+		task.setWorkflowInstanceId("wf1");
+		task.setStatus(status);
+		return task;
+	}
+
+	// Tracked but not the one holding the permit
+	private Task other() {
+		Task task = task(Task.Status.SCHEDULED);
+		task.setTaskId("task2");
+		return task;
+	}
+
+	private PreparedStatement statement(String sql) throws Exception {
+		Map<Integer, Object> params = new HashMap<>();
+		PreparedStatement statement = mock(PreparedStatement.class);
+		doAnswer(invocation -> params.put((Integer) invocation.getArguments()[0], invocation.getArguments()[1]))
+			.when(statement).setString(anyInt(), anyString());
+		doAnswer(invocation -> params.put((Integer) invocation.getArguments()[0], invocation.getArguments()[1]))
+			.when(statement).setInt(anyInt(), anyInt());
+
+		when(statement.executeUpdate()).thenAnswer(invocation -> update(sql, params));
+		when(statement.executeQuery()).thenAnswer(invocation -> query(sql, params));
+		return statement;
+	}
+
+	private synchronized int update(String sql, Map<Integer, Object> params) {
+		if (sql.startsWith("UPDATE task_concurrency SET leased = leased + 1")) {
+			if (leased >= (Integer) params.get(2)) {
+				return 0;
+			}
+			leased++;
+			return 1;
+		}
+		if (sql.startsWith("UPDATE task_concurrency SET leased = GREATEST")) {
+			leased = Math.max(0, leased + (Integer) params.get(1));
+			return 1;
+		}
+		if (sql.startsWith("UPDATE task_in_progress SET in_progress = true")) {
+			if (!"task1".equals(params.get(2)) || permit == null) {
+				return 0;
+			}
+			if (permit && sql.contains("in_progress = false")) {
+				return 0;
+			}
+			permit = true;
+			return 1;
+		}
+		if (sql.startsWith("UPDATE task_in_progress")) {
+			throw new AssertionError("Unexpected permit change " + sql);
+		}
+		return sql.startsWith("UPDATE task SET") ? 1 : 0;
+	}
+
+	private synchronized ResultSet query(String sql, Map<Integer, Object> params) throws Exception {
+		if (sql.startsWith("SELECT in_progress FROM task_in_progress")) {
+			// Any other task is tracked without a permit
+			return resultSet("task1".equals(params.get(2)) ? permit : Boolean.FALSE);
+		}
+		if (sql.startsWith("DELETE FROM task_in_progress") && "task1".equals(params.get(2))) {
+			Boolean removed = permit;
+			permit = null;
+			return resultSet(removed);
+		}
+		return resultSet(null);
+	}
+
+	private ResultSet resultSet(Boolean row) throws Exception {
+		ResultSet rs = mock(ResultSet.class);
+		if (row == null) {
+			when(rs.next()).thenReturn(false);
+		} else {
+			when(rs.next()).thenReturn(true, false);
+			when(rs.getBoolean(1)).thenReturn(row);
+		}
+		return rs;
+	}
+}
@@ -0,0 +1,107 @@
+package com.netflix.conductor.aurora;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The statements are recorded into a static registry shared with the other tests of the module,
+ * so every test records its own SQL text and looks it up by it.
+ */
+public class StatementStatsTest {
+
+	@Test
+	public void testName() {
+		assertEquals("select.workflow", StatementStats.name("SELECT json_data FROM workflow WHERE workflow_id = ?"));
+		assertEquals("insert.task_log", StatementStats.name("  insert into task_log (task_id, log) VALUES (?, ?)"));
+		assertEquals("update.task_in_progress", StatementStats.name("UPDATE task_in_progress SET in_progress = true"));
+		assertEquals("delete.queue_message", StatementStats.name("DELETE FROM queue_message WHERE id = ANY(?)"));
+		assertEquals("select", StatementStats.name("SELECT 1"));
+	}
+
+	@Test
+	public void testRecord() {
+		String sql = sql("workflow");
+		StatementStats.record(sql, ms(2), 1);
+		StatementStats.record(sql, ms(4), 3);
+		StatementStats.record(sql, ms(9), 0);
+
+		Map<String, Object> stats = stats(sql);
+		assertEquals("select.workflow", stats.get("name"));
+		assertEquals(3L, stats.get("count"));
+		assertEquals(4L, stats.get("rows"));
+		assertEquals(15.0, (Double) stats.get("totalMs"), 0.001);
+		assertEquals(5.0, (Double) stats.get("meanMs"), 0.001);
+		assertEquals(9.0, (Double) stats.get("maxMs"), 0.001);
+	}
+
+	@Test
+	public void testPercentiles() {
+		String sql = sql("task");
+
+		// 98 in the 2-5 ms bucket, 2 in the 500-1000 ms one
+		for (int i = 0; i < 98; i++) {
+			StatementStats.record(sql, ms(3), 1);
+		}
+		StatementStats.record(sql, ms(700), 1);
+		StatementStats.record(sql, ms(700), 1);
+
+		Map<String, Object> stats = stats(sql);
+		assertEquals(5.0, (Double) stats.get("p50Ms"), 0.001);
+		assertEquals(1000.0, (Double) stats.get("p99Ms"), 0.001);
+		assertEquals(700.0, (Double) stats.get("maxMs"), 0.001);
+	}
+
+	@Test
+	public void testPercentileOverLastBucket() {
+		String sql = sql("task_log");
+		StatementStats.record(sql, ms(30000), 0);
+
+		// Reported by the lower bound of the open bucket
+		assertEquals(10000.0, (Double) stats(sql).get("p99Ms"), 0.001);
+	}
+
+	@Test
+	public void testSlowest() {
+		// Far slower than anything the other tests record, so they are the first ones
+		String slow = sql("workflow_def");
+		String slower = sql("workflow_def");
+		StatementStats.record(slow, ms(60000), 0);
+		StatementStats.record(slow, ms(60000), 0);
+		StatementStats.record(slower, ms(100000), 0);
+
+		List<Map<String, Object>> byMean = StatementStats.slowest(2, "mean");
+		assertEquals(2, byMean.size());
+		assertEquals(slower, byMean.get(0).get("sql"));
+		assertEquals(slow, byMean.get(1).get("sql"));
+
+		List<Map<String, Object>> byTotal = StatementStats.slowest(2, "total");
+		assertEquals(slow, byTotal.get(0).get("sql"));
+		assertEquals(slower, byTotal.get(1).get("sql"));
+
+		assertEquals(1, StatementStats.slowest(1, "max").size());
+	}
+
+	private static String sql(String table) {
+		return "SELECT json_data FROM " + table + " WHERE test_id = '" + UUID.randomUUID() + "'";
+	}
+
+	private static long ms(long millis) {
+		return TimeUnit.MILLISECONDS.toNanos(millis);
+	}
+
+	private static Map<String, Object> stats(String sql) {
+		Map<String, Object> found = StatementStats.slowest(Integer.MAX_VALUE, "total").stream()
+			.filter(stats -> sql.equals(stats.get("sql")))
+			.findFirst()
+			.orElse(null);
+		assertTrue("Not recorded " + sql, found != null);
+		return found;
+	}
+}